@@ -9,7 +9,9 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.HdrHistogram.AbstractHistogram;
@@ -102,14 +104,33 @@ public class Assertions
         }
     }
 
+    /**
+     * Asserts the P99 latency integral of every node of the array against the expected value,
+     * e.g.: with several servers each of them is expected to perform like a single one would.
+     */
+    public static boolean assertP99LatencyPerNode(Path reportRootPath, NodeArrayConfiguration nodeArray, long expectedValue, double errorMargin, int toleratedOutliers) throws FileNotFoundException
+    {
+        boolean succeeded = true;
+        for (Node node : nodeArray.nodes())
+        {
+            succeeded &= assertP99Latency(reportRootPath, nodeArray.id(), List.of(node), nodeArray.id() + "/" + node.getId(), expectedValue, errorMargin, toleratedOutliers);
+        }
+        return succeeded;
+    }
+
     public static boolean assertP99Latency(Path reportRootPath, NodeArrayConfiguration nodeArray, long expectedValue, double errorMargin, int toleratedOutliers) throws FileNotFoundException
+    {
+        return assertP99Latency(reportRootPath, nodeArray.id(), nodeArray.nodes(), nodeArray.id(), expectedValue, errorMargin, toleratedOutliers);
+    }
+
+    private static boolean assertP99Latency(Path reportRootPath, String nodeArrayId, Collection<Node> nodes, String label, long expectedValue, double errorMargin, int toleratedOutliers) throws FileNotFoundException
     {
         // calculate mean p99 value as a basis to eliminate outliers
         long sum = 0L;
         long count = 0L;
-        for (Node node : nodeArray.nodes())
+        for (Node node : nodes)
         {
-            Path perfHlog = reportRootPath.resolve(nodeArray.id()).resolve(node.getId()).resolve("perf.hlog");
+            Path perfHlog = reportRootPath.resolve(nodeArrayId).resolve(node.getId()).resolve("perf.hlog");
             try (HistogramLogReader histogramLogReader = new HistogramLogReader(perfHlog.toFile()))
             {
                 while (true)
@@ -128,9 +149,9 @@ public class Assertions
         long trueIntegral = 0L;
         long correctedIntegral = 0L;
         int outliers = 0;
-        for (Node node : nodeArray.nodes())
+        for (Node node : nodes)
         {
-            Path perfHlog = reportRootPath.resolve(nodeArray.id()).resolve(node.getId()).resolve("perf.hlog");
+            Path perfHlog = reportRootPath.resolve(nodeArrayId).resolve(node.getId()).resolve("perf.hlog");
             try (HistogramLogReader histogramLogReader = new HistogramLogReader(perfHlog.toFile()))
             {
                 while (true)
@@ -158,7 +179,7 @@ public class Assertions
         trueIntegral /= 1_000; // convert ns -> us
         correctedIntegral /= 1_000; // convert ns -> us
 
-        System.out.println("  " + nodeArray.id() + " P99 lat integral is " + trueIntegral + " vs expected " + expectedValue +
+        System.out.println("  " + label + " P99 lat integral is " + trueIntegral + " vs expected " + expectedValue +
             " with " + outliers + " outlier(s), max = " + toleratedOutliers + ", corrected to " + correctedIntegral);
         double error = expectedValue * errorMargin / 100.0;
         double highBound = expectedValue + error;
@@ -188,4 +209,62 @@ public class Assertions
             return false;
         }
     }
+
+    /**
+     * Compares the per-interval P99 latencies of the node array with the ones of a baseline made of previous runs.
+     * Fails only when the increase is both statistically significant (one-sided Mann-Whitney U test) and
+     * large enough to matter (relative change of the median P99).
+     */
+    public static boolean assertP99LatencyVsBaseline(Path reportRootPath, NodeArrayConfiguration nodeArray, long[] baselineIntervalP99s, double alpha, double minEffectPct) throws FileNotFoundException
+    {
+        List<Long> intervalP99s = new ArrayList<>();
+        for (Node node : nodeArray.nodes())
+        {
+            Path perfHlog = reportRootPath.resolve(nodeArray.id()).resolve(node.getId()).resolve("perf.hlog");
+            try (HistogramLogReader histogramLogReader = new HistogramLogReader(perfHlog.toFile()))
+            {
+                while (true)
+                {
+                    AbstractHistogram histogram = (AbstractHistogram)histogramLogReader.nextIntervalHistogram();
+                    if (histogram == null)
+                        break;
+
+                    intervalP99s.add(histogram.getValueAtPercentile(99.0));
+                }
+            }
+        }
+        double[] current = intervalP99s.stream().mapToDouble(value -> value / 1_000.0).toArray(); // convert ns -> us
+        double[] baseline = new double[baselineIntervalP99s.length];
+        for (int i = 0; i < baselineIntervalP99s.length; i++)
+        {
+            baseline[i] = baselineIntervalP99s[i] / 1_000.0; // convert ns -> us
+        }
+
+        double pValue = StatisticalTests.mannWhitneyGreaterPValue(current, baseline);
+        double delta = StatisticalTests.cliffsDelta(current, baseline);
+        double currentMedian = StatisticalTests.median(current);
+        double baselineMedian = StatisticalTests.median(baseline);
+        double changePct = baselineMedian == 0.0 ? 0.0 : (currentMedian - baselineMedian) * 100.0 / baselineMedian;
+        double[] ci = StatisticalTests.bootstrapMedianChangePct(current, baseline, 0.95, 2_000, 0L);
+
+        System.out.printf(Locale.ROOT, "  %s median P99 lat is %.0f us over %d intervals vs baseline %.0f us over %d intervals, %+.2f%% (95%% CI %+.2f%% .. %+.2f%%), p = %.4f, Cliff's delta = %+.3f%n",
+            nodeArray.id(), currentMedian, current.length, baselineMedian, baseline.length, changePct, ci[0], ci[1], pValue, delta);
+        boolean significant = pValue < alpha;
+        boolean meaningful = changePct >= minEffectPct;
+        if (significant && meaningful)
+        {
+            System.out.println("  NOK; increase is significant (p < " + alpha + ") and over " + minEffectPct + "%");
+            return false;
+        }
+        else if (significant)
+        {
+            System.out.println("  OK; difference is significant (p < " + alpha + ") but not an increase over " + minEffectPct + "%");
+            return true;
+        }
+        else
+        {
+            System.out.println("  OK; no significant increase (p >= " + alpha + ")");
+            return true;
+        }
+    }
 }
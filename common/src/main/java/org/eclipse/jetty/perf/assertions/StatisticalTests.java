@@ -0,0 +1,155 @@
+package org.eclipse.jetty.perf.assertions;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Non-parametric tests comparing two samples, e.g.: the per-interval P99s of a run with the ones of a baseline.
+ * Latency distributions are far from normal, so nothing here assumes normality.
+ */
+public class StatisticalTests
+{
+    /**
+     * One-sided Mann-Whitney U test, using the normal approximation with tie correction.
+     *
+     * @return the p-value of the hypothesis that the values of {@code current} are not greater than the ones of {@code baseline}.
+     */
+    public static double mannWhitneyGreaterPValue(double[] current, double[] baseline)
+    {
+        int n1 = current.length;
+        int n2 = baseline.length;
+        double u = mannWhitneyU(current, baseline);
+
+        // tie correction
+        double[] all = new double[n1 + n2];
+        System.arraycopy(current, 0, all, 0, n1);
+        System.arraycopy(baseline, 0, all, n1, n2);
+        Arrays.sort(all);
+        double tieSum = 0.0;
+        for (int i = 0; i < all.length; )
+        {
+            int j = i;
+            while (j < all.length && all[j] == all[i])
+            {
+                j++;
+            }
+            double t = j - i;
+            tieSum += t * t * t - t;
+            i = j;
+        }
+        double n = n1 + n2;
+        double mean = n1 * (double)n2 / 2.0;
+        double variance = n1 * (double)n2 / 12.0 * ((n + 1) - tieSum / (n * (n - 1)));
+        if (variance <= 0.0)
+            return 0.5;
+        // continuity correction
+        double z = (u - mean - 0.5) / Math.sqrt(variance);
+        return 1.0 - normalCdf(z);
+    }
+
+    /**
+     * @return Cliff's delta, from -1 (all current values are lower) to 1 (all current values are greater).
+     */
+    public static double cliffsDelta(double[] current, double[] baseline)
+    {
+        return 2.0 * mannWhitneyU(current, baseline) / ((double)current.length * baseline.length) - 1.0;
+    }
+
+    /**
+     * @return the bootstrapped [low, high] confidence interval of the relative change of the median,
+     * in percent, from {@code baseline} to {@code current}.
+     */
+    public static double[] bootstrapMedianChangePct(double[] current, double[] baseline, double confidence, int iterations, long seed)
+    {
+        Random random = new Random(seed);
+        double[] changes = new double[iterations];
+        double[] currentResample = new double[current.length];
+        double[] baselineResample = new double[baseline.length];
+        for (int i = 0; i < iterations; i++)
+        {
+            resample(random, current, currentResample);
+            resample(random, baseline, baselineResample);
+            double baselineMedian = median(baselineResample);
+            changes[i] = baselineMedian == 0.0 ? 0.0 : (median(currentResample) - baselineMedian) * 100.0 / baselineMedian;
+        }
+        Arrays.sort(changes);
+        double alpha = (1.0 - confidence) / 2.0;
+        int low = (int)Math.floor(alpha * (iterations - 1));
+        int high = (int)Math.ceil((1.0 - alpha) * (iterations - 1));
+        return new double[]{changes[low], changes[high]};
+    }
+
+    public static double median(double[] values)
+    {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 0 ? (sorted[middle - 1] + sorted[middle]) / 2.0 : sorted[middle];
+    }
+
+    private static double mannWhitneyU(double[] current, double[] baseline)
+    {
+        // counts the pairs where current is greater, ties counting for half
+        double[] sortedBaseline = baseline.clone();
+        Arrays.sort(sortedBaseline);
+        double u = 0.0;
+        for (double value : current)
+        {
+            int lower = lowerBound(sortedBaseline, value);
+            int upper = upperBound(sortedBaseline, value);
+            u += lower + (upper - lower) / 2.0;
+        }
+        return u;
+    }
+
+    private static int lowerBound(double[] sorted, double value)
+    {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private static int upperBound(double[] sorted, double value)
+    {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private static void resample(Random random, double[] source, double[] target)
+    {
+        for (int i = 0; i < target.length; i++)
+        {
+            target[i] = source[random.nextInt(source.length)];
+        }
+    }
+
+    private static double normalCdf(double z)
+    {
+        return 0.5 * (1.0 + erf(z / Math.sqrt(2.0)));
+    }
+
+    private static double erf(double x)
+    {
+        // Abramowitz and Stegun 7.1.26, max error 1.5e-7
+        double t = 1.0 / (1.0 + 0.3275911 * Math.abs(x));
+        double y = 1.0 - (((((1.061405429 * t - 1.453152027) * t) + 1.421413741) * t - 0.284496736) * t + 0.254829592) * t * Math.exp(-x * x);
+        return x >= 0.0 ? y : -y;
+    }
+}
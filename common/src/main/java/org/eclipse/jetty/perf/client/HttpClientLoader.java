@@ -0,0 +1,266 @@
+package org.eclipse.jetty.perf.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.eclipse.jetty.client.BytesRequestContent;
+import org.eclipse.jetty.client.DuplexConnectionPool;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpClientTransport;
+import org.eclipse.jetty.client.InputStreamRequestContent;
+import org.eclipse.jetty.client.MultiplexConnectionPool;
+import org.eclipse.jetty.client.Request;
+import org.eclipse.jetty.client.RoundRobinConnectionPool;
+import org.eclipse.jetty.client.transport.HttpClientTransportOverHTTP;
+import org.eclipse.jetty.http.HttpCookieStore;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.transport.HttpClientTransportOverHTTP2;
+import org.eclipse.jetty.io.ClientConnector;
+import org.eclipse.jetty.perf.histogram.loader.ResponseStatusListener;
+import org.eclipse.jetty.perf.test.PerfTestParams;
+import org.eclipse.jetty.perf.util.LatencyRecorder;
+import org.eclipse.jetty.perf.util.Recorder;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends requests at a fixed rate with a plain {@link HttpClient} configured by {@link HttpClientSettings},
+ * for when the client is what is benchmarked instead of a mere load generator.
+ * Latency is measured from the time each request was meant to be sent, so a client falling behind
+ * does not hide its own delays. The CPU used by the JVM while recording is divided by the completed
+ * requests and written to {@link #DEFAULT_CPU_FILENAME}.
+ * When given {@link UploadSettings}, each request is a POST uploading a body of the configured size.
+ */
+public class HttpClientLoader implements Recorder
+{
+    private static final Logger LOG = LoggerFactory.getLogger(HttpClientLoader.class);
+    public static final String DEFAULT_CPU_FILENAME = "http-client-cpu.properties";
+    private static final int UPLOAD_BUFFER_SIZE = 16 * 1024;
+
+    private final URI targetUri;
+    private final PerfTestParams.HttpVersion version;
+    private final HttpClientSettings settings;
+    private final int rate;
+    private final UploadSettings upload;
+    private final byte[] body;
+    private final LatencyRecorder latencyRecorder;
+    private final ResponseStatusListener statusListener;
+    private final LongAdder completed = new LongAdder();
+    private final AtomicLong inFlight = new AtomicLong();
+    private Supplier<String> pathSupplier;
+    private AtomicReferenceArray<String> sessionCookies; // null when the requests carry no cookie
+    private volatile boolean recording;
+    private long recordingCpuTime;
+    private long recordingCompleted;
+    private long recordingStartNanos;
+
+    public HttpClientLoader(URI targetUri, PerfTestParams.HttpVersion version, HttpClientSettings settings, int rate, UploadSettings upload, LatencyRecorder latencyRecorder, ResponseStatusListener statusListener)
+    {
+        this.targetUri = targetUri;
+        this.version = version;
+        this.settings = settings;
+        this.rate = rate;
+        this.upload = upload;
+        this.body = upload == null ? null : newBody(upload.bodySize());
+        this.latencyRecorder = latencyRecorder;
+        this.statusListener = statusListener;
+    }
+
+    /**
+     * @param pathSupplier gives the path of each request, instead of always requesting the target URI's.
+     */
+    public void setPathSupplier(Supplier<String> pathSupplier)
+    {
+        this.pathSupplier = pathSupplier;
+    }
+
+    /**
+     * @param users how many distinct users the requests are sent for, each carrying the cookies the server
+     * last set for its user, so that the server keeps one session per user.
+     */
+    public void setSessionUsers(int users)
+    {
+        this.sessionCookies = new AtomicReferenceArray<>(users);
+    }
+
+    public CompletableFuture<Void> begin(Duration duration) throws Exception
+    {
+        HttpClient httpClient = newHttpClient();
+        httpClient.start();
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        long periodNanos = settings.batchSize() * TimeUnit.SECONDS.toNanos(1) / rate;
+        long startNanos = System.nanoTime();
+        AtomicLong tick = new AtomicLong();
+        scheduler.scheduleAtFixedRate(() ->
+        {
+            long intendedNanos = startNanos + tick.getAndIncrement() * periodNanos;
+            for (int i = 0; i < settings.batchSize(); i++)
+            {
+                send(httpClient, intendedNanos);
+            }
+        }, 0L, periodNanos, TimeUnit.NANOSECONDS);
+
+        CompletableFuture<Void> cf = new CompletableFuture<>();
+        scheduler.schedule(() ->
+        {
+            scheduler.shutdown();
+            new Thread(() ->
+            {
+                try
+                {
+                    // let the in-flight requests complete before stopping the client
+                    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                    while (inFlight.get() > 0L && System.nanoTime() < deadline)
+                    {
+                        Thread.sleep(10);
+                    }
+                    httpClient.stop();
+                    cf.complete(null);
+                }
+                catch (Throwable x)
+                {
+                    cf.completeExceptionally(x);
+                }
+            }, "http-client-loader-stopper").start();
+        }, duration.toNanos(), TimeUnit.NANOSECONDS);
+        return cf;
+    }
+
+    private void send(HttpClient httpClient, long intendedNanos)
+    {
+        inFlight.incrementAndGet();
+        Request request = httpClient.newRequest(targetUri);
+        if (pathSupplier != null)
+            request.path(pathSupplier.get());
+        int user = sessionCookies == null ? -1 : ThreadLocalRandom.current().nextInt(sessionCookies.length());
+        if (user >= 0)
+        {
+            String cookie = sessionCookies.get(user);
+            if (cookie != null)
+                request.headers(headers -> headers.put(HttpHeader.COOKIE, cookie));
+        }
+        if (upload != null)
+        {
+            // without a known length, HTTP/1.1 sends the body chunked
+            Request.Content content = upload.chunked()
+                ? new InputStreamRequestContent("application/octet-stream", new ByteArrayInputStream(body), UPLOAD_BUFFER_SIZE)
+                : new BytesRequestContent("application/octet-stream", body);
+            request.method(HttpMethod.POST).body(content);
+        }
+        request.send(result ->
+        {
+            inFlight.decrementAndGet();
+            if (user >= 0)
+            {
+                String setCookie = result.getResponse().getHeaders().get(HttpHeader.SET_COOKIE);
+                if (setCookie != null)
+                {
+                    int semicolon = setCookie.indexOf(';');
+                    sessionCookies.set(user, semicolon < 0 ? setCookie : setCookie.substring(0, semicolon));
+                }
+            }
+            if (recording)
+            {
+                latencyRecorder.recordValue(System.nanoTime() - intendedNanos);
+                completed.increment();
+            }
+            statusListener.recordStatus(result.getResponse().getStatus(), result.getFailure());
+        });
+    }
+
+    private static byte[] newBody(int size)
+    {
+        byte[] body = new byte[size];
+        for (int i = 0; i < body.length; i++)
+        {
+            body[i] = (byte)('a' + ThreadLocalRandom.current().nextInt(26));
+        }
+        return body;
+    }
+
+    private HttpClient newHttpClient()
+    {
+        ClientConnector clientConnector = new ClientConnector();
+        clientConnector.setSslContextFactory(new SslContextFactory.Client(true));
+        HttpClientTransport transport = version == PerfTestParams.HttpVersion.HTTP2
+            ? new HttpClientTransportOverHTTP2(new HTTP2Client(clientConnector))
+            : new HttpClientTransportOverHTTP(clientConnector);
+        int maxConnections = settings.maxConnectionsPerDestination();
+        transport.setConnectionPoolFactory(destination -> switch (settings.poolStrategy())
+        {
+            case DUPLEX -> new DuplexConnectionPool(destination, maxConnections);
+            case MULTIPLEX -> new MultiplexConnectionPool(destination, maxConnections, 1);
+            case ROUND_ROBIN -> new RoundRobinConnectionPool(destination, maxConnections);
+        });
+        HttpClient httpClient = new HttpClient(transport);
+        httpClient.setMaxConnectionsPerDestination(maxConnections);
+        // the cookies are per user, not for the whole client
+        if (sessionCookies != null)
+            httpClient.setHttpCookieStore(new HttpCookieStore.Empty());
+        return httpClient;
+    }
+
+    @Override
+    public void startRecording()
+    {
+        recordingCpuTime = processCpuTime();
+        recordingCompleted = completed.sum();
+        recordingStartNanos = System.nanoTime();
+        recording = true;
+    }
+
+    @Override
+    public void stopRecording()
+    {
+        recording = false;
+        long cpuTime = processCpuTime() - recordingCpuTime;
+        long requests = completed.sum() - recordingCompleted;
+        long elapsed = System.nanoTime() - recordingStartNanos;
+
+        Properties properties = new Properties();
+        properties.setProperty("settings", settings.toString());
+        if (upload != null)
+            properties.setProperty("upload", upload.toString());
+        properties.setProperty("requests", Long.toString(requests));
+        properties.setProperty("elapsed-ns", Long.toString(elapsed));
+        properties.setProperty("cpu-ns", Long.toString(cpuTime));
+        properties.setProperty("cpu-ns-per-request", Long.toString(requests == 0L ? 0L : cpuTime / requests));
+        properties.setProperty("cpu-cores-used", String.format(Locale.ROOT, "%.2f", elapsed == 0L ? 0.0 : (double)cpuTime / elapsed));
+        try (OutputStream os = Files.newOutputStream(Path.of(DEFAULT_CPU_FILENAME)))
+        {
+            properties.store(os, "CPU of the whole client JVM while recording");
+        }
+        catch (IOException e)
+        {
+            LOG.error("Error writing client CPU accounting", e);
+        }
+    }
+
+    private static long processCpuTime()
+    {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean operatingSystemMXBean)
+            return operatingSystemMXBean.getProcessCpuTime();
+        return 0L;
+    }
+}
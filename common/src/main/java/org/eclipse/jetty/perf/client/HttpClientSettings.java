@@ -0,0 +1,36 @@
+package org.eclipse.jetty.perf.client;
+
+import java.io.Serializable;
+import java.util.Locale;
+
+import org.eclipse.jetty.perf.test.PerfTestParams;
+
+/**
+ * How the loaders configure their {@code HttpClient} when it is the system under test.
+ *
+ * @param poolStrategy the connection pool implementation.
+ * @param maxConnectionsPerDestination the size of the connection pool.
+ * @param batchSize how many requests are sent back-to-back at each tick of the request rate.
+ */
+public record HttpClientSettings(PoolStrategy poolStrategy, int maxConnectionsPerDestination, int batchSize) implements Serializable
+{
+    public enum PoolStrategy
+    {
+        DUPLEX, MULTIPLEX, ROUND_ROBIN
+    }
+
+    /**
+     * @return the settings of a default {@code HttpClient} for the given HTTP version, for when the client
+     * only has to send the requests.
+     */
+    public static HttpClientSettings defaults(PerfTestParams.HttpVersion version)
+    {
+        return new HttpClientSettings(version == PerfTestParams.HttpVersion.HTTP2 ? PoolStrategy.MULTIPLEX : PoolStrategy.DUPLEX, 64, 1);
+    }
+
+    @Override
+    public String toString()
+    {
+        return poolStrategy.name().toLowerCase(Locale.ROOT) + "-" + maxConnectionsPerDestination + "-b" + batchSize;
+    }
+}
@@ -0,0 +1,24 @@
+package org.eclipse.jetty.perf.client;
+
+import java.io.Serializable;
+
+/**
+ * How the loaders carry session cookies when the server's session layer is what is benchmarked.
+ *
+ * @param users how many distinct users, each with its own cookie, every loader picks from at random;
+ * the server ends up with as many sessions per loader once each user was picked.
+ */
+public record SessionSettings(int users) implements Serializable
+{
+    public SessionSettings
+    {
+        if (users < 1)
+            throw new IllegalArgumentException("there must be at least one user");
+    }
+
+    @Override
+    public String toString()
+    {
+        return users + "users";
+    }
+}
@@ -0,0 +1,24 @@
+package org.eclipse.jetty.perf.client;
+
+import java.io.Serializable;
+
+/**
+ * The request bodies the loaders upload when request content handling is what is benchmarked.
+ *
+ * @param bodySize the size of each request body, in bytes.
+ * @param chunked whether the bodies are sent without a content length, i.e.: chunked with HTTP/1.1.
+ */
+public record UploadSettings(int bodySize, boolean chunked) implements Serializable
+{
+    public UploadSettings
+    {
+        if (bodySize < 1)
+            throw new IllegalArgumentException("body size must be at least 1 byte");
+    }
+
+    @Override
+    public String toString()
+    {
+        return bodySize + "b-" + (chunked ? "chunked" : "fixed");
+    }
+}
@@ -0,0 +1,90 @@
+package org.eclipse.jetty.perf.files;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import org.eclipse.jetty.perf.util.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records how the OS page cache behaved while recording: how much memory it used before and after,
+ * and how many minor and major page faults the JVM incurred, major ones meaning the disk was read.
+ * Only works on Linux, as it reads {@code /proc}; elsewhere it writes nothing.
+ */
+public class PageCacheRecorder implements Recorder
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PageCacheRecorder.class);
+    public static final String DEFAULT_STATS_FILENAME = "page-cache.properties";
+
+    private long recordingCachedKb;
+    private long[] recordingFaults;
+
+    @Override
+    public void startRecording()
+    {
+        recordingCachedKb = cachedKb();
+        recordingFaults = faults();
+    }
+
+    @Override
+    public void stopRecording()
+    {
+        long cachedKb = cachedKb();
+        long[] faults = faults();
+        if (cachedKb < 0L || faults == null || recordingFaults == null)
+            return;
+
+        Properties properties = new Properties();
+        properties.setProperty("cached-kb-before", Long.toString(recordingCachedKb));
+        properties.setProperty("cached-kb-after", Long.toString(cachedKb));
+        properties.setProperty("minor-faults", Long.toString(faults[0] - recordingFaults[0]));
+        properties.setProperty("major-faults", Long.toString(faults[1] - recordingFaults[1]));
+        try (OutputStream os = Files.newOutputStream(Path.of(DEFAULT_STATS_FILENAME)))
+        {
+            properties.store(os, "Page cache while recording");
+        }
+        catch (IOException e)
+        {
+            LOG.error("Error writing page cache stats", e);
+        }
+    }
+
+    private static long cachedKb()
+    {
+        try
+        {
+            List<String> lines = Files.readAllLines(Path.of("/proc/meminfo"));
+            for (String line : lines)
+            {
+                if (line.startsWith("Cached:"))
+                    return Long.parseLong(line.substring("Cached:".length()).replace("kB", "").trim());
+            }
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            LOG.debug("Cannot read the page cache size", e);
+        }
+        return -1L;
+    }
+
+    private static long[] faults()
+    {
+        try
+        {
+            // the fields after the parenthesized command name start with the state, the 3rd field
+            String stat = Files.readString(Path.of("/proc/self/stat"));
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            return new long[]{Long.parseLong(fields[10 - 3]), Long.parseLong(fields[12 - 3])};
+        }
+        catch (IOException | RuntimeException e)
+        {
+            LOG.debug("Cannot read the page faults", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.eclipse.jetty.perf.files;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates the files described by {@link StaticFilesSettings} on local disk, plus an {@code index.html}
+ * welcome file for the probe, and reuses them if a previous run already generated them.
+ * Generating can take minutes, so it is done by its own job before the server starts, which then only
+ * looks the tree up with {@link #root(StaticFilesSettings)}.
+ */
+public class StaticFileTree
+{
+    private static final Logger LOG = LoggerFactory.getLogger(StaticFileTree.class);
+    private static final String COMPLETE_MARKER = ".complete";
+    // larger than the 32 KB gzip window, so that gzip cannot compress the repetitions of the block
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    public static Path generate(StaticFilesSettings settings) throws IOException
+    {
+        Path root = rootOf(settings);
+        if (Files.exists(root.resolve(COMPLETE_MARKER)))
+        {
+            LOG.info("reusing static files in {}", root);
+            return root;
+        }
+
+        Files.createDirectories(root);
+        Files.writeString(root.resolve("index.html"), "Hi there!", StandardCharsets.US_ASCII);
+        // random letters, so that gzip has text-like content to compress
+        byte[] block = new byte[BLOCK_SIZE];
+        SplittableRandom random = new SplittableRandom(0L);
+        for (int j = 0; j < block.length; j++)
+        {
+            block[j] = (byte)('a' + random.nextInt(26));
+        }
+        long totalSize = 0L;
+        for (int i = 0; i < settings.files(); i++)
+        {
+            // the block repeated from an offset of its own, for the files to differ
+            byte[] content = new byte[settings.size(i)];
+            int offset = new SplittableRandom(i).nextInt(block.length);
+            for (int j = 0; j < content.length; )
+            {
+                int length = Math.min(content.length - j, block.length - offset);
+                System.arraycopy(block, offset, content, j, length);
+                j += length;
+                offset = 0;
+            }
+            Path file = root.resolve(settings.path(i).substring(1));
+            Files.write(file, content);
+            if (settings.precompressed())
+            {
+                try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(file.resolveSibling(file.getFileName() + ".gz"))))
+                {
+                    os.write(content);
+                }
+            }
+            totalSize += content.length;
+        }
+        Files.createFile(root.resolve(COMPLETE_MARKER));
+        LOG.info("generated {} static files totalling {} bytes in {}", settings.files(), totalSize, root);
+        return root;
+    }
+
+    /**
+     * @return the root of the files, which {@link #generate(StaticFilesSettings)} must have generated.
+     */
+    public static Path root(StaticFilesSettings settings)
+    {
+        Path root = rootOf(settings);
+        if (!Files.exists(root.resolve(COMPLETE_MARKER)))
+            throw new IllegalStateException("static files not generated in " + root);
+        return root;
+    }
+
+    private static Path rootOf(StaticFilesSettings settings)
+    {
+        return Path.of(System.getProperty("java.io.tmpdir"), "jetty-perf-static-files", settings.toString());
+    }
+}
@@ -0,0 +1,49 @@
+package org.eclipse.jetty.perf.files;
+
+import java.io.Serializable;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The tree of static files the server serves and the loaders request when static content serving is what is benchmarked.
+ * File sizes are log-uniformly distributed between the min and max sizes, like web assets tend to be:
+ * as many files between 1 KB and 10 KB as between 10 KB and 100 KB.
+ * Sizes and names are derived from the file index only, so that the loaders know them without asking the server.
+ *
+ * @param files how many files the tree contains.
+ * @param minSize the size of the smallest file, in bytes.
+ * @param maxSize the size of the largest file, in bytes.
+ * @param precompressed whether each file has a gzipped {@code .gz} sibling.
+ */
+public record StaticFilesSettings(int files, int minSize, int maxSize, boolean precompressed) implements Serializable
+{
+    public StaticFilesSettings
+    {
+        if (files < 1)
+            throw new IllegalArgumentException("there must be at least one file");
+        if (minSize < 1 || maxSize < minSize)
+            throw new IllegalArgumentException("sizes must be 1 <= min size <= max size");
+    }
+
+    public String path(int index)
+    {
+        return "/f" + index + ".txt";
+    }
+
+    public int size(int index)
+    {
+        double exponent = new SplittableRandom(index).nextDouble();
+        return (int)Math.round(minSize * Math.pow((double)maxSize / minSize, exponent));
+    }
+
+    public String randomPath()
+    {
+        return path(ThreadLocalRandom.current().nextInt(files));
+    }
+
+    @Override
+    public String toString()
+    {
+        return files + "x" + minSize + "-" + maxSize + "b" + (precompressed ? "-gz" : "");
+    }
+}
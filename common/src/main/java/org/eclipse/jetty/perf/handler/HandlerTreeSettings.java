@@ -0,0 +1,64 @@
+package org.eclipse.jetty.perf.handler;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The shape of the handler tree the server is built with and the loaders spread their requests over when the
+ * cost of routing through a large application is what is benchmarked.
+ * The contexts model tenants: besides the root context, each tenant has its own context and every other one
+ * also has a nested admin context, so that the contexts share path prefixes. The traffic is Zipf-distributed
+ * over the contexts, a few tenants getting most of it, and uniformly distributed over the servlet mappings.
+ *
+ * @param contexts how many contexts the tree contains, including the root one.
+ * @param wrappers how many pass-through {@code Handler.Wrapper}s each context nests before its handler.
+ * @param filters how many pass-through filters each servlet context applies to all requests; ignored by core trees.
+ * @param mappings how many prefix mappings each servlet context maps its servlet to, besides the default one;
+ * core trees ignore them but are requested with the same paths.
+ */
+public record HandlerTreeSettings(int contexts, int wrappers, int filters, int mappings) implements Serializable
+{
+    public HandlerTreeSettings
+    {
+        if (contexts < 1)
+            throw new IllegalArgumentException("there must be at least the root context");
+        if (wrappers < 0 || filters < 0 || mappings < 0)
+            throw new IllegalArgumentException("wrappers, filters and mappings cannot be negative");
+    }
+
+    public String contextPath(int index)
+    {
+        if (index == 0)
+            return "/";
+        String tenantPath = "/tenant-" + (index - 1) / 2;
+        return (index - 1) % 2 == 0 ? tenantPath : tenantPath + "/admin";
+    }
+
+    /**
+     * @return the prefix servlet mapping of the given index, e.g.: {@code /api/m3/*}.
+     */
+    public String mappingPath(int index)
+    {
+        return "/api/m" + index + "/*";
+    }
+
+    public String randomPath()
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // inverse of the continuous approximation of the Zipf (s=1) CDF: P(index < k) = ln(k + 1) / ln(contexts + 1)
+        int contextIndex = Math.min(contexts - 1, (int)Math.exp(random.nextDouble() * Math.log(contexts + 1)) - 1);
+        String contextPath = contextPath(contextIndex);
+        String prefix = contextPath.equals("/") ? "" : contextPath;
+        // one extra slot for the requests that fall back to the default mapping
+        int mappingIndex = random.nextInt(mappings + 1);
+        if (mappingIndex == mappings)
+            return prefix + "/index.html";
+        return prefix + "/api/m" + mappingIndex + "/items/" + random.nextInt(1000);
+    }
+
+    @Override
+    public String toString()
+    {
+        return contexts + "ctx-" + wrappers + "wrap-" + filters + "filt-" + mappings + "map";
+    }
+}
@@ -0,0 +1,77 @@
+package org.eclipse.jetty.perf.handler;
+
+import java.net.URI;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpClientTransport;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.perf.util.LatencyRecorder;
+import org.eclipse.jetty.proxy.ProxyHandler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+
+/**
+ * A reverse proxy to a single backend that splits the latency of each proxied request in two:
+ * the time spent waiting for the backend, and the time added by the proxy itself.
+ * The total latency is recorded by wrapping this handler with a {@link ModernLatencyRecordingHandler}.
+ */
+public class LatencyRecordingProxyHandler extends ProxyHandler.Reverse
+{
+    private static final String TIMES_ATTRIBUTE = LatencyRecordingProxyHandler.class.getName() + ".times";
+
+    private final HttpClientTransport transport;
+    private final int maxConnectionsPerDestination;
+    private final LatencyRecorder upstreamRecorder;
+    private final LatencyRecorder addedRecorder;
+
+    public LatencyRecordingProxyHandler(URI backendUri, HttpClientTransport transport, int maxConnectionsPerDestination, LatencyRecorder upstreamRecorder, LatencyRecorder addedRecorder)
+    {
+        super(request -> HttpURI.build(request.getHttpURI())
+            .scheme(backendUri.getScheme())
+            .host(backendUri.getHost())
+            .port(backendUri.getPort()));
+        this.transport = transport;
+        this.maxConnectionsPerDestination = maxConnectionsPerDestination;
+        this.upstreamRecorder = upstreamRecorder;
+        this.addedRecorder = addedRecorder;
+    }
+
+    @Override
+    protected HttpClient newHttpClient()
+    {
+        return new HttpClient(transport);
+    }
+
+    @Override
+    protected void configureHttpClient(HttpClient httpClient)
+    {
+        super.configureHttpClient(httpClient);
+        httpClient.setMaxConnectionsPerDestination(maxConnectionsPerDestination);
+    }
+
+    @Override
+    protected void sendProxyToServerRequest(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest, Response proxyToClientResponse, Callback proxyToClientCallback)
+    {
+        // [0] is when the request is sent to the backend, [1] is when its response has been fully received
+        long[] times = new long[]{System.nanoTime(), 0L};
+        clientToProxyRequest.setAttribute(TIMES_ATTRIBUTE, times);
+        proxyToServerRequest.onResponseSuccess(serverToProxyResponse -> times[1] = System.nanoTime());
+        super.sendProxyToServerRequest(clientToProxyRequest, proxyToServerRequest, proxyToClientResponse, proxyToClientCallback);
+    }
+
+    @Override
+    protected void onProxyToClientResponseComplete(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest, org.eclipse.jetty.client.Response serverToProxyResponse, Response proxyToClientResponse, Callback proxyToClientCallback)
+    {
+        long now = System.nanoTime();
+        long[] times = (long[])clientToProxyRequest.getAttribute(TIMES_ATTRIBUTE);
+        if (times != null)
+        {
+            long upstream = (times[1] == 0L ? now : times[1]) - times[0];
+            long total = now - clientToProxyRequest.getBeginNanoTime();
+            upstreamRecorder.recordValue(upstream);
+            addedRecorder.recordValue(Math.max(0L, total - upstream));
+        }
+        super.onProxyToClientResponseComplete(clientToProxyRequest, proxyToServerRequest, serverToProxyResponse, proxyToClientResponse, proxyToClientCallback);
+    }
+}
@@ -1,5 +1,7 @@
 package org.eclipse.jetty.perf.handler;
 
+import java.util.concurrent.atomic.LongAdder;
+
 import org.eclipse.jetty.perf.util.LatencyRecorder;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.HttpStream;
@@ -13,6 +15,7 @@ import org.eclipse.jetty.util.Callback;
 public class ModernLatencyRecordingHandler extends Handler.Wrapper
 {
     private final LatencyRecorder recorder;
+    private final LongAdder completedRequests = new LongAdder();
 
     public ModernLatencyRecordingHandler(Handler handler, LatencyRecorder recorder)
     {
@@ -30,6 +33,7 @@ public class ModernLatencyRecordingHandler extends Handler.Wrapper
             {
                 super.succeeded();
                 recorder.recordValue(System.nanoTime() - request.getBeginNanoTime());
+                completedRequests.increment();
             }
 
             @Override
@@ -37,8 +41,17 @@ public class ModernLatencyRecordingHandler extends Handler.Wrapper
             {
                 super.failed(x);
                 recorder.recordValue(System.nanoTime() - request.getBeginNanoTime());
+                completedRequests.increment();
             }
         });
         return super.handle(request, response, callback);
     }
+
+    /**
+     * @return how many requests completed, successfully or not, since the handler was created.
+     */
+    public long getCompletedRequests()
+    {
+        return completedRequests.sum();
+    }
 }
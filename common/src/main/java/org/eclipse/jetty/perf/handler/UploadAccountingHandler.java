@@ -0,0 +1,96 @@
+package org.eclipse.jetty.perf.handler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.perf.util.Recorder;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts the request content bytes the wrapped handler reads, however it reads them: core handlers and
+ * servlets all read through {@link Request#read()}. When recording stops, the upload throughput and the
+ * CPU the whole server JVM used per MB uploaded are written to {@link #DEFAULT_STATS_FILENAME}.
+ */
+public class UploadAccountingHandler extends Handler.Wrapper implements Recorder
+{
+    private static final Logger LOG = LoggerFactory.getLogger(UploadAccountingHandler.class);
+    public static final String DEFAULT_STATS_FILENAME = "upload.properties";
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final LongAdder bytesRead = new LongAdder();
+    private long recordingBytesRead;
+    private long recordingCpuTime;
+    private long recordingStartNanos;
+
+    public UploadAccountingHandler(Handler handler)
+    {
+        super(handler);
+    }
+
+    @Override
+    public boolean handle(Request request, Response response, Callback callback) throws Exception
+    {
+        return super.handle(new Request.Wrapper(request)
+        {
+            @Override
+            public Content.Chunk read()
+            {
+                Content.Chunk chunk = super.read();
+                if (chunk != null)
+                    bytesRead.add(chunk.remaining());
+                return chunk;
+            }
+        }, response, callback);
+    }
+
+    @Override
+    public void startRecording()
+    {
+        recordingBytesRead = bytesRead.sum();
+        recordingCpuTime = processCpuTime();
+        recordingStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void stopRecording()
+    {
+        long bytes = bytesRead.sum() - recordingBytesRead;
+        long cpuTime = processCpuTime() - recordingCpuTime;
+        long elapsed = System.nanoTime() - recordingStartNanos;
+        double megabytes = bytes / BYTES_PER_MB;
+
+        Properties properties = new Properties();
+        properties.setProperty("bytes", Long.toString(bytes));
+        properties.setProperty("bytes-per-second", Long.toString(elapsed == 0L ? 0L : (long)(bytes * (double)TimeUnit.SECONDS.toNanos(1) / elapsed)));
+        properties.setProperty("cpu-ns", Long.toString(cpuTime));
+        properties.setProperty("cpu-ms-per-mb", String.format(Locale.ROOT, "%.3f", megabytes == 0.0 ? 0.0 : TimeUnit.NANOSECONDS.toMicros(cpuTime) / 1000.0 / megabytes));
+        try (OutputStream os = Files.newOutputStream(Path.of(DEFAULT_STATS_FILENAME)))
+        {
+            properties.store(os, "Request content read while recording, CPU of the whole server JVM");
+        }
+        catch (IOException e)
+        {
+            LOG.error("Error writing upload stats", e);
+        }
+    }
+
+    private static long processCpuTime()
+    {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean operatingSystemMXBean)
+            return operatingSystemMXBean.getProcessCpuTime();
+        return 0L;
+    }
+}
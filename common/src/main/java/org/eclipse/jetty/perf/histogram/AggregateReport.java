@@ -0,0 +1,70 @@
+package org.eclipse.jetty.perf.histogram;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+
+/**
+ * Latency of the nodes of an array side by side, and of the array as a whole,
+ * e.g.: to see how the load is spread across several servers.
+ */
+public class AggregateReport
+{
+    /**
+     * @param hlogFiles the hlog file of each node, by node id.
+     * @param hgrmOut where to write the percentile distribution of all the nodes merged together.
+     * @param summaryOut where to write the per-node and aggregate throughput and latency table.
+     */
+    public static void createAggregate(Map<String, File> hlogFiles, OutputStream hgrmOut, OutputStream summaryOut) throws FileNotFoundException
+    {
+        PrintStream summary = new PrintStream(summaryOut);
+        summary.printf("%-24s %12s %12s %10s %10s %10s %10s%n", "node", "count", "req/s", "p50(us)", "p99(us)", "p999(us)", "max(us)");
+
+        Histogram aggregate = new Histogram(3);
+        long aggregateDurationMs = 0L;
+        for (Map.Entry<String, File> entry : hlogFiles.entrySet())
+        {
+            Histogram total = new Histogram(3);
+            long start = Long.MAX_VALUE;
+            long end = Long.MIN_VALUE;
+            try (HistogramLogReader reader = new HistogramLogReader(entry.getValue()))
+            {
+                while (reader.hasNext())
+                {
+                    Histogram histogram = (Histogram)reader.nextIntervalHistogram();
+                    if (histogram == null)
+                        break;
+                    total.add(histogram);
+                    start = Math.min(start, histogram.getStartTimeStamp());
+                    end = Math.max(end, histogram.getEndTimeStamp());
+                }
+            }
+            long durationMs = end > start ? end - start : 0L;
+            // the nodes run concurrently, so the aggregate throughput is over the longest of them
+            aggregateDurationMs = Math.max(aggregateDurationMs, durationMs);
+            aggregate.add(total);
+            printLine(summary, entry.getKey(), total, durationMs);
+        }
+        printLine(summary, "aggregate", aggregate, aggregateDurationMs);
+        summary.flush();
+
+        PrintStream hgrm = new PrintStream(hgrmOut);
+        aggregate.outputPercentileDistribution(hgrm, 1000.0); // scale by 1000 to report in microseconds
+        hgrm.flush();
+    }
+
+    private static void printLine(PrintStream ps, String name, Histogram histogram, long durationMs)
+    {
+        double throughput = durationMs == 0L ? 0.0 : histogram.getTotalCount() * 1000.0 / durationMs;
+        ps.printf("%-24s %12d %12.0f %10d %10d %10d %10d%n", name, histogram.getTotalCount(), throughput,
+            histogram.getValueAtPercentile(50.0) / 1000,
+            histogram.getValueAtPercentile(99.0) / 1000,
+            histogram.getValueAtPercentile(99.9) / 1000,
+            histogram.getMaxValue() / 1000);
+    }
+}
@@ -0,0 +1,415 @@
+package org.eclipse.jetty.perf.histogram;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.eclipse.jetty.perf.monitoring.gc.GcEvent;
+import org.eclipse.jetty.perf.monitoring.gc.GcLogParser;
+import org.eclipse.jetty.perf.monitoring.jhiccup.JHiccupMonitor;
+import org.eclipse.jetty.perf.monitoring.os.LinuxCpuMonitor;
+import org.eclipse.jetty.perf.monitoring.os.LinuxNetworkMonitor;
+import org.eclipse.jetty.perf.monitoring.os.LinuxProcMonitor;
+import org.eclipse.jetty.perf.util.TimeSeries;
+
+/**
+ * Finds the intervals of the server and probe perf.hlog files with the worst P99, among those over twice the mean, and lists, for each of them,
+ * what happened on any node at the same time that could explain it, ranked by how likely it is the cause:
+ * platform hiccups, GC pauses and allocation stalls, CPU steal, network errors and drops, and the error statuses
+ * the loaders and probe received. Each cause is scored from 0 to 1 by comparing its magnitude with the interval's
+ * P99, e.g.: a GC pause as long as the P99 fully explains it, and the intervals a cause scores at least
+ * {@link #EXPLAINING_SCORE} for are counted in a summary of the whole run.
+ * The CPU steal and network evidence come from the /proc samples when they were monitored, otherwise from the
+ * mpstat and sar logs whose time of day is taken to be in the local time zone.
+ */
+public class AnomalyReport
+{
+    public static final String DEFAULT_FILENAME = "anomalies.txt";
+    public static final int DEFAULT_WORST_INTERVALS = 5;
+    public static final double EXPLAINING_SCORE = 0.5;
+    private static final List<String> LATENCY_NODE_ARRAY_IDS = List.of("server", "probe");
+    private static final String STATUSES_FILENAME = "http-client-statuses.log";
+    // what makes a cause score 1.0 when there is no latency to compare it with
+    private static final double FULL_STEAL_PCT = 10.0;
+    private static final double FULL_NETWORK_ERRORS = 100.0;
+    private static final double FULL_STATUS_ERRORS = 10.0;
+    private static final DateTimeFormatter[] TIME_OF_DAY_FORMATS = {
+        DateTimeFormatter.ofPattern("HH:mm:ss", Locale.ROOT),
+        DateTimeFormatter.ofPattern("hh:mm:ss a", Locale.ROOT)
+    };
+
+    public static void createReport(Path reportRootPath, Collection<String> nodeArrayIds, int worstIntervals, OutputStream out) throws IOException
+    {
+        List<NodeEvidence> evidences = new ArrayList<>();
+        for (String nodeArrayId : nodeArrayIds)
+        {
+            Path nodeArrayFolder = reportRootPath.resolve(nodeArrayId);
+            if (!Files.isDirectory(nodeArrayFolder))
+                continue;
+            try (Stream<Path> stream = Files.list(nodeArrayFolder))
+            {
+                for (Path nodeFolder : stream.filter(Files::isDirectory).sorted().toList())
+                {
+                    evidences.add(NodeEvidence.load(nodeArrayId + "/" + nodeFolder.getFileName(), nodeFolder));
+                }
+            }
+        }
+
+        PrintStream ps = new PrintStream(out, false, StandardCharsets.UTF_8);
+        ps.println("# Worst P99 intervals of the server and probe, and what happened at the same time on all nodes");
+        Map<String, int[]> explainedIntervals = new TreeMap<>();
+        int analyzedIntervals = 0;
+        for (NodeEvidence evidence : evidences)
+        {
+            if (!LATENCY_NODE_ARRAY_IDS.contains(evidence.label().substring(0, evidence.label().indexOf('/'))) || evidence.latencyIntervals().isEmpty())
+                continue;
+            List<Sample> intervals = evidence.latencyIntervals();
+            double mean = intervals.stream().mapToDouble(Sample::value).average().orElse(0.0);
+            // outliers like in the P99 assertion
+            List<Sample> worst = intervals.stream()
+                .filter(interval -> interval.value() > mean * 2)
+                .sorted(Comparator.comparingDouble(Sample::value).reversed())
+                .limit(worstIntervals)
+                .toList();
+
+            ps.println();
+            ps.printf(Locale.ROOT, "## %s, mean P99=%dus%n", evidence.label(), (long)mean / 1000);
+            if (worst.isEmpty())
+                ps.println("no interval with a P99 over twice the mean");
+            for (Sample interval : worst)
+            {
+                analyzedIntervals++;
+                ps.printf(Locale.ROOT, "[%d] %s P99=%dus (%.1fx the mean)%n", intervals.indexOf(interval), Instant.ofEpochMilli(interval.start()),
+                    (long)interval.value() / 1000, mean == 0.0 ? 0.0 : interval.value() / mean);
+                List<Cause> causes = new ArrayList<>();
+                for (NodeEvidence other : evidences)
+                {
+                    other.collectCauses(interval, causes);
+                }
+                causes.sort(Comparator.comparingDouble(Cause::score).reversed());
+                if (causes.isEmpty())
+                    ps.println("    no concurrent evidence, look at the profiles of that time");
+                for (Cause cause : causes)
+                {
+                    ps.printf(Locale.ROOT, "    %.2f %-16s %-24s %s%n", cause.score(), cause.kind(), cause.node(), cause.detail());
+                }
+                // count each kind of cause once per interval
+                causes.stream()
+                    .filter(cause -> cause.score() >= EXPLAINING_SCORE)
+                    .map(Cause::kind)
+                    .distinct()
+                    .forEach(kind -> explainedIntervals.computeIfAbsent(kind, k -> new int[1])[0]++);
+            }
+        }
+
+        ps.println();
+        ps.println("# Likely causes, by count of worst intervals they explain");
+        int total = analyzedIntervals;
+        explainedIntervals.entrySet().stream()
+            .sorted(Comparator.comparingInt((Map.Entry<String, int[]> entry) -> entry.getValue()[0]).reversed())
+            .forEach(entry -> ps.printf(Locale.ROOT, "  %-16s %d/%d%n", entry.getKey(), entry.getValue()[0], total));
+        if (explainedIntervals.isEmpty())
+            ps.printf(Locale.ROOT, "  none of the %d worst intervals is explained by the monitored evidence%n", total);
+        ps.flush();
+    }
+
+    /**
+     * A value over the [start, end[ interval, in ms since the epoch.
+     */
+    private record Sample(long start, long end, double value)
+    {
+        private boolean overlaps(Sample other)
+        {
+            return start < other.end() && end > other.start();
+        }
+    }
+
+    private record Cause(String kind, String node, double score, String detail)
+    {
+    }
+
+    private record NodeEvidence(String label, List<Sample> latencyIntervals, List<Sample> hiccups, List<GcEvent> gcEvents, List<Sample> steal, List<Sample> networkErrors, List<Sample> statusErrors)
+    {
+        private static NodeEvidence load(String label, Path nodeFolder) throws IOException
+        {
+            List<Sample> latencyIntervals = readP99Intervals(nodeFolder.resolve("perf.hlog"), 99.0);
+            List<Sample> hiccups = readP99Intervals(nodeFolder.resolve(JHiccupMonitor.DEFAULT_FILENAME), 100.0);
+            Path gcLogFile = nodeFolder.resolve(GcLogParser.DEFAULT_FILENAME);
+            List<GcEvent> gcEvents = Files.isReadable(gcLogFile) ? GcLogParser.parse(gcLogFile) : List.of();
+            List<Sample> steal;
+            List<Sample> networkErrors;
+            Path procFile = nodeFolder.resolve(LinuxProcMonitor.DEFAULT_FILENAME);
+            if (Files.isReadable(procFile))
+            {
+                TimeSeries proc = TimeSeries.read(procFile);
+                steal = procSamples(proc, column -> column.equals("cpu.steal-pct"), false);
+                networkErrors = procSamples(proc, column -> column.startsWith("net.") && column.endsWith("-drops-per-sec"), true);
+            }
+            else
+            {
+                long reference = latencyIntervals.isEmpty() ? (hiccups.isEmpty() ? System.currentTimeMillis() : hiccups.get(0).start()) : latencyIntervals.get(0).start();
+                steal = commandSamples(nodeFolder.resolve(LinuxCpuMonitor.DEFAULT_FILENAME), reference, List.of("%steal"), row -> row.equals("all"), false);
+                networkErrors = commandSamples(nodeFolder.resolve(LinuxNetworkMonitor.DEFAULT_FILENAME), reference, List.of("rxerr/s", "txerr/s", "rxdrop/s", "txdrop/s"), row -> !row.equals("lo"), true);
+            }
+            // the statuses are written every second from when recording started, like the latency intervals
+            List<Sample> statusErrors = latencyIntervals.isEmpty() ? List.of() : readStatusErrors(nodeFolder.resolve(STATUSES_FILENAME), latencyIntervals.get(0).start());
+            return new NodeEvidence(label, latencyIntervals, hiccups, gcEvents, steal, networkErrors, statusErrors);
+        }
+
+        private void collectCauses(Sample interval, List<Cause> causes)
+        {
+            double p99Ms = interval.value() / 1_000_000.0;
+
+            double hiccupMs = hiccups.stream().filter(interval::overlaps).mapToDouble(Sample::value).max().orElse(0.0) / 1_000_000.0;
+            if (hiccupMs > 0.0)
+                causes.add(new Cause("hiccup", label, Math.min(1.0, hiccupMs / p99Ms), String.format(Locale.ROOT, "max hiccup %.3f ms", hiccupMs)));
+
+            List<GcEvent> coinciding = gcEvents.stream().filter(event -> event.overlaps(interval.start(), interval.end())).toList();
+            if (!coinciding.isEmpty())
+            {
+                double maxMs = coinciding.stream().mapToDouble(GcEvent::durationMs).max().orElse(0.0);
+                double totalMs = coinciding.stream().mapToDouble(GcEvent::durationMs).sum();
+                boolean stalls = coinciding.stream().anyMatch(event -> event.type() == GcEvent.Type.ALLOCATION_STALL);
+                causes.add(new Cause(stalls ? "gc-alloc-stall" : "gc-pause", label, Math.min(1.0, maxMs / p99Ms),
+                    String.format(Locale.ROOT, "%d event(s), total %.3f ms, max %.3f ms, e.g.: %s", coinciding.size(), totalMs, maxMs, coinciding.get(0).name())));
+            }
+
+            double stealPct = steal.stream().filter(interval::overlaps).mapToDouble(Sample::value).max().orElse(0.0);
+            if (stealPct > 0.0)
+                causes.add(new Cause("cpu-steal", label, Math.min(1.0, stealPct / FULL_STEAL_PCT), String.format(Locale.ROOT, "max steal %.2f%%", stealPct)));
+
+            double network = networkErrors.stream().filter(interval::overlaps).mapToDouble(Sample::value).sum();
+            if (network > 0.0)
+                causes.add(new Cause("network-errors", label, Math.min(1.0, network / FULL_NETWORK_ERRORS), String.format(Locale.ROOT, "%.0f interface error(s) or drop(s)", network)));
+
+            double statuses = statusErrors.stream().filter(interval::overlaps).mapToDouble(Sample::value).sum();
+            if (statuses > 0.0)
+                causes.add(new Cause("status-errors", label, Math.min(1.0, statuses / FULL_STATUS_ERRORS), String.format(Locale.ROOT, "%.0f non-200 response(s) or failure(s)", statuses)));
+        }
+    }
+
+    private static List<Sample> readP99Intervals(Path hlogFile, double percentile) throws IOException
+    {
+        if (!Files.isReadable(hlogFile))
+            return List.of();
+        List<Sample> result = new ArrayList<>();
+        try (HistogramLogReader reader = new HistogramLogReader(hlogFile.toFile()))
+        {
+            while (reader.hasNext())
+            {
+                AbstractHistogram histogram = (AbstractHistogram)reader.nextIntervalHistogram();
+                if (histogram == null)
+                    break;
+                result.add(new Sample(histogram.getStartTimeStamp(), histogram.getEndTimeStamp(), histogram.getValueAtPercentile(percentile)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param counts true to sum the per second rates of the matching columns and turn them into counts over each
+     * sample, false to keep the max of the matching columns.
+     */
+    private static List<Sample> procSamples(TimeSeries timeSeries, Predicate<String> columnFilter, boolean counts)
+    {
+        int[] indices = timeSeries.getColumns().stream().filter(columnFilter).mapToInt(timeSeries::columnIndex).toArray();
+        List<Sample> result = new ArrayList<>();
+        long previous = -1L;
+        for (TimeSeries.Row row : timeSeries.getRows())
+        {
+            if (previous >= 0L && indices.length > 0)
+            {
+                double value = 0.0;
+                for (int index : indices)
+                {
+                    value = counts ? value + row.values()[index] : Math.max(value, row.values()[index]);
+                }
+                if (counts)
+                    value *= (row.timestamp() - previous) / 1000.0;
+                result.add(new Sample(previous, row.timestamp(), value));
+            }
+            previous = row.timestamp();
+        }
+        return result;
+    }
+
+    /**
+     * Reads the output of commands like mpstat and sar: a header line with the column names, then one line per
+     * row and sample that starts with the time of day, with or without an AM/PM field, and whose first field
+     * after it is the row name.
+     */
+    private static List<Sample> commandSamples(Path logFile, long referenceEpochMs, List<String> columns, Predicate<String> rowFilter, boolean counts) throws IOException
+    {
+        if (!Files.isReadable(logFile))
+            return List.of();
+        // the sum or max of the matching columns and rows, by time of the sample
+        Map<Long, Double> values = new LinkedHashMap<>();
+        int[] indices = null;
+        int headerLength = -1;
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length < 2)
+                    continue;
+                // header lines end with a column name, and sar interleaves the headers of different reports
+                if (!isNumber(fields[fields.length - 1]))
+                {
+                    List<String> header = Arrays.asList(fields);
+                    headerLength = fields.length;
+                    indices = header.contains(columns.get(0)) ? columns.stream().mapToInt(header::indexOf).toArray() : null;
+                    continue;
+                }
+                // e.g.: the averages at the end
+                if (indices == null || fields.length != headerLength)
+                    continue;
+                Long timestamp = parseTimeOfDay(fields, referenceEpochMs);
+                if (timestamp == null || !rowFilter.test(fields[rowIndex(fields)]))
+                    continue;
+                double value = 0.0;
+                try
+                {
+                    for (int index : indices)
+                    {
+                        if (index < 0)
+                            continue;
+                        double field = Double.parseDouble(fields[index]);
+                        value = counts ? value + field : Math.max(value, field);
+                    }
+                }
+                catch (NumberFormatException x)
+                {
+                    continue;
+                }
+                values.merge(timestamp, value, (a, b) -> counts ? a + b : Math.max(a, b));
+            }
+        }
+
+        List<Sample> result = new ArrayList<>();
+        long previous = -1L;
+        for (Map.Entry<Long, Double> entry : values.entrySet())
+        {
+            if (previous >= 0L)
+            {
+                double value = entry.getValue();
+                if (counts)
+                    value *= (entry.getKey() - previous) / 1000.0;
+                result.add(new Sample(previous, entry.getKey(), value));
+            }
+            previous = entry.getKey();
+        }
+        return result;
+    }
+
+    private static boolean isNumber(String field)
+    {
+        try
+        {
+            Double.parseDouble(field);
+            return true;
+        }
+        catch (NumberFormatException x)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * @return the index of the row name, right after the time of day.
+     */
+    private static int rowIndex(String[] fields)
+    {
+        return fields[1].equals("AM") || fields[1].equals("PM") ? 2 : 1;
+    }
+
+    /**
+     * @return the epoch ms of the time of day the fields start with, on the day closest to the reference, or null.
+     */
+    private static Long parseTimeOfDay(String[] fields, long referenceEpochMs)
+    {
+        String text = rowIndex(fields) == 2 ? fields[0] + " " + fields[1] : fields[0];
+        for (DateTimeFormatter format : TIME_OF_DAY_FORMATS)
+        {
+            try
+            {
+                LocalTime time = LocalTime.parse(text, format);
+                ZoneId zone = ZoneId.systemDefault();
+                LocalDate referenceDate = Instant.ofEpochMilli(referenceEpochMs).atZone(zone).toLocalDate();
+                long best = time.atDate(referenceDate).atZone(zone).toInstant().toEpochMilli();
+                for (int days : new int[]{-1, 1})
+                {
+                    long candidate = time.atDate(referenceDate.plusDays(days)).atZone(zone).toInstant().toEpochMilli();
+                    if (Math.abs(candidate - referenceEpochMs) < Math.abs(best - referenceEpochMs))
+                        best = candidate;
+                }
+                return best;
+            }
+            catch (DateTimeParseException x)
+            {
+                // try the next format
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the non-200 responses and failures of each one second block of the statuses log.
+     */
+    private static List<Sample> readStatusErrors(Path statusesLog, long recordingStartEpochMs) throws IOException
+    {
+        if (!Files.isReadable(statusesLog))
+            return List.of();
+        List<Sample> result = new ArrayList<>();
+        long block = -1L;
+        long errors = 0L;
+        try (BufferedReader reader = Files.newBufferedReader(statusesLog, StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (line.startsWith("[") && line.endsWith("]"))
+                {
+                    if (block >= 0L && errors > 0L)
+                        result.add(new Sample(recordingStartEpochMs + block * 1000L, recordingStartEpochMs + (block + 1) * 1000L, errors));
+                    block = Long.parseLong(line.substring(1, line.length() - 1));
+                    errors = 0L;
+                    continue;
+                }
+                // failures are written with their stack trace, whose lines are skipped as they have no count
+                int idx = line.indexOf('=');
+                if (idx <= 0 || !line.substring(0, idx).chars().allMatch(Character::isDigit))
+                    continue;
+                if (!"200".equals(line.substring(idx + 1)))
+                    errors += Long.parseLong(line.substring(0, idx));
+            }
+        }
+        if (block >= 0L && errors > 0L)
+            result.add(new Sample(recordingStartEpochMs + block * 1000L, recordingStartEpochMs + (block + 1) * 1000L, errors));
+        return result;
+    }
+}
@@ -0,0 +1,127 @@
+package org.eclipse.jetty.perf.histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.eclipse.jetty.perf.monitoring.gc.GcEvent;
+import org.eclipse.jetty.perf.util.TimeSeriesWriter;
+
+public class GcReport
+{
+    /**
+     * The script the perf and jhiccup HTML reports share to highlight the intervals with GC events and chart them.
+     */
+    public static final String OVERLAY_SCRIPT_RESOURCE = "GcOverlay.js";
+
+    /**
+     * Writes the GC pauses, allocation stalls and heap occupancy aggregated over the intervals of the given hlog file.
+     */
+    public static void createTimeSeries(File hlogFile, List<GcEvent> events, String filename) throws IOException
+    {
+        try (TimeSeriesWriter writer = new TimeSeriesWriter(filename, "pause-count", "pause-total-ms", "pause-max-ms", "allocation-stall-count", "allocation-stall-total-ms", "heap-after-bytes");
+             HistogramLogReader reader = new HistogramLogReader(hlogFile))
+        {
+            long heapAfter = -1L;
+            int eventIdx = 0;
+            while (reader.hasNext())
+            {
+                AbstractHistogram histogram = (AbstractHistogram)reader.nextIntervalHistogram();
+                if (histogram == null)
+                    break;
+                long start = histogram.getStartTimeStamp();
+                long end = histogram.getEndTimeStamp();
+
+                int pauseCount = 0;
+                double pauseTotal = 0.0;
+                double pauseMax = 0.0;
+                int stallCount = 0;
+                double stallTotal = 0.0;
+                for (GcEvent event : events)
+                {
+                    if (!event.overlaps(start, end))
+                        continue;
+                    if (event.type() == GcEvent.Type.PAUSE)
+                    {
+                        pauseCount++;
+                        pauseTotal += event.durationMs();
+                        pauseMax = Math.max(pauseMax, event.durationMs());
+                    }
+                    else
+                    {
+                        stallCount++;
+                        stallTotal += event.durationMs();
+                    }
+                }
+                // heap occupancy is the last one known at the end of the interval
+                while (eventIdx < events.size() && events.get(eventIdx).timestamp() < end)
+                {
+                    GcEvent event = events.get(eventIdx++);
+                    if (event.heapAfterBytes() >= 0L)
+                        heapAfter = event.heapAfterBytes();
+                }
+
+                writer.write(start, pauseCount, pauseTotal, pauseMax, stallCount, stallTotal, heapAfter);
+            }
+        }
+    }
+
+    /**
+     * Lists the intervals of the given hlog file whose value at the given percentile is an outlier
+     * (i.e.: more than twice the mean of all intervals, like in the P99 assertion) along with
+     * the GC events that coincide with them.
+     */
+    public static void createLatencyCorrelation(File hlogFile, double percentile, List<GcEvent> events, OutputStream out) throws IOException
+    {
+        List<AbstractHistogram> histograms = new ArrayList<>();
+        try (HistogramLogReader reader = new HistogramLogReader(hlogFile))
+        {
+            while (reader.hasNext())
+            {
+                AbstractHistogram histogram = (AbstractHistogram)reader.nextIntervalHistogram();
+                if (histogram == null)
+                    break;
+                histograms.add(histogram);
+            }
+        }
+
+        PrintStream ps = new PrintStream(out);
+        ps.println("# " + hlogFile.getName() + " intervals with a P" + percentile + " over twice the mean, and coinciding GC events");
+        if (histograms.isEmpty())
+        {
+            ps.flush();
+            return;
+        }
+        long mean = (long)histograms.stream().mapToLong(h -> h.getValueAtPercentile(percentile)).average().orElse(0.0);
+
+        int outliers = 0;
+        int gcOutliers = 0;
+        for (int i = 0; i < histograms.size(); i++)
+        {
+            AbstractHistogram histogram = histograms.get(i);
+            long value = histogram.getValueAtPercentile(percentile);
+            if (value <= mean * 2)
+                continue;
+            outliers++;
+
+            long start = histogram.getStartTimeStamp();
+            long end = histogram.getEndTimeStamp();
+            List<GcEvent> coinciding = events.stream().filter(e -> e.overlaps(start, end)).toList();
+            if (!coinciding.isEmpty())
+                gcOutliers++;
+
+            ps.printf("[%d] P%s=%dus mean=%dus -> %s%n", i, percentile, value / 1000, mean / 1000, coinciding.isEmpty() ? "no GC event" : "GC");
+            for (GcEvent event : coinciding)
+            {
+                ps.printf("    %s %.3fms%n", event.name(), event.durationMs());
+            }
+        }
+        ps.printf("%d outlier interval(s), %d coinciding with GC events%n", outliers, gcOutliers);
+        ps.flush();
+    }
+}
@@ -8,15 +8,26 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.eclipse.jetty.perf.monitoring.gc.GcEvent;
+import org.eclipse.jetty.perf.monitoring.gc.GcLogParser;
 
 public class JHiccupReport
 {
     public static void createHtmlHistogram(File hlogFile, OutputStream out) throws IOException
+    {
+        createHtmlHistogram(hlogFile, List.of(), out);
+    }
+
+    public static void createHtmlHistogram(File hlogFile, List<GcEvent> gcEvents, OutputStream out) throws IOException
     {
         String html = loadAsString(JHiccupReport.class.getResourceAsStream(JHiccupReport.class.getSimpleName() + ".html"));
         String histograms = loadAsString(new FileInputStream(hlogFile));
 
         html = html.replace("##HISTOGRAMS##", histograms);
+        html = html.replace("##GC_EVENTS##", GcLogParser.toJson(gcEvents));
+        html = html.replace("##GC_OVERLAY_SCRIPT##", loadAsString(JHiccupReport.class.getResourceAsStream(GcReport.OVERLAY_SCRIPT_RESOURCE)));
 
         out.write(html.getBytes(StandardCharsets.UTF_8));
     }
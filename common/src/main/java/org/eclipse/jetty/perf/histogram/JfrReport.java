@@ -0,0 +1,175 @@
+package org.eclipse.jetty.perf.histogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrReport
+{
+    // frames of the locking and parking machinery, skipped to report the contended call site instead
+    private static final List<String> LOCKING_FRAME_PREFIXES = List.of("jdk.internal.misc.Unsafe.", "java.util.concurrent.locks.", "java.lang.Object.wait");
+
+    /**
+     * Summarizes the given JFR recording into the top N hot methods, allocation sites,
+     * contended locks, socket I/O and safepoints.
+     */
+    public static void createSummary(Path jfrFile, int topN, OutputStream out) throws IOException
+    {
+        Map<String, Stat> selfSamples = new HashMap<>();
+        Map<String, Stat> totalSamples = new HashMap<>();
+        Map<String, Stat> allocations = new HashMap<>();
+        Map<String, Stat> monitors = new HashMap<>();
+        Map<String, Stat> parks = new HashMap<>();
+        Map<String, Stat> socketReads = new HashMap<>();
+        Map<String, Stat> socketWrites = new HashMap<>();
+        Stat safepoints = new Stat();
+        long executionSamples = 0L;
+
+        try (RecordingFile recordingFile = new RecordingFile(jfrFile))
+        {
+            while (recordingFile.hasMoreEvents())
+            {
+                RecordedEvent event = recordingFile.readEvent();
+                switch (event.getEventType().getName())
+                {
+                    case "jdk.ExecutionSample", "jdk.NativeMethodSample" ->
+                    {
+                        RecordedStackTrace stackTrace = event.getStackTrace();
+                        if (stackTrace == null || stackTrace.getFrames().isEmpty())
+                            continue;
+                        executionSamples++;
+                        List<RecordedFrame> frames = stackTrace.getFrames();
+                        add(selfSamples, frameName(frames.get(0)), 1L);
+                        // count recursive methods once per sample
+                        Set<String> seen = new HashSet<>();
+                        for (RecordedFrame frame : frames)
+                        {
+                            String methodName = methodName(frame);
+                            if (seen.add(methodName))
+                                add(totalSamples, methodName, 1L);
+                        }
+                    }
+                    case "jdk.ObjectAllocationSample" ->
+                    {
+                        RecordedClass objectClass = event.getClass("objectClass");
+                        String site = topFrameName(event, List.of());
+                        add(allocations, (objectClass == null ? "?" : objectClass.getName()) + " at " + site, event.getLong("weight"));
+                    }
+                    // async-profiler records its allocation samples as TLAB events
+                    case "jdk.ObjectAllocationInNewTLAB", "jdk.ObjectAllocationOutsideTLAB" ->
+                    {
+                        RecordedClass objectClass = event.getClass("objectClass");
+                        long size = event.hasField("tlabSize") ? event.getLong("tlabSize") : event.getLong("allocationSize");
+                        add(allocations, (objectClass == null ? "?" : objectClass.getName()) + " at " + topFrameName(event, List.of()), size);
+                    }
+                    case "jdk.JavaMonitorEnter" ->
+                    {
+                        RecordedClass monitorClass = event.getClass("monitorClass");
+                        add(monitors, (monitorClass == null ? "?" : monitorClass.getName()) + " at " + topFrameName(event, LOCKING_FRAME_PREFIXES), event.getDuration().toNanos());
+                    }
+                    case "jdk.ThreadPark" ->
+                    {
+                        RecordedClass parkedClass = event.getClass("parkedClass");
+                        add(parks, (parkedClass == null ? "?" : parkedClass.getName()) + " at " + topFrameName(event, LOCKING_FRAME_PREFIXES), event.getDuration().toNanos());
+                    }
+                    case "jdk.SocketRead" -> add(socketReads, event.getString("host") + ":" + event.getInt("port"), event.getDuration().toNanos());
+                    case "jdk.SocketWrite" -> add(socketWrites, event.getString("host") + ":" + event.getInt("port"), event.getDuration().toNanos());
+                    case "jdk.SafepointBegin" -> safepoints.add(event.getDuration().toNanos());
+                    default ->
+                    {
+                    }
+                }
+            }
+        }
+
+        PrintStream ps = new PrintStream(out);
+        ps.printf("# Hot methods, self (%d samples)%n", executionSamples);
+        printTop(ps, selfSamples, topN, executionSamples, "samples");
+        ps.printf("%n# Hot methods, total (%d samples)%n", executionSamples);
+        printTop(ps, totalSamples, topN, executionSamples, "samples");
+        ps.printf("%n# Allocation sites (sampled, estimated bytes)%n");
+        printTop(ps, allocations, topN, allocations.values().stream().mapToLong(s -> s.total).sum(), "bytes");
+        ps.printf("%n# Contended monitors (ns blocked)%n");
+        printTop(ps, monitors, topN, monitors.values().stream().mapToLong(s -> s.total).sum(), "ns");
+        ps.printf("%n# Parked threads (ns parked)%n");
+        printTop(ps, parks, topN, parks.values().stream().mapToLong(s -> s.total).sum(), "ns");
+        ps.printf("%n# Socket reads (ns)%n");
+        printTop(ps, socketReads, topN, socketReads.values().stream().mapToLong(s -> s.total).sum(), "ns");
+        ps.printf("%n# Socket writes (ns)%n");
+        printTop(ps, socketWrites, topN, socketWrites.values().stream().mapToLong(s -> s.total).sum(), "ns");
+        ps.printf("%n# Safepoints%n");
+        ps.printf("count=%d total=%.3fms max=%.3fms%n", safepoints.count, safepoints.total / 1_000_000.0, safepoints.max / 1_000_000.0);
+        ps.flush();
+    }
+
+    private static void printTop(PrintStream ps, Map<String, Stat> stats, int topN, long grandTotal, String unit)
+    {
+        stats.entrySet().stream()
+            .sorted((e1, e2) -> Long.compare(e2.getValue().total, e1.getValue().total))
+            .limit(topN)
+            .forEach(e ->
+            {
+                Stat stat = e.getValue();
+                double percent = grandTotal == 0L ? 0.0 : stat.total * 100.0 / grandTotal;
+                ps.printf("%6.2f%% %14d %s %8d events  %s%n", percent, stat.total, unit, stat.count, e.getKey());
+            });
+    }
+
+    private static String topFrameName(RecordedEvent event, List<String> skippedPrefixes)
+    {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null)
+            return "?";
+        for (RecordedFrame frame : stackTrace.getFrames())
+        {
+            String methodName = methodName(frame);
+            if (skippedPrefixes.stream().noneMatch(methodName::startsWith))
+                return frameName(frame);
+        }
+        return "?";
+    }
+
+    private static String frameName(RecordedFrame frame)
+    {
+        int lineNumber = frame.getLineNumber();
+        return methodName(frame) + (lineNumber > 0 ? ":" + lineNumber : "");
+    }
+
+    private static String methodName(RecordedFrame frame)
+    {
+        if (frame.getMethod() == null)
+            return "?";
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+
+    private static void add(Map<String, Stat> stats, String key, long value)
+    {
+        stats.computeIfAbsent(key, k -> new Stat()).add(value);
+    }
+
+    private static class Stat
+    {
+        private long count;
+        private long total;
+        private long max;
+
+        private void add(long value)
+        {
+            count++;
+            total += value;
+            max = Math.max(max, value);
+        }
+    }
+}
@@ -8,15 +8,28 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.eclipse.jetty.perf.monitoring.gc.GcEvent;
+import org.eclipse.jetty.perf.monitoring.gc.GcLogParser;
 
 public class PerfReport
 {
     public static void createHtmlHistogram(File hlogFile, OutputStream out) throws IOException
+    {
+        createHtmlHistogram(hlogFile, null, List.of(), out);
+    }
+
+    public static void createHtmlHistogram(File hlogFile, File jettyServerHlogFile, List<GcEvent> gcEvents, OutputStream out) throws IOException
     {
         String html = loadAsString(PerfReport.class.getResourceAsStream(PerfReport.class.getSimpleName() + ".html"));
         String histograms = loadAsString(new FileInputStream(hlogFile));
+        String jettyServerHistograms = jettyServerHlogFile == null ? "" : loadAsString(new FileInputStream(jettyServerHlogFile));
 
         html = html.replace("##HISTOGRAMS##", histograms);
+        html = html.replace("##JETTY_SERVER_HISTOGRAMS##", jettyServerHistograms);
+        html = html.replace("##GC_EVENTS##", GcLogParser.toJson(gcEvents));
+        html = html.replace("##GC_OVERLAY_SCRIPT##", loadAsString(PerfReport.class.getResourceAsStream(GcReport.OVERLAY_SCRIPT_RESOURCE)));
 
         out.write(html.getBytes(StandardCharsets.UTF_8));
     }
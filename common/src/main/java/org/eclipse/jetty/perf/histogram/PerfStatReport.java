@@ -0,0 +1,84 @@
+package org.eclipse.jetty.perf.histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.eclipse.jetty.perf.monitoring.os.LinuxPerfStatIntervalMonitor;
+import org.eclipse.jetty.perf.util.TimeSeries;
+import org.eclipse.jetty.perf.util.TimeSeriesWriter;
+
+public class PerfStatReport
+{
+    /**
+     * Sums the hardware counters sampled by {@link LinuxPerfStatIntervalMonitor} over the intervals
+     * of the given hlog file, next to the latency of each interval so both can be correlated.
+     */
+    public static void createAlignedTimeSeries(File hlogFile, TimeSeries perfStat, String filename) throws IOException
+    {
+        List<String> events = LinuxPerfStatIntervalMonitor.EVENTS;
+        String[] columns = new String[events.size() + 5];
+        columns[0] = "latency-p99-us";
+        columns[1] = "latency-max-us";
+        for (int i = 0; i < events.size(); i++)
+        {
+            columns[i + 2] = events.get(i);
+        }
+        columns[events.size() + 2] = "ipc";
+        columns[events.size() + 3] = "cache-miss-ratio";
+        columns[events.size() + 4] = "branch-miss-ratio";
+
+        try (TimeSeriesWriter writer = new TimeSeriesWriter(filename, columns);
+             HistogramLogReader reader = new HistogramLogReader(hlogFile))
+        {
+            while (reader.hasNext())
+            {
+                AbstractHistogram histogram = (AbstractHistogram)reader.nextIntervalHistogram();
+                if (histogram == null)
+                    break;
+
+                // perf stat samples are timestamped at the end of their interval
+                List<TimeSeries.Row> rows = perfStat.rowsBetween(histogram.getStartTimeStamp(), histogram.getEndTimeStamp());
+                Number[] values = new Number[columns.length];
+                values[0] = histogram.getValueAtPercentile(99.0) / 1000;
+                values[1] = histogram.getMaxValue() / 1000;
+                for (int i = 0; i < events.size(); i++)
+                {
+                    values[i + 2] = sum(perfStat, rows, events.get(i));
+                }
+                values[events.size() + 2] = ratio(perfStat, rows, "instructions", "cycles");
+                values[events.size() + 3] = ratio(perfStat, rows, "cache-misses", "cache-references");
+                values[events.size() + 4] = ratio(perfStat, rows, "branch-misses", "branches");
+                writer.write(histogram.getStartTimeStamp(), values);
+            }
+        }
+    }
+
+    private static long sum(TimeSeries perfStat, List<TimeSeries.Row> rows, String event)
+    {
+        int idx = perfStat.columnIndex(event);
+        if (idx < 0)
+            return -1L;
+        long sum = 0L;
+        for (TimeSeries.Row row : rows)
+        {
+            double value = row.values()[idx];
+            // unsupported counter
+            if (value < 0.0)
+                return -1L;
+            sum += (long)value;
+        }
+        return sum;
+    }
+
+    private static double ratio(TimeSeries perfStat, List<TimeSeries.Row> rows, String dividendEvent, String divisorEvent)
+    {
+        long dividend = sum(perfStat, rows, dividendEvent);
+        long divisor = sum(perfStat, rows, divisorEvent);
+        if (dividend < 0L || divisor <= 0L)
+            return Double.NaN;
+        return (double)dividend / divisor;
+    }
+}
@@ -78,13 +78,20 @@ public class ResponseStatusListener implements Resource.NodeListener, LoadGenera
 
     @Override
     public void onResourceNode(Resource.Info info)
+    {
+        recordStatus(info.getStatus(), info.getFailure());
+    }
+
+    /**
+     * Counts a response by its status, or by its failure when there is one.
+     */
+    public void recordStatus(int status, Throwable failure)
     {
         if (!record)
             return;
 
         String key;
 
-        Throwable failure = info.getFailure();
         if (failure != null)
         {
             if (fullStackTrace)
@@ -103,7 +110,6 @@ public class ResponseStatusListener implements Resource.NodeListener, LoadGenera
         }
         else
         {
-            int status = info.getStatus();
             key = Integer.toString(status);
         }
 
@@ -0,0 +1,94 @@
+package org.eclipse.jetty.perf.jdk;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The JVM the server runs on: which JDK, which garbage collector and how much heap.
+ * The loaders, probe and proxy keep running on the default JVM, so that the instruments do not change
+ * when the server JVM does.
+ *
+ * @param jdkName the name of the JDK, looked up by {@link LocalJdk}.
+ * @param gc the garbage collector.
+ * @param heapGb the initial and max heap size, in GB.
+ */
+public record JvmSettings(String jdkName, GarbageCollector gc, int heapGb) implements Serializable
+{
+    public enum GarbageCollector
+    {
+        G1(0, "-XX:+UseG1GC"),
+        PARALLEL(0, "-XX:+UseParallelGC"),
+        ZGC(15, "-XX:+UseZGC"),
+        // generational by default from JDK 23, the flag is then only warned about
+        GENERATIONAL_ZGC(21, "-XX:+UseZGC", "-XX:+ZGenerational"),
+        SHENANDOAH(12, "-XX:+UseShenandoahGC"),
+        ;
+
+        private final int minJdkFeatureVersion;
+        private final List<String> options;
+
+        GarbageCollector(int minJdkFeatureVersion, String... options)
+        {
+            this.minJdkFeatureVersion = minJdkFeatureVersion;
+            this.options = List.of(options);
+        }
+
+        public List<String> getOptions()
+        {
+            return options;
+        }
+
+        /**
+         * @return true if the JDK of the given feature version ships this collector, or if the version is unknown (negative).
+         */
+        public boolean isSupportedBy(int jdkFeatureVersion)
+        {
+            return jdkFeatureVersion < 0 || jdkFeatureVersion >= minJdkFeatureVersion;
+        }
+    }
+
+    private static final Pattern JDK_FEATURE_VERSION = Pattern.compile("jdk-?(\\d+)", Pattern.CASE_INSENSITIVE);
+
+    public JvmSettings
+    {
+        if (jdkName == null || jdkName.isBlank())
+            throw new IllegalArgumentException("the JDK name is required");
+        if (gc == null)
+            throw new IllegalArgumentException("the garbage collector is required");
+        if (heapGb < 1)
+            throw new IllegalArgumentException("the heap must be at least 1 GB");
+    }
+
+    /**
+     * @return the feature version named by the JDK name, e.g.: 17 for {@code load-jdk17}, or -1 if the name has none.
+     */
+    public int jdkFeatureVersion()
+    {
+        Matcher matcher = JDK_FEATURE_VERSION.matcher(jdkName);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    /**
+     * @return true if the JDK, as far as its name tells, ships the garbage collector.
+     */
+    public boolean isSupported()
+    {
+        return gc.isSupportedBy(jdkFeatureVersion());
+    }
+
+    /**
+     * @return ZGC, generational on JDK 21, and a 32 GB heap on the given JDK.
+     */
+    public static JvmSettings defaults(String jdkName)
+    {
+        return new JvmSettings(jdkName, jdkName.contains("21") ? GarbageCollector.GENERATIONAL_ZGC : GarbageCollector.ZGC, 32);
+    }
+
+    @Override
+    public String toString()
+    {
+        return jdkName + "-" + gc.name().toLowerCase() + "-" + heapGb + "g";
+    }
+}
@@ -1,28 +1,43 @@
 package org.eclipse.jetty.perf.monitoring;
 
 import java.io.Closeable;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.eclipse.jetty.perf.handler.ModernLatencyRecordingHandler;
 import org.eclipse.jetty.perf.monitoring.asyncprof.AsyncProfilerAllocationMonitor;
 import org.eclipse.jetty.perf.monitoring.asyncprof.AsyncProfilerCacheMissesMonitor;
+import org.eclipse.jetty.perf.monitoring.asyncprof.AsyncProfilerCombinedMonitor;
 import org.eclipse.jetty.perf.monitoring.asyncprof.AsyncProfilerCpuMonitor;
 import org.eclipse.jetty.perf.monitoring.asyncprof.AsyncProfilerLockMonitor;
+import org.eclipse.jetty.perf.monitoring.jetty.ByteBufferPoolMonitor;
+import org.eclipse.jetty.perf.monitoring.jetty.JettyServerMonitor;
+import org.eclipse.jetty.perf.monitoring.jetty.RequestCostMonitor;
+import org.eclipse.jetty.perf.monitoring.jetty.TrackingByteBufferPool;
+import org.eclipse.jetty.perf.monitoring.jfr.JfrMonitor;
 import org.eclipse.jetty.perf.monitoring.jhiccup.JHiccupMonitor;
+import org.eclipse.jetty.perf.monitoring.jit.JitMonitor;
 import org.eclipse.jetty.perf.monitoring.os.LinuxCpuMonitor;
 import org.eclipse.jetty.perf.monitoring.os.LinuxDiskMonitor;
 import org.eclipse.jetty.perf.monitoring.os.LinuxMemoryMonitor;
 import org.eclipse.jetty.perf.monitoring.os.LinuxNetworkMonitor;
+import org.eclipse.jetty.perf.monitoring.os.LinuxPerfStatIntervalMonitor;
 import org.eclipse.jetty.perf.monitoring.os.LinuxPerfStatMonitor;
+import org.eclipse.jetty.perf.monitoring.os.LinuxProcMonitor;
 import org.eclipse.jetty.perf.monitoring.os.WindowsCpuMonitor;
 import org.eclipse.jetty.perf.monitoring.os.WindowsMemoryMonitor;
 import org.eclipse.jetty.perf.monitoring.os.WindowsNetworkMonitor;
 import org.eclipse.jetty.perf.util.IOUtil;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,35 +51,79 @@ public class ConfigurableMonitor implements Closeable
         CMDLINE_MEMORY,
         CMDLINE_NETWORK,
         CMDLINE_DISK,
+        // Sub-second sampling of /proc and /sys, without forking any process.
+        PROC,
 
-        // Only one kind of async profiling can be enabled at a time.
+        // CPU, ALLOC and LOCK are combined into a single JFR file when more than one is enabled,
+        // CACHE_MISSES cannot be combined.
         ASYNC_PROF_CPU,
         ASYNC_PROF_ALLOC,
         ASYNC_PROF_LOCK,
         ASYNC_PROF_CACHE_MISSES,
+        // Makes async profiling write a profile every ASYNC_PROF_SNAPSHOT_INTERVAL instead of a single one,
+        // on a server node profiling then starts with the server to also cover the warmup.
+        ASYNC_PROF_SNAPSHOTS,
 
         PERF_STAT,
+        PERF_STAT_INTERVALS,
+
+        // Can be combined with the async profiling items, needs nothing but the JDK.
+        JFR,
+        // JIT compilations, deoptimizations and code cache usage per interval, needs nothing but the JDK;
+        // on a server node it starts with the server to also cover the warmup.
+        JIT,
 
         JHICCUP,
         GC_LOGS,
+
+        // Only effective on nodes running a Jetty server.
+        JETTY_SERVER,
+        BYTE_BUFFER_POOL,
+        // Per request figures, only meaningful when the load is made of requests, not of WebSocket messages or streamed events.
+        REQUEST_COST,
     }
 
+    public static final Duration ASYNC_PROF_SNAPSHOT_INTERVAL = Duration.ofSeconds(10);
+    private static final Map<Item, String> COMBINABLE_ASYNC_PROF_EVENTS = Map.of(
+        Item.ASYNC_PROF_CPU, "cpu",
+        Item.ASYNC_PROF_ALLOC, "alloc",
+        Item.ASYNC_PROF_LOCK, "lock"
+    );
+
     private final List<Monitor> monitors = new ArrayList<>();
 
     public ConfigurableMonitor(Set<Item> items) throws Exception
     {
-        // If more than 1 async prof item was selected, only keep the 1st one.
-        if (items.stream().filter(item -> item.name().startsWith("ASYNC")).count() > 1)
+        this(items, Map.of());
+    }
+
+    public ConfigurableMonitor(Set<Item> items, Map<String, Object> env) throws Exception
+    {
+        String osName = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+        Duration asyncProfSnapshotInterval = items.contains(Item.ASYNC_PROF_SNAPSHOTS) ? ASYNC_PROF_SNAPSHOT_INTERVAL : null;
+
+        // If more than 1 async prof item was selected, profile them all at once.
+        Set<String> asyncProfEvents = items.stream()
+            .map(COMBINABLE_ASYNC_PROF_EVENTS::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (!asyncProfEvents.isEmpty() && items.contains(Item.ASYNC_PROF_CACHE_MISSES))
         {
-            items = items.stream().filter(item -> !item.name().startsWith("ASYNC")).collect(Collectors.toSet());
-            Item itm = items.stream().filter(item -> item.name().startsWith("ASYNC")).findFirst().orElseThrow();
-            LOG.warn("Multiple ASYNC_PROFILER items were added to the list, only enabling {}", itm);
-            items.add(itm);
+            items = new HashSet<>(items);
+            items.remove(Item.ASYNC_PROF_CACHE_MISSES);
+            LOG.warn("ASYNC_PROF_CACHE_MISSES cannot be combined with other async profiling items, only enabling {}", asyncProfEvents);
+        }
+        if (asyncProfEvents.size() > 1)
+        {
+            items = new HashSet<>(items);
+            items.removeAll(COMBINABLE_ASYNC_PROF_EVENTS.keySet());
+            if (osName.contains("linux"))
+                monitors.add(new AsyncProfilerCombinedMonitor(asyncProfEvents, AsyncProfilerCombinedMonitor.DEFAULT_FILENAME, asyncProfSnapshotInterval));
         }
 
         for (Item item : items)
         {
-            Monitor monitor = monitorOf(item);
+            Monitor monitor = monitorOf(item, asyncProfSnapshotInterval, env);
             if (monitor != null)
                 monitors.add(monitor);
         }
@@ -94,7 +153,7 @@ public class ConfigurableMonitor implements Closeable
             .toList();
     }
 
-    private static Monitor monitorOf(Item item) throws Exception
+    private static Monitor monitorOf(Item item, Duration asyncProfSnapshotInterval, Map<String, Object> env) throws Exception
     {
         String osName = System.getProperty("os.name").toLowerCase(Locale.ROOT);
         switch (item)
@@ -121,30 +180,67 @@ public class ConfigurableMonitor implements Closeable
                 if (osName.contains("linux"))
                     return new LinuxDiskMonitor();
                 return null;
+            case PROC:
+                if (osName.contains("linux"))
+                    return new LinuxProcMonitor();
+                return null;
             case ASYNC_PROF_CPU:
                 if (osName.contains("linux"))
-                    return new AsyncProfilerCpuMonitor();
+                    return new AsyncProfilerCpuMonitor(AsyncProfilerCpuMonitor.DEFAULT_FILENAME, asyncProfSnapshotInterval);
                 return null;
             case ASYNC_PROF_ALLOC:
                 if (osName.contains("linux"))
-                    return new AsyncProfilerAllocationMonitor();
+                    return new AsyncProfilerAllocationMonitor(AsyncProfilerAllocationMonitor.DEFAULT_FILENAME, asyncProfSnapshotInterval);
                 return null;
             case ASYNC_PROF_LOCK:
                 if (osName.contains("linux"))
-                    return new AsyncProfilerLockMonitor();
+                    return new AsyncProfilerLockMonitor(AsyncProfilerLockMonitor.DEFAULT_FILENAME, asyncProfSnapshotInterval);
                 return null;
             case ASYNC_PROF_CACHE_MISSES:
                 if (osName.contains("linux"))
-                    return new AsyncProfilerCacheMissesMonitor();
+                    return new AsyncProfilerCacheMissesMonitor(AsyncProfilerCacheMissesMonitor.DEFAULT_FILENAME, asyncProfSnapshotInterval);
                 return null;
             case PERF_STAT:
                 if (osName.contains("linux"))
                     return new LinuxPerfStatMonitor();
                 return null;
+            case PERF_STAT_INTERVALS:
+                if (osName.contains("linux"))
+                    return new LinuxPerfStatIntervalMonitor();
+                return null;
+            case JFR:
+                return new JfrMonitor();
+            case JIT:
+                return new JitMonitor();
             case JHICCUP:
                 return new JHiccupMonitor();
+            case ASYNC_PROF_SNAPSHOTS:
             case GC_LOGS:
                 return null;
+            case JETTY_SERVER:
+            {
+                Server server = (Server)env.get(Server.class.getName());
+                if (server != null)
+                    return new JettyServerMonitor(server);
+                return null;
+            }
+            case BYTE_BUFFER_POOL:
+            {
+                Server server = (Server)env.get(Server.class.getName());
+                if (server != null && server.getByteBufferPool() instanceof TrackingByteBufferPool pool)
+                    return new ByteBufferPoolMonitor(pool);
+                return null;
+            }
+            case REQUEST_COST:
+            {
+                Server server = (Server)env.get(Server.class.getName());
+                if (server == null || !(server.getThreadPool() instanceof QueuedThreadPool threadPool))
+                    return null;
+                ModernLatencyRecordingHandler latencyRecordingHandler = server.getDescendant(ModernLatencyRecordingHandler.class);
+                if (latencyRecordingHandler != null)
+                    return new RequestCostMonitor(threadPool, latencyRecordingHandler::getCompletedRequests);
+                return null;
+            }
             default:
                 throw new AssertionError("Unknown monitor item : " +item);
         }
@@ -9,12 +9,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.zip.GZIPInputStream;
 
+import one.profiler.AsyncProfiler;
 import org.eclipse.jetty.perf.monitoring.Monitor;
 import org.eclipse.jetty.perf.util.IOUtil;
 import org.kamranzafar.jtar.TarEntry;
@@ -22,34 +26,177 @@ import org.kamranzafar.jtar.TarInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Runs async-profiler in-process through its Java API. The native library is looked up, in order:
+ * <ul>
+ *     <li>at the path given by the {@value #LIB_PROPERTY} system property;</li>
+ *     <li>in the installation folder given by the {@value #HOME_PROPERTY} system property;</li>
+ *     <li>in the async-profiler jar on the classpath, for the versions that bundle it;</li>
+ *     <li>in the {@code java.library.path};</li>
+ *     <li>in a release downloaded from GitHub, unless the {@value #OFFLINE_PROPERTY} system property is true.</li>
+ * </ul>
+ */
 abstract class AbstractAsyncProfilerMonitor implements Monitor
 {
+    public static final String LIB_PROPERTY = "async-profiler.lib";
+    public static final String HOME_PROPERTY = "async-profiler.home";
+    public static final String OFFLINE_PROPERTY = "async-profiler.offline";
+
     private static final Logger LOG = LoggerFactory.getLogger(AbstractAsyncProfilerMonitor.class);
     private static final String VERSION = "2.9";
+    private static final String LIB_NAME = "libasyncProfiler.so";
 
-    private final long pid;
+    private final AsyncProfiler asyncProfiler;
+    private final String startOptions;
+    private final String outputFilename;
+    private final Timer timer;
+    private int snapshot;
 
-    protected AbstractAsyncProfilerMonitor() throws Exception
+    protected AbstractAsyncProfilerMonitor(String startOptions, String outputFilename) throws Exception
     {
-        this(ProcessHandle.current().pid());
+        this(startOptions, outputFilename, null);
     }
 
-    protected AbstractAsyncProfilerMonitor(long pid) throws Exception
+    /**
+     * @param startOptions the async-profiler options selecting what is profiled, e.g.: {@code event=cpu}.
+     * @param outputFilename the file to write the profile to, its extension selects the output format.
+     * @param snapshotInterval if not null, a profile is written every interval to a numbered file
+     * instead of a single one covering the whole run, e.g.: {@code async-profiler-cpu-001.html}.
+     */
+    protected AbstractAsyncProfilerMonitor(String startOptions, String outputFilename, Duration snapshotInterval) throws Exception
     {
-        this.pid = pid;
-        installAsyncProfilerIfNeeded();
-        startAsyncProfiler(pid);
+        this.startOptions = startOptions;
+        this.outputFilename = outputFilename;
+        this.asyncProfiler = loadAsyncProfiler();
+        if (snapshotInterval != null)
+            snapshot = 1;
+        startAsyncProfiler();
+
+        if (snapshotInterval != null)
+        {
+            timer = new Timer();
+            timer.schedule(new TimerTask()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        synchronized (AbstractAsyncProfilerMonitor.this)
+                        {
+                            stopAsyncProfiler();
+                            snapshot++;
+                            startAsyncProfiler();
+                        }
+                    }
+                    catch (Exception e)
+                    {
+                        LOG.warn("async profiler snapshot failed", e);
+                    }
+                }
+            }, snapshotInterval.toMillis(), snapshotInterval.toMillis());
+        }
+        else
+        {
+            timer = null;
+        }
     }
 
     @Override
     public void close() throws Exception
     {
-        stopAsyncProfiler(pid);
+        if (timer != null)
+            timer.cancel();
+        synchronized (this)
+        {
+            stopAsyncProfiler();
+        }
     }
 
-    private static void installAsyncProfilerIfNeeded() throws IOException
+    private String currentOutputFile()
     {
+        String filename = outputFilename;
+        if (snapshot > 0)
+        {
+            int idx = filename.lastIndexOf('.');
+            String suffix = String.format(Locale.ROOT, "-%03d", snapshot);
+            filename = idx < 0 ? filename + suffix : filename.substring(0, idx) + suffix + filename.substring(idx);
+        }
+        return new File(filename).getAbsolutePath();
+    }
+
+    private void startAsyncProfiler() throws IOException
+    {
+        LOG.debug("starting async profiler...");
+        String result = asyncProfiler.execute("start," + startOptions + ",file=" + currentOutputFile());
+        LOG.debug("started async profiler: {}", result);
+    }
+
+    private void stopAsyncProfiler() throws IOException
+    {
+        LOG.debug("stopping async profiler...");
+        String result = asyncProfiler.execute("stop,file=" + currentOutputFile());
+        LOG.debug("stopped async profiler: {}", result);
+    }
+
+    private static AsyncProfiler loadAsyncProfiler() throws IOException
+    {
+        String lib = System.getProperty(LIB_PROPERTY);
+        if (lib != null)
+            return AsyncProfiler.getInstance(lib);
+
+        String home = System.getProperty(HOME_PROPERTY);
+        if (home != null)
+            return AsyncProfiler.getInstance(findLibrary(new File(home)).getAbsolutePath());
+
+        File bundledLibrary = extractBundledLibrary();
+        if (bundledLibrary != null)
+            return AsyncProfiler.getInstance(bundledLibrary.getAbsolutePath());
+
+        try
+        {
+            return AsyncProfiler.getInstance();
+        }
+        catch (UnsatisfiedLinkError e)
+        {
+            if (Boolean.getBoolean(OFFLINE_PROPERTY))
+                throw new IOException("async profiler library not found, set the " + LIB_PROPERTY + " or " + HOME_PROPERTY + " system property", e);
+            LOG.debug("async profiler library not found in java.library.path", e);
+        }
+
         File asyncProfilerHome = getAsyncProfilerHome();
+        installAsyncProfilerIfNeeded(asyncProfilerHome);
+        return AsyncProfiler.getInstance(findLibrary(asyncProfilerHome).getAbsolutePath());
+    }
+
+    private static File findLibrary(File asyncProfilerHome) throws IOException
+    {
+        // 2.x releases have it in build/, 3.x releases in lib/
+        for (String folder : new String[]{"build", "lib"})
+        {
+            File file = new File(new File(asyncProfilerHome, folder), LIB_NAME);
+            if (file.isFile())
+                return file;
+        }
+        throw new IOException("Cannot find " + LIB_NAME + " in " + asyncProfilerHome);
+    }
+
+    private static File extractBundledLibrary() throws IOException
+    {
+        String arch = System.getProperty("os.arch").equals("aarch64") ? "arm64" : "x64";
+        try (InputStream is = AsyncProfiler.class.getResourceAsStream("/linux-" + arch + "/" + LIB_NAME))
+        {
+            if (is == null)
+                return null;
+            Path file = Files.createTempFile("async-profiler-", ".so");
+            file.toFile().deleteOnExit();
+            Files.copy(is, file, StandardCopyOption.REPLACE_EXISTING);
+            return file.toFile();
+        }
+    }
+
+    private static void installAsyncProfilerIfNeeded(File asyncProfilerHome) throws IOException
+    {
         if (!asyncProfilerHome.isDirectory())
         {
             LOG.debug("installing async profiler...");
@@ -105,45 +252,4 @@ abstract class AbstractAsyncProfilerMonitor implements Monitor
         String home = System.getProperty("user.home") + "/downloads/async-profiler-" + VERSION + "-linux-x64";
         return new File(home);
     }
-
-    private void startAsyncProfiler(long pid) throws IOException, InterruptedException
-    {
-        LOG.debug("starting async profiler...");
-        File asyncProfilerHome = getAsyncProfilerHome();
-
-        List<String> cmdLine = new ArrayList<>(Arrays.asList("./profiler.sh", "start"));
-        cmdLine.addAll(extraStartCmdLineArgs());
-        cmdLine.add(Long.toString(pid));
-
-        int rc = new ProcessBuilder(cmdLine.toArray(new String[0]))
-            .directory(asyncProfilerHome)
-            .redirectErrorStream(true)
-            .start()
-            .waitFor();
-        if (rc != 0)
-            LOG.warn("async profiler start failed with code " + rc);
-        LOG.debug("started async profiler...");
-    }
-
-    protected abstract Collection<String> extraStartCmdLineArgs();
-    protected abstract Collection<String> extraStopCmdLineArgs();
-
-    private void stopAsyncProfiler(long pid) throws IOException, InterruptedException
-    {
-        LOG.debug("stopping async profiler...");
-        File asyncProfilerHome = getAsyncProfilerHome();
-
-        List<String> cmdLine = new ArrayList<>(Arrays.asList("./profiler.sh", "stop"));
-        cmdLine.addAll(extraStopCmdLineArgs());
-        cmdLine.add(Long.toString(pid));
-
-        int rc = new ProcessBuilder(cmdLine.toArray(new String[0]))
-            .directory(asyncProfilerHome)
-            .redirectErrorStream(true)
-            .start()
-            .waitFor();
-        if (rc != 0)
-            LOG.warn("async profiler stop failed with code " + rc);
-        LOG.debug("stopped async profiler...");
-    }
 }
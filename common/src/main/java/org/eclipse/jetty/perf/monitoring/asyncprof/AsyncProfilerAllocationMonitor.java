@@ -1,41 +1,23 @@
 package org.eclipse.jetty.perf.monitoring.asyncprof;
 
-import java.io.File;
-import java.util.Collection;
-import java.util.List;
+import java.time.Duration;
 
 public class AsyncProfilerAllocationMonitor extends AbstractAsyncProfilerMonitor
 {
     public static final String DEFAULT_FILENAME = "async-profiler-alloc.html";
 
-    private final String outputFilename;
-
     public AsyncProfilerAllocationMonitor() throws Exception
     {
-        this.outputFilename = DEFAULT_FILENAME;
+        this(DEFAULT_FILENAME);
     }
 
     public AsyncProfilerAllocationMonitor(String outputFilename) throws Exception
     {
-        this.outputFilename = outputFilename;
-    }
-
-    public AsyncProfilerAllocationMonitor(String outputFilename, long pid) throws Exception
-    {
-        super(pid);
-        this.outputFilename = outputFilename;
-    }
-
-    @Override
-    protected Collection<String> extraStartCmdLineArgs()
-    {
-        return List.of("-e", "alloc");
+        super("event=alloc", outputFilename);
     }
 
-    @Override
-    protected Collection<String> extraStopCmdLineArgs()
+    public AsyncProfilerAllocationMonitor(String outputFilename, Duration snapshotInterval) throws Exception
     {
-        File file = new File(outputFilename);
-        return List.of("-f", file.getAbsolutePath());
+        super("event=alloc", outputFilename, snapshotInterval);
     }
 }
@@ -0,0 +1,44 @@
+package org.eclipse.jetty.perf.monitoring.asyncprof;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Profiles several kinds of events at once into a single JFR file.
+ * Only {@code cpu}, {@code alloc} and {@code lock} can be combined as
+ * async-profiler samples a single perf event at a time.
+ */
+public class AsyncProfilerCombinedMonitor extends AbstractAsyncProfilerMonitor
+{
+    public static final String DEFAULT_FILENAME = "async-profiler.jfr";
+    public static final Set<String> COMBINABLE_EVENTS = Set.of("cpu", "alloc", "lock");
+
+    public AsyncProfilerCombinedMonitor(Set<String> events) throws Exception
+    {
+        this(events, DEFAULT_FILENAME, null);
+    }
+
+    public AsyncProfilerCombinedMonitor(Set<String> events, String outputFilename, Duration snapshotInterval) throws Exception
+    {
+        super(startOptions(events), outputFilename, snapshotInterval);
+    }
+
+    private static String startOptions(Set<String> events)
+    {
+        if (events.isEmpty() || !COMBINABLE_EVENTS.containsAll(events))
+            throw new IllegalArgumentException("Cannot combine async profiler events " + events + ", only " + COMBINABLE_EVENTS + " can");
+
+        // cpu is the main event, alloc and lock are options that can complement it or each other
+        List<String> options = new ArrayList<>();
+        if (events.contains("cpu"))
+            options.add("event=cpu");
+        if (events.contains("alloc"))
+            options.add(options.isEmpty() ? "event=alloc" : "alloc");
+        if (events.contains("lock"))
+            options.add(options.isEmpty() ? "event=lock" : "lock");
+        options.add("jfr");
+        return String.join(",", options);
+    }
+}
@@ -1,41 +1,23 @@
 package org.eclipse.jetty.perf.monitoring.asyncprof;
 
-import java.io.File;
-import java.util.Collection;
-import java.util.List;
+import java.time.Duration;
 
 public class AsyncProfilerLockMonitor extends AbstractAsyncProfilerMonitor
 {
     public static final String DEFAULT_FILENAME = "async-profiler-lock.html";
 
-    private final String outputFilename;
-
     public AsyncProfilerLockMonitor() throws Exception
     {
-        this.outputFilename = DEFAULT_FILENAME;
+        this(DEFAULT_FILENAME);
     }
 
     public AsyncProfilerLockMonitor(String outputFilename) throws Exception
     {
-        this.outputFilename = outputFilename;
-    }
-
-    public AsyncProfilerLockMonitor(String outputFilename, long pid) throws Exception
-    {
-        super(pid);
-        this.outputFilename = outputFilename;
-    }
-
-    @Override
-    protected Collection<String> extraStartCmdLineArgs()
-    {
-        return List.of("-e", "lock");
+        super("event=lock", outputFilename);
     }
 
-    @Override
-    protected Collection<String> extraStopCmdLineArgs()
+    public AsyncProfilerLockMonitor(String outputFilename, Duration snapshotInterval) throws Exception
     {
-        File file = new File(outputFilename);
-        return List.of("-f", file.getAbsolutePath());
+        super("event=lock", outputFilename, snapshotInterval);
     }
 }
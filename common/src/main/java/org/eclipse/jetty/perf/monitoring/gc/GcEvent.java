@@ -0,0 +1,36 @@
+package org.eclipse.jetty.perf.monitoring.gc;
+
+/**
+ * A GC event parsed from a unified JVM GC log.
+ *
+ * @param timestamp the wall clock time of the event, in ms since the epoch.
+ * @param type the type of the event.
+ * @param name the description of the event, e.g. {@code Pause Young (Normal) (G1 Evacuation Pause)}.
+ * @param durationMs the duration of the pause or allocation stall, 0 for heap events.
+ * @param heapBeforeBytes the heap occupancy before the collection, -1 if unknown.
+ * @param heapAfterBytes the heap occupancy after the collection, -1 if unknown.
+ */
+public record GcEvent(long timestamp, Type type, String name, double durationMs, long heapBeforeBytes, long heapAfterBytes)
+{
+    public enum Type
+    {
+        PAUSE, ALLOCATION_STALL, HEAP
+    }
+
+    public boolean isLatencyImpacting()
+    {
+        return type == Type.PAUSE || type == Type.ALLOCATION_STALL;
+    }
+
+    /**
+     * @return true if the latency impacting part of this event overlaps the [start, end[ interval.
+     */
+    public boolean overlaps(long start, long end)
+    {
+        if (!isLatencyImpacting())
+            return false;
+        // unified logging timestamps the end of the pause
+        long eventStart = timestamp - (long)Math.ceil(durationMs);
+        return eventStart < end && timestamp >= start;
+    }
+}
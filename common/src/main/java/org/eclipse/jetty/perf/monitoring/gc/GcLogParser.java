@@ -0,0 +1,141 @@
+package org.eclipse.jetty.perf.monitoring.gc;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the unified logging GC logs written with the {@code -Xlog:gc*:file=gc.log:time,level,tags}
+ * decorations by G1, Parallel, Shenandoah and (generational or not) ZGC.
+ */
+public class GcLogParser
+{
+    public static final String DEFAULT_FILENAME = "gc.log";
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    // [2023-05-04T10:12:13.123+0200][info][gc,phases   ] GC(3) Pause Mark Start 0.012ms
+    private static final Pattern DECORATIONS = Pattern.compile("^\\[([^]]+)]\\[([^]]+)]\\[([^]]+)]\\s?(.*)$");
+    // G1: Pause Young (Normal) (G1 Evacuation Pause) 1024M->512M(32768M) 3.456ms
+    // ZGC: Pause Mark Start 0.012ms
+    private static final Pattern PAUSE = Pattern.compile("\\b(Pause\\b.*?)\\s+([0-9]+(?:[.,][0-9]+)?)ms$");
+    // ZGC: Allocation Stall (qtp1234-56) 12.345ms
+    private static final Pattern ALLOCATION_STALL = Pattern.compile("\\b(Allocation Stall\\b.*?)\\s+([0-9]+(?:[.,][0-9]+)?)ms$");
+    // G1: 1024M->512M(32768M), ZGC: 3276M(10%)->1024M(3%)
+    private static final Pattern HEAP = Pattern.compile("\\b([0-9]+)([BKMG])(?:\\([0-9]+%\\))?->([0-9]+)([BKMG])(?:\\([0-9]+[BKMG%]\\))?");
+
+    public static List<GcEvent> parse(Path gcLog) throws IOException
+    {
+        List<GcEvent> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(gcLog, StandardCharsets.UTF_8))
+        {
+            while (true)
+            {
+                String line = reader.readLine();
+                if (line == null)
+                    break;
+
+                GcEvent event = parseLine(line);
+                if (event != null)
+                    events.add(event);
+            }
+        }
+        return events;
+    }
+
+    static GcEvent parseLine(String line)
+    {
+        Matcher decorations = DECORATIONS.matcher(line);
+        if (!decorations.matches())
+            return null;
+
+        long timestamp;
+        try
+        {
+            timestamp = OffsetDateTime.parse(decorations.group(1), TIME_FORMATTER).toInstant().toEpochMilli();
+        }
+        catch (DateTimeParseException e)
+        {
+            return null;
+        }
+        String tags = decorations.group(3).trim();
+        String message = decorations.group(4).trim();
+
+        // Only the [gc] and [gc,phases] tags report the pauses, other tags (e.g.: [gc,metaspace]) have similar looking lines.
+        if (!tags.equals("gc") && !tags.equals("gc,phases"))
+            return null;
+
+        long heapBefore = -1L;
+        long heapAfter = -1L;
+        if (tags.equals("gc"))
+        {
+            Matcher heap = HEAP.matcher(message);
+            if (heap.find())
+            {
+                heapBefore = toBytes(heap.group(1), heap.group(2));
+                heapAfter = toBytes(heap.group(3), heap.group(4));
+            }
+        }
+
+        Matcher pause = PAUSE.matcher(message);
+        if (pause.find())
+            return new GcEvent(timestamp, GcEvent.Type.PAUSE, stripHeap(pause.group(1)), toMs(pause.group(2)), heapBefore, heapAfter);
+
+        Matcher allocationStall = ALLOCATION_STALL.matcher(message);
+        if (allocationStall.find())
+            return new GcEvent(timestamp, GcEvent.Type.ALLOCATION_STALL, allocationStall.group(1), toMs(allocationStall.group(2)), -1L, -1L);
+
+        if (heapAfter >= 0L)
+            return new GcEvent(timestamp, GcEvent.Type.HEAP, stripHeap(message.replaceFirst("^GC\\([0-9]+\\)\\s*", "")), 0.0, heapBefore, heapAfter);
+
+        return null;
+    }
+
+    /**
+     * Converts the events to a JavaScript array literal that can be embedded in the HTML reports.
+     */
+    public static String toJson(List<GcEvent> events)
+    {
+        StringBuilder sb = new StringBuilder("[");
+        for (GcEvent event : events)
+        {
+            if (sb.length() > 1)
+                sb.append(",\n");
+            sb.append(String.format(Locale.ROOT, "{\"t\":%d,\"type\":\"%s\",\"name\":\"%s\",\"ms\":%.3f,\"heapBefore\":%d,\"heapAfter\":%d}",
+                event.timestamp(), event.type(), event.name().replace("\\", "\\\\").replace("\"", "\\\""),
+                event.durationMs(), event.heapBeforeBytes(), event.heapAfterBytes()));
+        }
+        return sb.append("]").toString();
+    }
+
+    private static String stripHeap(String message)
+    {
+        return HEAP.matcher(message).replaceAll("").replaceAll("\\s+", " ").trim();
+    }
+
+    private static double toMs(String value)
+    {
+        return Double.parseDouble(value.replace(',', '.'));
+    }
+
+    private static long toBytes(String value, String unit)
+    {
+        long v = Long.parseLong(value);
+        return switch (unit)
+        {
+            case "K" -> v * 1024L;
+            case "M" -> v * 1024L * 1024L;
+            case "G" -> v * 1024L * 1024L * 1024L;
+            default -> v;
+        };
+    }
+}
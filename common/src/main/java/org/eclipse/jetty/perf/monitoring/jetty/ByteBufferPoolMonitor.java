@@ -0,0 +1,75 @@
+package org.eclipse.jetty.perf.monitoring.jetty;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.eclipse.jetty.perf.monitoring.Monitor;
+import org.eclipse.jetty.perf.util.TimeSeriesWriter;
+
+/**
+ * Writes, once per interval, the acquire/release counts and the per-bucket occupancy of a
+ * {@link TrackingByteBufferPool} along with the JVM's direct buffer usage.
+ */
+public class ByteBufferPoolMonitor implements Monitor
+{
+    public static final String DEFAULT_FILENAME = "bytebufferpool.csv";
+    public static final String DEFAULT_BUCKETS_FILENAME = "bytebufferpool-buckets.csv";
+    public static final String DEFAULT_LEAKS_FILENAME = "bytebufferpool-leaks.log";
+    public static final int DEFAULT_INTERVAL_MS = 1000;
+
+    private final Timer timer = new Timer();
+    private final TimeSeriesWriter writer;
+    private final TimeSeriesWriter bucketsWriter;
+
+    public ByteBufferPoolMonitor(TrackingByteBufferPool pool) throws IOException
+    {
+        this(pool, DEFAULT_FILENAME, DEFAULT_BUCKETS_FILENAME, DEFAULT_INTERVAL_MS);
+    }
+
+    public ByteBufferPoolMonitor(TrackingByteBufferPool pool, String filename, String bucketsFilename, int intervalMs) throws IOException
+    {
+        BufferPoolMXBean directBufferPool = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+            .filter(mxBean -> mxBean.getName().equals("direct"))
+            .findAny()
+            .orElseThrow();
+
+        writer = new TimeSeriesWriter(filename, "acquired", "released", "outstanding", "jvm.direct.count", "jvm.direct.used-bytes", "jvm.direct.capacity-bytes");
+        bucketsWriter = new TimeSeriesWriter(bucketsFilename, "capacity", "direct", "acquired", "in-use-bytes", "pooled-bytes", "idle-bytes");
+
+        timer.schedule(new TimerTask()
+        {
+            private long lastAcquired = pool.getAcquired();
+            private long lastReleased = pool.getReleased();
+
+            @Override
+            public void run()
+            {
+                long now = System.currentTimeMillis();
+
+                long acquired = pool.getAcquired();
+                long released = pool.getReleased();
+                writer.write(now, acquired - lastAcquired, released - lastReleased, pool.getOutstanding(),
+                    directBufferPool.getCount(), directBufferPool.getMemoryUsed(), directBufferPool.getTotalCapacity());
+                lastAcquired = acquired;
+                lastReleased = released;
+
+                for (TrackingByteBufferPool.BucketStats stats : pool.getBucketStats())
+                {
+                    bucketsWriter.write(now, stats.getCapacity(), stats.isDirect() ? 1 : 0, stats.getAcquired(),
+                        stats.getInUseBytes(), stats.getPooledBytes(), stats.getIdleBytes());
+                }
+            }
+        }, intervalMs, intervalMs);
+    }
+
+    @Override
+    public void close()
+    {
+        timer.cancel();
+        writer.close();
+        bucketsWriter.close();
+    }
+}
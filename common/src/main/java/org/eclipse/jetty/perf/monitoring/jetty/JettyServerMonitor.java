@@ -0,0 +1,162 @@
+package org.eclipse.jetty.perf.monitoring.jetty;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.function.LongSupplier;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.perf.monitoring.Monitor;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.MonitoredQueuedThreadPool;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+/**
+ * Samples the server's thread pool, selectors and buffer pool at high frequency and writes
+ * one tagged histogram per metric and per second to an hlog file.
+ * Queue latency is only available when the server uses a {@link MonitoredQueuedThreadPool}
+ * and select loop metrics when it uses a {@link MonitoredServerConnector}.
+ */
+public class JettyServerMonitor implements Monitor
+{
+    public static final String DEFAULT_FILENAME = "jetty-server.hlog";
+    public static final int DEFAULT_SAMPLE_INTERVAL_MS = 10;
+    public static final int DEFAULT_WRITE_INTERVAL_MS = 1000;
+
+    private final Timer timer = new Timer("jetty-server-monitor", true);
+    private final HistogramLogWriter writer;
+    private final List<TaggedRecorder> sampled = new ArrayList<>();
+    private final List<TaggedRecorder> recorded = new ArrayList<>();
+    private boolean closed; // guarded by writer
+
+    public JettyServerMonitor(Server server) throws FileNotFoundException
+    {
+        this(server, DEFAULT_FILENAME, DEFAULT_SAMPLE_INTERVAL_MS, DEFAULT_WRITE_INTERVAL_MS);
+    }
+
+    public JettyServerMonitor(Server server, String filename, int sampleIntervalMs, int writeIntervalMs) throws FileNotFoundException
+    {
+        ThreadPool threadPool = server.getThreadPool();
+        if (threadPool instanceof QueuedThreadPool qtp)
+        {
+            sampled.add(new TaggedRecorder("qtp.busy", qtp::getBusyThreads));
+            sampled.add(new TaggedRecorder("qtp.idle", qtp::getIdleThreads));
+            sampled.add(new TaggedRecorder("qtp.queue", qtp::getQueueSize));
+        }
+        if (threadPool instanceof MonitoredQueuedThreadPool mqtp)
+        {
+            sampled.add(new TaggedRecorder("qtp.max-queue-latency.ns", () ->
+            {
+                long maxQueueLatency = mqtp.getMaxQueueLatency();
+                mqtp.reset();
+                return Math.max(0L, maxQueueLatency);
+            }));
+        }
+
+        ByteBufferPool byteBufferPool = server.getByteBufferPool();
+        while (byteBufferPool instanceof ByteBufferPool.Wrapper wrapper)
+            byteBufferPool = wrapper.getWrapped();
+        if (byteBufferPool instanceof ArrayByteBufferPool pool)
+        {
+            sampled.add(new TaggedRecorder("pool.direct.bytes", pool::getDirectMemory));
+            sampled.add(new TaggedRecorder("pool.direct.available-bytes", pool::getAvailableDirectMemory));
+            sampled.add(new TaggedRecorder("pool.heap.bytes", pool::getHeapMemory));
+            sampled.add(new TaggedRecorder("pool.heap.available-bytes", pool::getAvailableHeapMemory));
+        }
+
+        for (MonitoredServerConnector connector : server.getBeans(MonitoredServerConnector.class))
+        {
+            String prefix = "selector." + connector.getLocalPort();
+            recorded.add(new TaggedRecorder(prefix + ".selected-keys", connector.getSelectedKeysRecorder()));
+            recorded.add(new TaggedRecorder(prefix + ".select-time.ns", connector.getSelectTimeRecorder()));
+        }
+
+        writer = new HistogramLogWriter(filename);
+        long now = System.currentTimeMillis();
+        writer.setBaseTime(now);
+        writer.outputBaseTime(now);
+        writer.outputStartTime(now);
+        recorded.forEach(TaggedRecorder::reset);
+
+        timer.schedule(new TimerTask()
+        {
+            @Override
+            public void run()
+            {
+                sampled.forEach(TaggedRecorder::sample);
+            }
+        }, 0, sampleIntervalMs);
+        timer.schedule(new TimerTask()
+        {
+            @Override
+            public void run()
+            {
+                // cancelling the timer does not wait for a running task, so close() and writes exclude each other
+                synchronized (writer)
+                {
+                    if (closed)
+                        return;
+                    sampled.forEach(r -> r.write(writer));
+                    recorded.forEach(r -> r.write(writer));
+                }
+            }
+        }, writeIntervalMs, writeIntervalMs);
+    }
+
+    @Override
+    public void close()
+    {
+        timer.cancel();
+        synchronized (writer)
+        {
+            closed = true;
+            writer.close();
+        }
+    }
+
+    private static class TaggedRecorder
+    {
+        private final String tag;
+        private final Recorder recorder;
+        private final LongSupplier sampler;
+        private Histogram intervalHistogram;
+
+        private TaggedRecorder(String tag, LongSupplier sampler)
+        {
+            this.tag = tag;
+            this.recorder = new Recorder(3);
+            this.sampler = sampler;
+        }
+
+        private TaggedRecorder(String tag, Recorder recorder)
+        {
+            this.tag = tag;
+            this.recorder = recorder;
+            this.sampler = null;
+        }
+
+        private void sample()
+        {
+            recorder.recordValue(sampler.getAsLong());
+        }
+
+        private void reset()
+        {
+            recorder.reset();
+        }
+
+        private void write(HistogramLogWriter writer)
+        {
+            intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+            intervalHistogram.setTag(tag);
+            writer.outputIntervalHistogram(intervalHistogram);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.eclipse.jetty.perf.monitoring.jetty;
+
+import java.io.IOException;
+import java.nio.channels.Selector;
+import java.util.concurrent.Executor;
+
+import org.HdrHistogram.Recorder;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.ManagedSelector;
+import org.eclipse.jetty.io.SelectorManager;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+/**
+ * A {@link ServerConnector} whose selectors record, for every select loop,
+ * the time spent blocked in {@code select()} and the number of selected keys.
+ */
+public class MonitoredServerConnector extends ServerConnector
+{
+    private final Recorder selectTimeRecorder = new Recorder(3);
+    private final Recorder selectedKeysRecorder = new Recorder(3);
+
+    public MonitoredServerConnector(Server server, int acceptors, int selectors, ConnectionFactory... factories)
+    {
+        super(server, null, null, null, acceptors, selectors, factories);
+    }
+
+    public MonitoredServerConnector(Server server, Executor executor, Scheduler scheduler, ByteBufferPool bufferPool, int acceptors, int selectors, ConnectionFactory... factories)
+    {
+        super(server, executor, scheduler, bufferPool, acceptors, selectors, factories);
+    }
+
+    @Override
+    protected SelectorManager newSelectorManager(Executor executor, Scheduler scheduler, int selectors)
+    {
+        return new ServerConnectorManager(executor, scheduler, selectors)
+        {
+            @Override
+            protected ManagedSelector newSelector(int id)
+            {
+                return new MonitoredManagedSelector(this, id);
+            }
+        };
+    }
+
+    /**
+     * @return the recorder of the time (in ns) each select loop spent blocked in {@code select()}.
+     */
+    public Recorder getSelectTimeRecorder()
+    {
+        return selectTimeRecorder;
+    }
+
+    /**
+     * @return the recorder of the number of keys selected by each select loop.
+     */
+    public Recorder getSelectedKeysRecorder()
+    {
+        return selectedKeysRecorder;
+    }
+
+    private class MonitoredManagedSelector extends ManagedSelector
+    {
+        public MonitoredManagedSelector(SelectorManager selectorManager, int id)
+        {
+            super(selectorManager, id);
+        }
+
+        @Override
+        protected int nioSelect(Selector selector, boolean now) throws IOException
+        {
+            long before = System.nanoTime();
+            int selected = super.nioSelect(selector, now);
+            selectTimeRecorder.recordValue(System.nanoTime() - before);
+            selectedKeysRecorder.recordValue(selected);
+            return selected;
+        }
+    }
+}
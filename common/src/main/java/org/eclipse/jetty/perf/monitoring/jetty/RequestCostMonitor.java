@@ -0,0 +1,142 @@
+package org.eclipse.jetty.perf.monitoring.jetty;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.function.LongSupplier;
+
+import com.sun.management.ThreadMXBean;
+import org.eclipse.jetty.perf.monitoring.Monitor;
+import org.eclipse.jetty.perf.util.TimeSeriesWriter;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+/**
+ * Samples the CPU time and the allocated bytes of the server's thread pool threads, which run both the selectors
+ * and the handlers, and divides them by the requests completed over the same interval, writing one line per
+ * interval with the totals and the per request costs.
+ * Threads started after the first sample are accounted for from their start, the last interval of the threads
+ * that died between two samples is lost.
+ */
+public class RequestCostMonitor implements Monitor
+{
+    public static final String DEFAULT_FILENAME = "request-cost.csv";
+    public static final int DEFAULT_INTERVAL_MS = 1000;
+    public static final String REQUESTS_COLUMN = "requests";
+    public static final String CPU_COLUMN = "cpu-ns";
+    public static final String ALLOCATED_COLUMN = "alloc-bytes";
+
+    private final Timer timer = new Timer();
+    private final ThreadMXBean threadMXBean = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+    // the CPU ns and allocated bytes of each sampled thread, by thread id
+    private final Map<Long, long[]> previousCosts = new HashMap<>();
+    private final Set<Long> otherThreadIds = new HashSet<>();
+    private final String threadNamePrefix;
+    private final LongSupplier completedRequests;
+    private final TimeSeriesWriter writer;
+    private long previousCompletedRequests;
+
+    public RequestCostMonitor(QueuedThreadPool threadPool, LongSupplier completedRequests) throws IOException
+    {
+        this(threadPool, completedRequests, DEFAULT_FILENAME, DEFAULT_INTERVAL_MS);
+    }
+
+    public RequestCostMonitor(QueuedThreadPool threadPool, LongSupplier completedRequests, String filename, int intervalMs) throws IOException
+    {
+        this.threadNamePrefix = threadPool.getName() + "-";
+        this.completedRequests = completedRequests;
+        if (threadMXBean.isThreadCpuTimeSupported())
+            threadMXBean.setThreadCpuTimeEnabled(true);
+        if (threadMXBean.isThreadAllocatedMemorySupported())
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        writer = new TimeSeriesWriter(filename, REQUESTS_COLUMN, CPU_COLUMN, ALLOCATED_COLUMN, "cpu-ns-per-request", "alloc-bytes-per-request", "threads");
+
+        // the first sample is the baseline of the threads that already exist
+        previousCompletedRequests = completedRequests.getAsLong();
+        sample(true);
+        timer.schedule(new TimerTask()
+        {
+            @Override
+            public void run()
+            {
+                long requests = completedRequests.getAsLong();
+                long[] costs = sample(false);
+                long intervalRequests = requests - previousCompletedRequests;
+                previousCompletedRequests = requests;
+                writer.write(System.currentTimeMillis(), intervalRequests, costs[0], costs[1],
+                    intervalRequests == 0L ? 0L : costs[0] / intervalRequests,
+                    intervalRequests == 0L ? 0L : costs[1] / intervalRequests,
+                    costs[2]);
+            }
+        }, intervalMs, intervalMs);
+    }
+
+    /**
+     * @return the CPU ns and allocated bytes of the thread pool threads since the previous sample, and the count of those threads.
+     */
+    private long[] sample(boolean baseline)
+    {
+        long[] threadIds = threadMXBean.getAllThreadIds();
+        List<Long> newThreadIds = new ArrayList<>();
+        for (long threadId : threadIds)
+        {
+            if (!previousCosts.containsKey(threadId) && !otherThreadIds.contains(threadId))
+                newThreadIds.add(threadId);
+        }
+        if (!newThreadIds.isEmpty())
+        {
+            ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(newThreadIds.stream().mapToLong(Long::longValue).toArray());
+            for (int i = 0; i < threadInfos.length; i++)
+            {
+                // the thread may have died since its id was listed
+                if (threadInfos[i] == null)
+                    continue;
+                if (threadInfos[i].getThreadName().startsWith(threadNamePrefix))
+                    previousCosts.put(newThreadIds.get(i), baseline ? null : new long[2]);
+                else
+                    otherThreadIds.add(newThreadIds.get(i));
+            }
+        }
+
+        Set<Long> alive = new HashSet<>();
+        for (long threadId : threadIds)
+        {
+            alive.add(threadId);
+        }
+        previousCosts.keySet().retainAll(alive);
+        otherThreadIds.retainAll(alive);
+
+        long[] poolThreadIds = previousCosts.keySet().stream().mapToLong(Long::longValue).toArray();
+        long[] cpuTimes = threadMXBean.getThreadCpuTime(poolThreadIds);
+        long[] allocatedBytes = threadMXBean.getThreadAllocatedBytes(poolThreadIds);
+        long cpu = 0L;
+        long allocated = 0L;
+        for (int i = 0; i < poolThreadIds.length; i++)
+        {
+            if (cpuTimes[i] < 0L || allocatedBytes[i] < 0L)
+                continue;
+            long[] previous = previousCosts.get(poolThreadIds[i]);
+            if (previous != null)
+            {
+                cpu += cpuTimes[i] - previous[0];
+                allocated += allocatedBytes[i] - previous[1];
+            }
+            previousCosts.put(poolThreadIds[i], new long[]{cpuTimes[i], allocatedBytes[i]});
+        }
+        return new long[]{cpu, allocated, poolThreadIds.length};
+    }
+
+    @Override
+    public void close()
+    {
+        timer.cancel();
+        writer.close();
+    }
+}
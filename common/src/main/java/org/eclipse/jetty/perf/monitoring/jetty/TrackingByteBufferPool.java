@@ -0,0 +1,209 @@
+package org.eclipse.jetty.perf.monitoring.jetty;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.RetainableByteBuffer;
+import org.eclipse.jetty.util.Pool;
+
+/**
+ * A {@link ByteBufferPool} decorator that counts acquisitions and releases per bucket
+ * and keeps track of the buffers that have not been released yet, so they can be
+ * reported as leaks once the server is stopped.
+ */
+public class TrackingByteBufferPool extends ByteBufferPool.Wrapper
+{
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final Map<Bucket, BucketStats> buckets = new ConcurrentHashMap<>();
+    private final Set<TrackedBuffer> outstanding = ConcurrentHashMap.newKeySet();
+
+    public TrackingByteBufferPool(ByteBufferPool wrapped)
+    {
+        super(wrapped);
+    }
+
+    @Override
+    public RetainableByteBuffer acquire(int size, boolean direct)
+    {
+        RetainableByteBuffer buffer = super.acquire(size, direct);
+        Bucket bucket = new Bucket(buffer.capacity(), buffer.isDirect());
+        TrackedBuffer trackedBuffer = new TrackedBuffer(buffer, buckets.computeIfAbsent(bucket, BucketStats::new));
+        trackedBuffer.onAcquired();
+        return trackedBuffer;
+    }
+
+    /**
+     * Jetty 12.0.x still calls this deprecated method for the buffers it does not want pooled again, so it is
+     * forwarded unwrapped to keep the wrapped pool from pooling them; being deprecated itself, the override
+     * does not add a deprecation warning to the build.
+     */
+    @Deprecated
+    @Override
+    public boolean removeAndRelease(RetainableByteBuffer buffer)
+    {
+        if (buffer instanceof TrackedBuffer trackedBuffer)
+        {
+            boolean result = getWrapped().removeAndRelease(trackedBuffer.getWrapped());
+            if (result)
+                trackedBuffer.onReleased();
+            return result;
+        }
+        return super.removeAndRelease(buffer);
+    }
+
+    public long getAcquired()
+    {
+        return acquired.sum();
+    }
+
+    public long getReleased()
+    {
+        return released.sum();
+    }
+
+    public int getOutstanding()
+    {
+        return outstanding.size();
+    }
+
+    public List<BucketStats> getBucketStats()
+    {
+        return buckets.values().stream()
+            .sorted(Comparator.comparing((BucketStats stats) -> !stats.bucket.direct).thenComparingInt(stats -> stats.bucket.capacity))
+            .toList();
+    }
+
+    /**
+     * Writes the buffers that were acquired but never released. Only meaningful
+     * once the server is stopped, as active connections legitimately hold buffers.
+     */
+    public void writeLeaks(String filename) throws IOException
+    {
+        long now = System.nanoTime();
+        try (PrintWriter printWriter = new PrintWriter(filename, StandardCharsets.UTF_8))
+        {
+            printWriter.println("Leaked buffers: " + outstanding.size());
+            for (TrackedBuffer trackedBuffer : outstanding)
+            {
+                printWriter.printf("capacity=%d direct=%b age=%dms thread=%s%n",
+                    trackedBuffer.capacity(),
+                    trackedBuffer.isDirect(),
+                    TimeUnit.NANOSECONDS.toMillis(now - trackedBuffer.acquireNanoTime),
+                    trackedBuffer.acquireThreadName);
+            }
+        }
+    }
+
+    private record Bucket(int capacity, boolean direct)
+    {
+    }
+
+    public class BucketStats
+    {
+        private final Bucket bucket;
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder inUse = new LongAdder();
+
+        private BucketStats(Bucket bucket)
+        {
+            this.bucket = bucket;
+        }
+
+        public int getCapacity()
+        {
+            return bucket.capacity;
+        }
+
+        public boolean isDirect()
+        {
+            return bucket.direct;
+        }
+
+        public long getAcquired()
+        {
+            return acquired.sum();
+        }
+
+        public long getInUseBytes()
+        {
+            return inUse.sum() * bucket.capacity;
+        }
+
+        /**
+         * @return the bytes retained by the wrapped pool for this bucket, or -1 if the wrapped pool is not an {@link ArrayByteBufferPool}.
+         */
+        public long getPooledBytes()
+        {
+            if (getWrapped() instanceof ArrayByteBufferPool arrayByteBufferPool)
+            {
+                Pool<RetainableByteBuffer> pool = arrayByteBufferPool.poolFor(bucket.capacity, bucket.direct);
+                return pool == null ? 0L : (long)pool.size() * bucket.capacity;
+            }
+            return -1L;
+        }
+
+        /**
+         * @return the bytes retained by the wrapped pool for this bucket that are available for acquisition,
+         * or -1 if the wrapped pool is not an {@link ArrayByteBufferPool}.
+         */
+        public long getIdleBytes()
+        {
+            if (getWrapped() instanceof ArrayByteBufferPool arrayByteBufferPool)
+            {
+                Pool<RetainableByteBuffer> pool = arrayByteBufferPool.poolFor(bucket.capacity, bucket.direct);
+                return pool == null ? 0L : (long)pool.getIdleCount() * bucket.capacity;
+            }
+            return -1L;
+        }
+    }
+
+    private class TrackedBuffer extends RetainableByteBuffer.Wrapper
+    {
+        private final BucketStats bucketStats;
+        private final long acquireNanoTime = System.nanoTime();
+        private final String acquireThreadName = Thread.currentThread().getName();
+
+        private TrackedBuffer(RetainableByteBuffer wrapped, BucketStats bucketStats)
+        {
+            super(wrapped);
+            this.bucketStats = bucketStats;
+        }
+
+        @Override
+        public boolean release()
+        {
+            boolean result = super.release();
+            if (result)
+                onReleased();
+            return result;
+        }
+
+        private void onAcquired()
+        {
+            acquired.increment();
+            bucketStats.acquired.increment();
+            bucketStats.inUse.increment();
+            outstanding.add(this);
+        }
+
+        private void onReleased()
+        {
+            if (outstanding.remove(this))
+            {
+                released.increment();
+                bucketStats.inUse.decrement();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.eclipse.jetty.perf.monitoring.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.eclipse.jetty.perf.monitoring.Monitor;
+
+/**
+ * Records CPU samples, allocations, lock contention, socket I/O and safepoints
+ * with the JDK Flight Recorder for the whole lifetime of the monitor.
+ * Unlike async-profiler, this needs nothing but the JDK and all kinds of events
+ * are recorded at the same time.
+ */
+public class JfrMonitor implements Monitor
+{
+    public static final String DEFAULT_FILENAME = "recording.jfr";
+
+    private final Recording recording;
+    private final String filename;
+
+    public JfrMonitor() throws IOException, ParseException
+    {
+        this(DEFAULT_FILENAME);
+    }
+
+    public JfrMonitor(String filename) throws IOException, ParseException
+    {
+        this.filename = filename;
+        // the profile configuration enables most of the events, with thresholds suitable for production
+        recording = new Recording(Configuration.getConfiguration("profile"));
+        recording.setName("jetty-perf");
+        recording.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(10));
+        recording.enable("jdk.NativeMethodSample").withPeriod(Duration.ofMillis(20));
+        recording.enable("jdk.ObjectAllocationSample").with("throttle", "1000/s");
+        recording.enable("jdk.JavaMonitorEnter").withThreshold(Duration.ofMillis(1));
+        recording.enable("jdk.ThreadPark").withThreshold(Duration.ofMillis(1));
+        recording.enable("jdk.SocketRead").withThreshold(Duration.ofMillis(1));
+        recording.enable("jdk.SocketWrite").withThreshold(Duration.ofMillis(1));
+        recording.enable("jdk.SafepointBegin").withThreshold(Duration.ZERO);
+        recording.start();
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        recording.stop();
+        recording.dump(Path.of(filename));
+        recording.close();
+    }
+}
@@ -0,0 +1,159 @@
+package org.eclipse.jetty.perf.monitoring.jit;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordingStream;
+import org.eclipse.jetty.perf.monitoring.Monitor;
+import org.eclipse.jetty.perf.util.TimeSeriesWriter;
+
+/**
+ * Streams the JIT compilation and deoptimization events of the JDK Flight Recorder and writes one line per interval
+ * with the C1, C2 and OSR compilations, the time the compiler threads spent compiling according to the
+ * {@link CompilationMXBean}, the deoptimizations and the code cache usage.
+ * When closed, the deoptimized methods are written to {@link #DEFAULT_DEOPTIMIZATIONS_FILENAME} ranked by count,
+ * with their reasons and actions, to spot the hot paths that keep being recompiled under load.
+ */
+public class JitMonitor implements Monitor
+{
+    public static final String DEFAULT_FILENAME = "jit.csv";
+    public static final String DEFAULT_DEOPTIMIZATIONS_FILENAME = "deoptimizations.txt";
+    public static final int DEFAULT_INTERVAL_MS = 1000;
+    public static final String COMPILATIONS_COLUMN = "compilations";
+    public static final String COMPILE_TIME_COLUMN = "compile-ms";
+    public static final String DEOPTIMIZATIONS_COLUMN = "deoptimizations";
+    // tier 4 is C2, tiers 1 to 3 are C1 with more or less profiling
+    private static final int C2_LEVEL = 4;
+
+    private final Timer timer = new Timer();
+    private final CompilationMXBean compilationMXBean = ManagementFactory.getCompilationMXBean();
+    private final List<MemoryPoolMXBean> codeCachePools = ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(pool -> pool.getType() == MemoryType.NON_HEAP)
+        .filter(pool -> pool.getName().contains("CodeHeap") || pool.getName().contains("Code Cache"))
+        .toList();
+    private final LongAdder c1Compilations = new LongAdder();
+    private final LongAdder c2Compilations = new LongAdder();
+    private final LongAdder osrCompilations = new LongAdder();
+    private final LongAdder failedCompilations = new LongAdder();
+    private final LongAdder deoptimizations = new LongAdder();
+    private final LongAdder codeCacheFull = new LongAdder();
+    // by method, then by reason and action
+    private final Map<String, Map<String, LongAdder>> deoptimizedMethods = new ConcurrentHashMap<>();
+    private final RecordingStream recordingStream;
+    private final TimeSeriesWriter writer;
+    private final String deoptimizationsFilename;
+    private long previousCompileTimeMs;
+
+    public JitMonitor() throws IOException
+    {
+        this(DEFAULT_FILENAME, DEFAULT_DEOPTIMIZATIONS_FILENAME, DEFAULT_INTERVAL_MS);
+    }
+
+    public JitMonitor(String filename, String deoptimizationsFilename, int intervalMs) throws IOException
+    {
+        this.deoptimizationsFilename = deoptimizationsFilename;
+        writer = new TimeSeriesWriter(filename, COMPILATIONS_COLUMN, "c1", "c2", "osr", "failed", COMPILE_TIME_COLUMN, DEOPTIMIZATIONS_COLUMN, "code-cache-full", "code-cache-used-bytes");
+
+        recordingStream = new RecordingStream();
+        // by default only the compilations longer than a second are recorded
+        recordingStream.enable("jdk.Compilation").withThreshold(Duration.ZERO);
+        recordingStream.enable("jdk.Deoptimization").withoutStackTrace();
+        recordingStream.enable("jdk.CodeCacheFull");
+        recordingStream.onEvent("jdk.Compilation", this::onCompilation);
+        recordingStream.onEvent("jdk.Deoptimization", this::onDeoptimization);
+        recordingStream.onEvent("jdk.CodeCacheFull", event -> codeCacheFull.increment());
+        recordingStream.startAsync();
+
+        previousCompileTimeMs = compileTimeMs();
+        timer.schedule(new TimerTask()
+        {
+            @Override
+            public void run()
+            {
+                long compileTimeMs = compileTimeMs();
+                long c1 = c1Compilations.sumThenReset();
+                long c2 = c2Compilations.sumThenReset();
+                writer.write(System.currentTimeMillis(), c1 + c2, c1, c2, osrCompilations.sumThenReset(), failedCompilations.sumThenReset(),
+                    compileTimeMs - previousCompileTimeMs, deoptimizations.sumThenReset(), codeCacheFull.sumThenReset(), codeCacheUsed());
+                previousCompileTimeMs = compileTimeMs;
+            }
+        }, intervalMs, intervalMs);
+    }
+
+    private void onCompilation(RecordedEvent event)
+    {
+        // the field name is misspelled by the JDK
+        if (!event.getBoolean("succeded"))
+        {
+            failedCompilations.increment();
+            return;
+        }
+        if (event.getInt("compileLevel") >= C2_LEVEL)
+            c2Compilations.increment();
+        else
+            c1Compilations.increment();
+        if (event.getBoolean("isOsr"))
+            osrCompilations.increment();
+    }
+
+    private void onDeoptimization(RecordedEvent event)
+    {
+        deoptimizations.increment();
+        RecordedMethod method = event.getValue("method");
+        String methodName = method == null ? "<unknown>" : method.getType().getName() + "." + method.getName() + method.getDescriptor();
+        String cause = event.getString("reason") + "/" + event.getString("action") + " at line " + event.getInt("lineNumber");
+        deoptimizedMethods.computeIfAbsent(methodName, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(cause, k -> new LongAdder())
+            .increment();
+    }
+
+    private long compileTimeMs()
+    {
+        return compilationMXBean != null && compilationMXBean.isCompilationTimeMonitoringSupported() ? compilationMXBean.getTotalCompilationTime() : 0L;
+    }
+
+    private long codeCacheUsed()
+    {
+        return codeCachePools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        timer.cancel();
+        recordingStream.close();
+        writer.close();
+        try (PrintWriter printWriter = new PrintWriter(deoptimizationsFilename, StandardCharsets.UTF_8))
+        {
+            deoptimizedMethods.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Map<String, LongAdder>> entry) -> total(entry.getValue())).reversed())
+                .forEach(entry ->
+                {
+                    printWriter.printf("%8d %s%n", total(entry.getValue()), entry.getKey());
+                    entry.getValue().entrySet().stream()
+                        .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> cause) -> cause.getValue().sum()).reversed())
+                        .forEach(cause -> printWriter.printf("%8s %6d %s%n", "", cause.getValue().sum(), cause.getKey()));
+                });
+        }
+    }
+
+    private static long total(Map<String, LongAdder> causes)
+    {
+        return causes.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+}
@@ -0,0 +1,122 @@
+package org.eclipse.jetty.perf.monitoring.jit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tells when the JIT compilers have settled: samples the time the compiler threads spent compiling every second
+ * from the moment it is created, and considers compilation settled once each of the last {@link #DEFAULT_WINDOW}
+ * seconds spent less than {@link #DEFAULT_MAX_COMPILE_MS_PER_SECOND} ms compiling.
+ * What {@link #await(Duration)} observed is written to {@link #DEFAULT_FILENAME}.
+ */
+public class JitWarmupGate implements Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(JitWarmupGate.class);
+    public static final String DEFAULT_FILENAME = "warmup-gate.properties";
+    public static final int DEFAULT_WINDOW = 5;
+    public static final long DEFAULT_MAX_COMPILE_MS_PER_SECOND = 10L;
+
+    private final Timer timer = new Timer("jit-warmup-gate", true);
+    private final CompilationMXBean compilationMXBean = ManagementFactory.getCompilationMXBean();
+    private final Deque<Long> compileMsPerSecond = new ArrayDeque<>();
+    private final int window;
+    private final long maxCompileMsPerSecond;
+    private long previousCompileTimeMs;
+
+    public JitWarmupGate()
+    {
+        this(DEFAULT_WINDOW, DEFAULT_MAX_COMPILE_MS_PER_SECOND);
+    }
+
+    public JitWarmupGate(int window, long maxCompileMsPerSecond)
+    {
+        this.window = window;
+        this.maxCompileMsPerSecond = maxCompileMsPerSecond;
+        if (!isSupported())
+            return;
+        previousCompileTimeMs = compilationMXBean.getTotalCompilationTime();
+        timer.schedule(new TimerTask()
+        {
+            @Override
+            public void run()
+            {
+                long compileTimeMs = compilationMXBean.getTotalCompilationTime();
+                synchronized (compileMsPerSecond)
+                {
+                    compileMsPerSecond.addLast(compileTimeMs - previousCompileTimeMs);
+                    if (compileMsPerSecond.size() > window)
+                        compileMsPerSecond.removeFirst();
+                    compileMsPerSecond.notifyAll();
+                }
+                previousCompileTimeMs = compileTimeMs;
+            }
+        }, 1000L, 1000L);
+    }
+
+    private boolean isSupported()
+    {
+        // e.g.: -Xint has no compiler
+        return compilationMXBean != null && compilationMXBean.isCompilationTimeMonitoringSupported();
+    }
+
+    /**
+     * Waits until compilation settles, or for at most the given time.
+     *
+     * @return true if compilation settled.
+     */
+    public boolean await(Duration maxWait) throws InterruptedException, IOException
+    {
+        long start = System.nanoTime();
+        long deadline = start + maxWait.toNanos();
+        boolean settled = !isSupported();
+        String lastWindow;
+        synchronized (compileMsPerSecond)
+        {
+            while (!settled)
+            {
+                settled = compileMsPerSecond.size() == window && compileMsPerSecond.stream().allMatch(ms -> ms < maxCompileMsPerSecond);
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (settled || remainingMs <= 0L)
+                    break;
+                compileMsPerSecond.wait(remainingMs);
+            }
+            lastWindow = compileMsPerSecond.toString();
+        }
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LOG.info("JIT compilation {} after waiting {} ms, last compile ms per second {}", settled ? "settled" : "did not settle", waitedMs, lastWindow);
+
+        Properties properties = new Properties();
+        properties.setProperty("settled", Boolean.toString(settled));
+        properties.setProperty("waited-ms", Long.toString(waitedMs));
+        properties.setProperty("max-wait-ms", Long.toString(maxWait.toMillis()));
+        properties.setProperty("window-s", Integer.toString(window));
+        properties.setProperty("max-compile-ms-per-second", Long.toString(maxCompileMsPerSecond));
+        properties.setProperty("last-compile-ms-per-second", lastWindow);
+        try (OutputStream os = Files.newOutputStream(Path.of(DEFAULT_FILENAME)))
+        {
+            properties.store(os, "JIT warmup gate");
+        }
+        return settled;
+    }
+
+    @Override
+    public void close()
+    {
+        timer.cancel();
+    }
+}
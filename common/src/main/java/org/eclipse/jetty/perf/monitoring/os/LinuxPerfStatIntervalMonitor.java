@@ -0,0 +1,132 @@
+package org.eclipse.jetty.perf.monitoring.os;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.perf.monitoring.Monitor;
+import org.eclipse.jetty.perf.util.TimeSeriesWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples the hardware and scheduler counters of this JVM with {@code perf stat -I}
+ * and writes one line per interval, timestamped with the wall clock time at the end of the interval.
+ */
+public class LinuxPerfStatIntervalMonitor implements Monitor
+{
+    private static final Logger LOG = LoggerFactory.getLogger(LinuxPerfStatIntervalMonitor.class);
+
+    public static final String DEFAULT_FILENAME = "os/perf-stat-intervals.csv";
+    public static final int DEFAULT_INTERVAL_MS = 1000;
+    public static final List<String> EVENTS = List.of("cycles", "instructions", "cache-references", "cache-misses", "branches", "branch-misses", "context-switches", "cpu-migrations");
+
+    private final Process process;
+    private final Thread reader;
+    private final TimeSeriesWriter writer;
+
+    public LinuxPerfStatIntervalMonitor() throws IOException
+    {
+        this(DEFAULT_FILENAME, DEFAULT_INTERVAL_MS);
+    }
+
+    public LinuxPerfStatIntervalMonitor(String filename, int intervalMs) throws IOException
+    {
+        File outputFile = new File(filename);
+        if (!outputFile.getParentFile().isDirectory() && !outputFile.getParentFile().mkdirs())
+            throw new IOException("Cannot create folder for output file " + outputFile.getAbsolutePath());
+        writer = new TimeSeriesWriter(filename, EVENTS.toArray(new String[0]));
+
+        long startTimestamp = System.currentTimeMillis();
+        Process process = null;
+        try
+        {
+            process = new ProcessBuilder("perf", "stat", "-I", Integer.toString(intervalMs), "-x", ",", "--log-fd", "1",
+                "-e", String.join(",", EVENTS), "-p", Long.toString(ProcessHandle.current().pid()))
+                .redirectErrorStream(true)
+                .start();
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Error starting perf stat: {}", e.getMessage());
+        }
+        this.process = process;
+        this.reader = process == null ? null : new Thread(() -> read(startTimestamp), "perf-stat-reader");
+        if (reader != null)
+            reader.start();
+    }
+
+    private void read(long startTimestamp)
+    {
+        // perf writes one line per event and per interval: <time>,<value>,<unit>,<event>,<run time>,<run %>,...
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)))
+        {
+            String currentTime = null;
+            Map<String, Long> values = new HashMap<>();
+            while (true)
+            {
+                String line = br.readLine();
+                if (line == null)
+                    break;
+                String[] fields = line.trim().split(",");
+                // skip the comments and the error messages
+                if (fields.length < 4 || !fields[0].matches("[0-9.]+"))
+                    continue;
+
+                if (currentTime != null && !currentTime.equals(fields[0]))
+                {
+                    writeInterval(startTimestamp, currentTime, values);
+                    values.clear();
+                }
+                currentTime = fields[0];
+                // counters collected for user space only are suffixed, e.g.: cycles:u
+                String event = fields[3].split(":")[0];
+                values.put(event, parseCounter(fields[1]));
+            }
+            if (currentTime != null)
+                writeInterval(startTimestamp, currentTime, values);
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Error reading perf stat output", e);
+        }
+    }
+
+    private void writeInterval(long startTimestamp, String time, Map<String, Long> values)
+    {
+        long timestamp = startTimestamp + (long)(Double.parseDouble(time) * 1000);
+        writer.write(timestamp, EVENTS.stream().map(event -> values.getOrDefault(event, -1L)).toArray(Number[]::new));
+    }
+
+    private static long parseCounter(String value)
+    {
+        try
+        {
+            return (long)Double.parseDouble(value);
+        }
+        catch (NumberFormatException e)
+        {
+            // <not counted> and <not supported> counters
+            return -1L;
+        }
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        if (process != null)
+        {
+            // linux perf MUST receive SIGINT or it won't output the last interval.
+            Process kill = new ProcessBuilder("kill", "-INT", Long.toString(process.toHandle().pid())).start();
+            kill.waitFor();
+            process.waitFor();
+            reader.join();
+        }
+        writer.close();
+    }
+}
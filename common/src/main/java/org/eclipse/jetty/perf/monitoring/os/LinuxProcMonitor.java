@@ -0,0 +1,492 @@
+package org.eclipse.jetty.perf.monitoring.os;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.eclipse.jetty.perf.monitoring.Monitor;
+import org.eclipse.jetty.perf.util.TimeSeriesWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples {@code /proc} and {@code /sys} from Java, without forking any process, and writes one
+ * line per interval with the CPU usage of each core (including softirq and steal), the network
+ * and disk throughput, the memory usage, this JVM's RSS, threads and context switches, and the
+ * cgroup CPU throttling when available.
+ * Counters are written as per second rates over the interval, CPU times as percentages.
+ */
+public class LinuxProcMonitor implements Monitor
+{
+    private static final Logger LOG = LoggerFactory.getLogger(LinuxProcMonitor.class);
+
+    public static final String DEFAULT_FILENAME = "os/proc.csv";
+    public static final int DEFAULT_INTERVAL_MS = 250;
+
+    private static final Path PROC_STAT = Path.of("/proc/stat");
+    private static final Path PROC_NET_DEV = Path.of("/proc/net/dev");
+    private static final Path PROC_DISKSTATS = Path.of("/proc/diskstats");
+    private static final Path PROC_MEMINFO = Path.of("/proc/meminfo");
+    private static final Path PROC_SELF_STATUS = Path.of("/proc/self/status");
+    private static final Path SYS_BLOCK = Path.of("/sys/block");
+    private static final Path SYS_CGROUP_CPU_STAT = Path.of("/sys/fs/cgroup/cpu.stat");
+    // the /proc/stat cpu time fields written, by index in the line
+    private static final Map<String, Integer> CPU_FIELDS = fields("user", 1, "nice", 2, "system", 3, "idle", 4, "iowait", 5, "irq", 6, "softirq", 7, "steal", 8);
+    // the /proc/diskstats fields, by index in the line
+    private static final Map<String, Integer> DISK_FIELDS = fields("reads", 3, "read-sectors", 5, "writes", 7, "write-sectors", 9, "io-ms", 12);
+    private static final List<String> MEMINFO_KEYS = List.of("MemTotal", "MemFree", "MemAvailable", "Buffers", "Cached", "Dirty", "Writeback");
+    private static final int SECTOR_SIZE = 512;
+
+    private final Timer timer = new Timer();
+    private final List<Source> sources = new ArrayList<>();
+    private final TimeSeriesWriter writer;
+
+    public LinuxProcMonitor() throws IOException
+    {
+        this(DEFAULT_FILENAME, DEFAULT_INTERVAL_MS);
+    }
+
+    public LinuxProcMonitor(String filename, int intervalMs) throws IOException
+    {
+        File outputFile = new File(filename);
+        if (!outputFile.getParentFile().isDirectory() && !outputFile.getParentFile().mkdirs())
+            throw new IOException("Cannot create folder for output file " + outputFile.getAbsolutePath());
+
+        sources.add(new CpuSource());
+        sources.add(new NetworkSource());
+        sources.add(new DiskSource());
+        sources.add(new MemorySource());
+        sources.add(new SelfStatusSource());
+        if (Files.isReadable(SYS_CGROUP_CPU_STAT))
+            sources.add(new CgroupCpuSource());
+
+        List<String> columns = new ArrayList<>();
+        for (Source source : sources)
+        {
+            columns.addAll(source.columns());
+        }
+        writer = new TimeSeriesWriter(filename, columns.toArray(new String[0]));
+
+        timer.schedule(new TimerTask()
+        {
+            private long lastNanos = System.nanoTime();
+
+            @Override
+            public void run()
+            {
+                long now = System.nanoTime();
+                double elapsedSeconds = (now - lastNanos) / 1_000_000_000.0;
+                lastNanos = now;
+                try
+                {
+                    List<Number> values = new ArrayList<>();
+                    for (Source source : sources)
+                    {
+                        source.sample(elapsedSeconds, values);
+                    }
+                    writer.write(System.currentTimeMillis(), values.toArray(new Number[0]));
+                }
+                catch (Exception e)
+                {
+                    LOG.warn("Error sampling /proc", e);
+                }
+            }
+        }, intervalMs, intervalMs);
+    }
+
+    @Override
+    public void close()
+    {
+        timer.cancel();
+        writer.close();
+    }
+
+    private static Map<String, Integer> fields(Object... namesAndIndices)
+    {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndIndices.length; i += 2)
+        {
+            result.put((String)namesAndIndices[i], (Integer)namesAndIndices[i + 1]);
+        }
+        return result;
+    }
+
+    private static String[] split(String line)
+    {
+        return line.trim().split("\\s+");
+    }
+
+    /**
+     * A set of columns read from the same file. The columns must not change for the whole
+     * run, so devices and cores are only discovered at construction time.
+     */
+    private abstract static class Source
+    {
+        abstract List<String> columns();
+
+        abstract void sample(double elapsedSeconds, List<Number> values) throws IOException;
+    }
+
+    /**
+     * Computes per second rates of monotonic counters between two samples.
+     * The keys are fixed when the source is built: keys that appear later are ignored
+     * and keys that disappear report no change, so the number of columns never varies.
+     */
+    private abstract static class CountersSource extends Source
+    {
+        private final List<String> keys;
+        private Map<String, long[]> previous;
+
+        CountersSource() throws IOException
+        {
+            previous = read();
+            keys = List.copyOf(previous.keySet());
+        }
+
+        /**
+         * @return the counters of each device, in the same order as the columns.
+         */
+        abstract Map<String, long[]> read() throws IOException;
+
+        /**
+         * @return the keys read when this source was built, in the same order as the deltas.
+         */
+        List<String> keys()
+        {
+            return keys;
+        }
+
+        Map<String, long[]> deltas() throws IOException
+        {
+            Map<String, long[]> current = read();
+            Map<String, long[]> next = new LinkedHashMap<>();
+            Map<String, long[]> result = new LinkedHashMap<>();
+            for (String key : keys)
+            {
+                long[] before = previous.get(key);
+                long[] after = current.getOrDefault(key, before);
+                if (after.length != before.length)
+                    after = before;
+                long[] delta = new long[before.length];
+                for (int i = 0; i < delta.length; i++)
+                {
+                    // the counters of a device that was removed then added back start over
+                    delta[i] = Math.max(0L, after[i] - before[i]);
+                }
+                next.put(key, after);
+                result.put(key, delta);
+            }
+            previous = next;
+            return result;
+        }
+    }
+
+    private static class CpuSource extends CountersSource
+    {
+        CpuSource() throws IOException
+        {
+        }
+
+        @Override
+        Map<String, long[]> read() throws IOException
+        {
+            Map<String, long[]> result = new LinkedHashMap<>();
+            for (String line : Files.readAllLines(PROC_STAT))
+            {
+                if (line.startsWith("cpu"))
+                {
+                    String[] fields = split(line);
+                    long[] times = new long[fields.length - 1];
+                    for (int i = 0; i < times.length; i++)
+                    {
+                        times[i] = Long.parseLong(fields[i + 1]);
+                    }
+                    result.put(fields[0], times);
+                }
+                else if (line.startsWith("ctxt") || line.startsWith("intr"))
+                {
+                    String[] fields = split(line);
+                    result.put(fields[0], new long[]{Long.parseLong(fields[1])});
+                }
+            }
+            return result;
+        }
+
+        @Override
+        List<String> columns()
+        {
+            List<String> result = new ArrayList<>();
+            for (String key : keys())
+            {
+                if (key.startsWith("cpu"))
+                    CPU_FIELDS.keySet().forEach(field -> result.add(key + "." + field + "-pct"));
+                else
+                    result.add(key + "-per-sec");
+            }
+            return result;
+        }
+
+        @Override
+        void sample(double elapsedSeconds, List<Number> values) throws IOException
+        {
+            for (Map.Entry<String, long[]> entry : deltas().entrySet())
+            {
+                long[] delta = entry.getValue();
+                if (entry.getKey().startsWith("cpu"))
+                {
+                    long total = 0L;
+                    for (long time : delta)
+                    {
+                        total += time;
+                    }
+                    // guest times are already accounted in user and nice
+                    if (delta.length > 8)
+                        total -= delta[8];
+                    if (delta.length > 9)
+                        total -= delta[9];
+                    for (int idx : CPU_FIELDS.values())
+                    {
+                        values.add(total <= 0L ? 0.0 : Math.round(delta[idx - 1] * 10000.0 / total) / 100.0);
+                    }
+                }
+                else
+                {
+                    values.add(Math.round(delta[0] / elapsedSeconds));
+                }
+            }
+        }
+    }
+
+    private static class NetworkSource extends CountersSource
+    {
+        // rx bytes, rx packets, rx drops, tx bytes, tx packets, tx drops
+        private static final int[] FIELDS = {0, 1, 3, 8, 9, 11};
+        private static final String[] NAMES = {"rx-bytes", "rx-packets", "rx-drops", "tx-bytes", "tx-packets", "tx-drops"};
+
+        NetworkSource() throws IOException
+        {
+        }
+
+        @Override
+        Map<String, long[]> read() throws IOException
+        {
+            Map<String, long[]> result = new LinkedHashMap<>();
+            for (String line : Files.readAllLines(PROC_NET_DEV))
+            {
+                int idx = line.indexOf(':');
+                if (idx < 0)
+                    continue;
+                String iface = line.substring(0, idx).trim();
+                String[] fields = split(line.substring(idx + 1));
+                long[] counters = new long[FIELDS.length];
+                for (int i = 0; i < FIELDS.length; i++)
+                {
+                    counters[i] = Long.parseLong(fields[FIELDS[i]]);
+                }
+                result.put(iface, counters);
+            }
+            return result;
+        }
+
+        @Override
+        List<String> columns()
+        {
+            List<String> result = new ArrayList<>();
+            for (String iface : keys())
+            {
+                for (String name : NAMES)
+                {
+                    result.add("net." + iface + "." + name + "-per-sec");
+                }
+            }
+            return result;
+        }
+
+        @Override
+        void sample(double elapsedSeconds, List<Number> values) throws IOException
+        {
+            for (long[] delta : deltas().values())
+            {
+                for (long value : delta)
+                {
+                    values.add(Math.round(value / elapsedSeconds));
+                }
+            }
+        }
+    }
+
+    private static class DiskSource extends CountersSource
+    {
+        DiskSource() throws IOException
+        {
+        }
+
+        @Override
+        Map<String, long[]> read() throws IOException
+        {
+            Map<String, long[]> result = new LinkedHashMap<>();
+            for (String line : Files.readAllLines(PROC_DISKSTATS))
+            {
+                String[] fields = split(line);
+                String device = fields[2];
+                // only keep whole physical devices, not partitions, loop or ram devices
+                if (device.startsWith("loop") || device.startsWith("ram") || !Files.isDirectory(SYS_BLOCK.resolve(device).resolve("device")))
+                    continue;
+                long[] counters = new long[DISK_FIELDS.size()];
+                int i = 0;
+                for (int idx : DISK_FIELDS.values())
+                {
+                    counters[i++] = Long.parseLong(fields[idx]);
+                }
+                result.put(device, counters);
+            }
+            return result;
+        }
+
+        @Override
+        List<String> columns()
+        {
+            List<String> result = new ArrayList<>();
+            for (String device : keys())
+            {
+                result.add("disk." + device + ".reads-per-sec");
+                result.add("disk." + device + ".read-bytes-per-sec");
+                result.add("disk." + device + ".writes-per-sec");
+                result.add("disk." + device + ".write-bytes-per-sec");
+                result.add("disk." + device + ".util-pct");
+            }
+            return result;
+        }
+
+        @Override
+        void sample(double elapsedSeconds, List<Number> values) throws IOException
+        {
+            for (long[] delta : deltas().values())
+            {
+                values.add(Math.round(delta[0] / elapsedSeconds));
+                values.add(Math.round(delta[1] * SECTOR_SIZE / elapsedSeconds));
+                values.add(Math.round(delta[2] / elapsedSeconds));
+                values.add(Math.round(delta[3] * SECTOR_SIZE / elapsedSeconds));
+                values.add(Math.min(100.0, Math.round(delta[4] / elapsedSeconds / 10.0 * 100.0) / 100.0));
+            }
+        }
+    }
+
+    private static class MemorySource extends Source
+    {
+        @Override
+        List<String> columns()
+        {
+            return MEMINFO_KEYS.stream().map(key -> "mem." + key + "-bytes").toList();
+        }
+
+        @Override
+        void sample(double elapsedSeconds, List<Number> values) throws IOException
+        {
+            Map<String, Long> meminfo = new LinkedHashMap<>();
+            for (String line : Files.readAllLines(PROC_MEMINFO))
+            {
+                String[] fields = split(line);
+                String key = fields[0].substring(0, fields[0].length() - 1);
+                if (MEMINFO_KEYS.contains(key))
+                    meminfo.put(key, Long.parseLong(fields[1]) * 1024L);
+            }
+            for (String key : MEMINFO_KEYS)
+            {
+                values.add(meminfo.getOrDefault(key, -1L));
+            }
+        }
+    }
+
+    private static class SelfStatusSource extends Source
+    {
+        private long lastVoluntary = -1L;
+        private long lastNonVoluntary = -1L;
+
+        @Override
+        List<String> columns()
+        {
+            return List.of("self.rss-bytes", "self.threads", "self.voluntary-ctxt-switches-per-sec", "self.nonvoluntary-ctxt-switches-per-sec");
+        }
+
+        @Override
+        void sample(double elapsedSeconds, List<Number> values) throws IOException
+        {
+            long rss = -1L;
+            long threads = -1L;
+            long voluntary = 0L;
+            long nonVoluntary = 0L;
+            for (String line : Files.readAllLines(PROC_SELF_STATUS))
+            {
+                String[] fields = split(line);
+                switch (fields[0])
+                {
+                    case "VmRSS:" -> rss = Long.parseLong(fields[1]) * 1024L;
+                    case "Threads:" -> threads = Long.parseLong(fields[1]);
+                    case "voluntary_ctxt_switches:" -> voluntary = Long.parseLong(fields[1]);
+                    case "nonvoluntary_ctxt_switches:" -> nonVoluntary = Long.parseLong(fields[1]);
+                    default ->
+                    {
+                    }
+                }
+            }
+            values.add(rss);
+            values.add(threads);
+            values.add(lastVoluntary < 0L ? 0L : Math.round((voluntary - lastVoluntary) / elapsedSeconds));
+            values.add(lastNonVoluntary < 0L ? 0L : Math.round((nonVoluntary - lastNonVoluntary) / elapsedSeconds));
+            lastVoluntary = voluntary;
+            lastNonVoluntary = nonVoluntary;
+        }
+    }
+
+    private static class CgroupCpuSource extends CountersSource
+    {
+        CgroupCpuSource() throws IOException
+        {
+        }
+
+        @Override
+        Map<String, long[]> read() throws IOException
+        {
+            long usage = 0L;
+            long throttledPeriods = 0L;
+            long throttledUsec = 0L;
+            for (String line : Files.readAllLines(SYS_CGROUP_CPU_STAT))
+            {
+                String[] fields = split(line);
+                switch (fields[0])
+                {
+                    case "usage_usec" -> usage = Long.parseLong(fields[1]);
+                    case "nr_throttled" -> throttledPeriods = Long.parseLong(fields[1]);
+                    case "throttled_usec" -> throttledUsec = Long.parseLong(fields[1]);
+                    default ->
+                    {
+                    }
+                }
+            }
+            return Map.of("cgroup", new long[]{usage, throttledPeriods, throttledUsec});
+        }
+
+        @Override
+        List<String> columns()
+        {
+            return List.of("cgroup.usage-usec-per-sec", "cgroup.throttled-periods-per-sec", "cgroup.throttled-usec-per-sec");
+        }
+
+        @Override
+        void sample(double elapsedSeconds, List<Number> values) throws IOException
+        {
+            for (long value : deltas().get("cgroup"))
+            {
+                values.add(Math.round(value / elapsedSeconds));
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.eclipse.jetty.perf.results;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares the summaries of runs of the same workload in different environments, e.g.: core, EE9 and EE10,
+ * printing a table per node array with the value of each metric in each environment and its delta, in percent,
+ * relative to the first environment.
+ */
+public class ComparisonReport
+{
+    /**
+     * @param summaries the summaries by environment name, the first one being the reference the others are compared to.
+     */
+    public static void print(Map<String, RunSummary> summaries, PrintStream ps)
+    {
+        if (summaries.isEmpty())
+            return;
+        List<String> environments = new ArrayList<>(summaries.keySet());
+        RunSummary reference = summaries.get(environments.get(0));
+
+        Set<String> nodeArrayIds = new LinkedHashSet<>();
+        summaries.values().forEach(summary -> nodeArrayIds.addAll(summary.getNodeArrays().keySet()));
+        for (String nodeArrayId : nodeArrayIds)
+        {
+            ps.println(nodeArrayId + ":");
+            StringBuilder header = new StringBuilder(String.format(Locale.ROOT, "  %-18s", "metric"));
+            for (int i = 0; i < environments.size(); i++)
+            {
+                header.append(String.format(Locale.ROOT, " %16s", environments.get(i)));
+                if (i > 0)
+                    header.append(String.format(Locale.ROOT, " %9s", "delta"));
+            }
+            ps.println(header);
+
+            RunSummary.NodeArraySummary referenceArray = reference.getNodeArrays().get(nodeArrayId);
+            for (RunSummary.Metric metric : RunSummary.Metric.values())
+            {
+                Double referenceValue = referenceArray == null ? null : referenceArray.getMetric(metric);
+                StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "  %-18s", metric.getKey()));
+                boolean measured = false;
+                for (int i = 0; i < environments.size(); i++)
+                {
+                    RunSummary.NodeArraySummary nodeArray = summaries.get(environments.get(i)).getNodeArrays().get(nodeArrayId);
+                    Double value = nodeArray == null ? null : nodeArray.getMetric(metric);
+                    measured |= value != null;
+                    line.append(value == null ? String.format(Locale.ROOT, " %16s", "-") : String.format(Locale.ROOT, " %16.2f", value));
+                    if (i > 0)
+                    {
+                        if (value == null || referenceValue == null || referenceValue == 0.0)
+                            line.append(String.format(Locale.ROOT, " %9s", "-"));
+                        else
+                            line.append(String.format(Locale.ROOT, " %+8.2f%%", (value - referenceValue) * 100.0 / referenceValue));
+                    }
+                }
+                if (measured)
+                    ps.println(line);
+            }
+        }
+    }
+}
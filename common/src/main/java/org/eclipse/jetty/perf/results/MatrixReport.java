@@ -0,0 +1,75 @@
+package org.eclipse.jetty.perf.results;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Summarizes the runs of the same test across a matrix of configurations, e.g.: server JVMs,
+ * with a line per configuration and a column per key metric; the best value of each column is starred.
+ */
+public class MatrixReport
+{
+    private static final List<Column> COLUMNS = List.of(
+        new Column("server", RunSummary.Metric.THROUGHPUT, "srv-tput/s", 1.0),
+        new Column("server", RunSummary.Metric.P99, "srv-p99-us", 1000.0),
+        new Column("server", RunSummary.Metric.P999, "srv-p999-us", 1000.0),
+        new Column("probe", RunSummary.Metric.P99, "probe-p99-us", 1000.0),
+        new Column("server", RunSummary.Metric.CPU, "srv-cpu-%", 1.0),
+        new Column("server", RunSummary.Metric.GC_PAUSE_TOTAL, "gc-pause-ms", 1.0),
+        new Column("server", RunSummary.Metric.GC_PAUSE_MAX, "gc-max-ms", 1.0),
+        new Column("server", RunSummary.Metric.CPU_PER_REQUEST, "cpu-ns/req", 1.0),
+        new Column("server", RunSummary.Metric.ALLOCATION_PER_REQUEST, "alloc-b/req", 1.0)
+    );
+
+    /**
+     * @param summaries the summaries by configuration name, null for the configurations that could not run.
+     */
+    public static void print(Map<String, RunSummary> summaries, PrintStream ps)
+    {
+        int nameWidth = summaries.keySet().stream().mapToInt(String::length).max().orElse(0);
+        StringBuilder header = new StringBuilder(String.format(Locale.ROOT, "  %-" + nameWidth + "s", "configuration"));
+        for (Column column : COLUMNS)
+        {
+            header.append(String.format(Locale.ROOT, " %14s", column.header()));
+        }
+        ps.println(header);
+
+        for (Map.Entry<String, RunSummary> entry : summaries.entrySet())
+        {
+            StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "  %-" + nameWidth + "s", entry.getKey()));
+            if (entry.getValue() == null)
+            {
+                ps.println(line.append(" failed to run"));
+                continue;
+            }
+            for (Column column : COLUMNS)
+            {
+                Double value = column.valueOf(entry.getValue());
+                if (value == null)
+                {
+                    line.append(String.format(Locale.ROOT, " %14s", "-"));
+                    continue;
+                }
+                boolean best = summaries.values().stream()
+                    .map(column::valueOf)
+                    .filter(other -> other != null)
+                    .allMatch(other -> column.metric().isHigherBetter() ? value >= other : value <= other);
+                line.append(String.format(Locale.ROOT, " %13.1f%s", value / column.scale(), best ? "*" : " "));
+            }
+            ps.println(line);
+        }
+    }
+
+    private record Column(String nodeArrayId, RunSummary.Metric metric, String header, double scale)
+    {
+        private Double valueOf(RunSummary summary)
+        {
+            if (summary == null)
+                return null;
+            RunSummary.NodeArraySummary nodeArray = summary.getNodeArrays().get(nodeArrayId);
+            return nodeArray == null ? null : nodeArray.getMetric(metric);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.eclipse.jetty.perf.results;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares a run with a rolling baseline made of the previous runs of the same test,
+ * and flags the metrics that changed for the worse both significantly (in standard deviations
+ * of the baseline) and meaningfully (in percent of the baseline mean).
+ */
+public class RegressionDetector
+{
+    public static final int DEFAULT_BASELINE_SIZE = 10;
+    public static final int MIN_BASELINE_SIZE = 3;
+    public static final double DEFAULT_MIN_CHANGE_PCT = 5.0;
+    public static final double DEFAULT_MIN_Z_SCORE = 3.0;
+
+    private final int baselineSize;
+    private final double minChangePct;
+    private final double minZScore;
+
+    public RegressionDetector()
+    {
+        this(DEFAULT_BASELINE_SIZE, DEFAULT_MIN_CHANGE_PCT, DEFAULT_MIN_Z_SCORE);
+    }
+
+    public RegressionDetector(int baselineSize, double minChangePct, double minZScore)
+    {
+        this.baselineSize = baselineSize;
+        this.minChangePct = minChangePct;
+        this.minZScore = minZScore;
+    }
+
+    /**
+     * @param current the run to check.
+     * @param history the previous runs, oldest first; only the last ones are used as the baseline.
+     * @return a finding per metric of each node array that could be compared.
+     */
+    public List<Finding> detect(RunSummary current, List<RunSummary> history)
+    {
+        List<RunSummary> baseline = history.subList(Math.max(0, history.size() - baselineSize), history.size());
+        List<Finding> findings = new ArrayList<>();
+        for (Map.Entry<String, RunSummary.NodeArraySummary> entry : current.getNodeArrays().entrySet())
+        {
+            String nodeArrayId = entry.getKey();
+            for (RunSummary.Metric metric : RunSummary.Metric.values())
+            {
+                Double value = entry.getValue().getMetric(metric);
+                if (value == null)
+                    continue;
+                double[] baselineValues = baseline.stream()
+                    .map(summary -> summary.getNodeArrays().get(nodeArrayId))
+                    .filter(summary -> summary != null && summary.getMetric(metric) != null)
+                    .mapToDouble(summary -> summary.getMetric(metric))
+                    .toArray();
+                if (baselineValues.length < MIN_BASELINE_SIZE)
+                    continue;
+
+                double mean = 0.0;
+                for (double v : baselineValues)
+                {
+                    mean += v;
+                }
+                mean /= baselineValues.length;
+                double variance = 0.0;
+                for (double v : baselineValues)
+                {
+                    variance += (v - mean) * (v - mean);
+                }
+                double stdDev = Math.sqrt(variance / (baselineValues.length - 1));
+
+                double changePct = mean == 0.0 ? 0.0 : (value - mean) * 100.0 / mean;
+                double zScore = stdDev == 0.0 ? (value == mean ? 0.0 : Math.copySign(Double.POSITIVE_INFINITY, value - mean)) : (value - mean) / stdDev;
+                // a regression is a change for the worse, e.g.: lower throughput or higher latency
+                double worseningPct = metric.isHigherBetter() ? -changePct : changePct;
+                double worseningZScore = metric.isHigherBetter() ? -zScore : zScore;
+                boolean regression = worseningPct >= minChangePct && worseningZScore >= minZScore;
+                findings.add(new Finding(nodeArrayId, metric, baselineValues.length, mean, stdDev, value, changePct, zScore, regression));
+            }
+        }
+        return findings;
+    }
+
+    public static void print(List<Finding> findings, PrintStream ps)
+    {
+        if (findings.isEmpty())
+        {
+            ps.println("  not enough previous runs to compare with");
+            return;
+        }
+        for (Finding finding : findings)
+        {
+            ps.println("  " + finding);
+        }
+    }
+
+    /**
+     * Prints the trend of a test's runs and compares the last one with the previous ones.
+     * Arguments: {@code <test name> <params> [<store root>]}.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: RegressionDetector <test name> <params> [<store root>]");
+            System.exit(2);
+        }
+        ResultsStore store = args.length > 2 ? new ResultsStore(Path.of(args[2])) : new ResultsStore();
+        List<RunSummary> history = store.history(args[0], args[1]);
+        if (history.isEmpty())
+        {
+            System.err.println("No run found for " + args[0] + " " + args[1]);
+            System.exit(2);
+        }
+
+        System.out.println("Trend of " + args[0] + " " + args[1] + ":");
+        for (RunSummary summary : history)
+        {
+            StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "  %s jetty=%s jvm=%s",
+                Instant.ofEpochMilli(summary.getTimestamp()), summary.getVersions().get("jetty.version"), summary.getVersions().get("java.vm.version")));
+            summary.getNodeArrays().forEach((id, nodeArraySummary) ->
+            {
+                Double throughput = nodeArraySummary.getMetric(RunSummary.Metric.THROUGHPUT);
+                Double p99 = nodeArraySummary.getMetric(RunSummary.Metric.P99);
+                if (throughput != null && p99 != null)
+                    line.append(String.format(Locale.ROOT, " %s[tput=%.0f/s p99=%.0fus]", id, throughput, p99 / 1000.0));
+            });
+            System.out.println(line);
+        }
+
+        RunSummary last = history.get(history.size() - 1);
+        List<Finding> findings = new RegressionDetector().detect(last, history.subList(0, history.size() - 1));
+        System.out.println("Last run vs rolling baseline:");
+        print(findings, System.out);
+        System.exit(findings.stream().anyMatch(Finding::regression) ? 1 : 0);
+    }
+
+    public record Finding(String nodeArrayId, RunSummary.Metric metric, int baselineSize, double baselineMean, double baselineStdDev, double value, double changePct, double zScore, boolean regression)
+    {
+        @Override
+        public String toString()
+        {
+            return String.format(Locale.ROOT, "%s %s %s: %.2f vs baseline %.2f +/- %.2f (%d runs), %+.2f%% z=%.2f",
+                regression ? "REGRESSION" : "ok", nodeArrayId, metric.getKey(), value, baselineMean, baselineStdDev, baselineSize, changePct, zScore);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.eclipse.jetty.perf.results;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.eclipse.jetty.util.ajax.JSON;
+
+/**
+ * A file-based store of run summaries, kept next to the reports so it is archived with them.
+ * Set {@code -Dtest.results.store} to a folder outside of {@code target} to keep the history across clean builds.
+ * Summaries are indexed by folders: {@code <root>/<test name>/<params>/<timestamp>.json}.
+ */
+public class ResultsStore
+{
+    private static final String ROOT = System.getProperty("test.results.store", Path.of("target", "reports", "results").toString());
+
+    private final Path root;
+
+    public ResultsStore()
+    {
+        this(Path.of(ROOT));
+    }
+
+    public ResultsStore(Path root)
+    {
+        this.root = root;
+    }
+
+    public void save(RunSummary summary) throws IOException
+    {
+        Path folder = root.resolve(summary.getTestName()).resolve(summary.getParams());
+        Files.createDirectories(folder);
+        String json = new JSON().toJSON(summary.toMap());
+        Files.writeString(folder.resolve(summary.getTimestamp() + ".json"), json, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the summaries of the previous runs of the given test, oldest first.
+     */
+    @SuppressWarnings("unchecked")
+    public List<RunSummary> history(String testName, String params) throws IOException
+    {
+        Path folder = root.resolve(testName).resolve(params);
+        if (!Files.isDirectory(folder))
+            return List.of();
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(folder))
+        {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(".json")).toList();
+        }
+        List<RunSummary> result = new ArrayList<>();
+        for (Path file : files)
+        {
+            Map<String, Object> map = (Map<String, Object>)new JSON().fromJSON(Files.readString(file, StandardCharsets.UTF_8));
+            result.add(RunSummary.fromMap(map));
+        }
+        result.sort(Comparator.comparingLong(RunSummary::getTimestamp));
+        return result;
+    }
+}
@@ -0,0 +1,382 @@
+package org.eclipse.jetty.perf.results;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.eclipse.jetty.perf.monitoring.gc.GcEvent;
+import org.eclipse.jetty.perf.monitoring.gc.GcLogParser;
+import org.eclipse.jetty.perf.monitoring.jetty.RequestCostMonitor;
+import org.eclipse.jetty.perf.monitoring.os.LinuxProcMonitor;
+import org.eclipse.jetty.perf.test.ClusteredPerfTest;
+import org.eclipse.jetty.perf.util.TimeSeries;
+
+/**
+ * The summary of a run, computed from the files downloaded into its report folder.
+ */
+public class RunSummary
+{
+    public enum Metric
+    {
+        THROUGHPUT("throughput", true),
+        P50("p50-ns", false),
+        P99("p99-ns", false),
+        P999("p999-ns", false),
+        CPU("cpu-pct", false),
+        GC_PAUSE_TOTAL("gc-pause-total-ms", false),
+        GC_PAUSE_MAX("gc-pause-max-ms", false),
+        ALLOCATION_RATE("alloc-mb-per-s", false),
+        CPU_PER_REQUEST("cpu-ns-per-request", false),
+        ALLOCATION_PER_REQUEST("alloc-bytes-per-request", false),
+        ;
+
+        private final String key;
+        private final boolean higherIsBetter;
+
+        Metric(String key, boolean higherIsBetter)
+        {
+            this.key = key;
+            this.higherIsBetter = higherIsBetter;
+        }
+
+        public String getKey()
+        {
+            return key;
+        }
+
+        public boolean isHigherBetter()
+        {
+            return higherIsBetter;
+        }
+    }
+
+    private final String testName;
+    private final String params;
+    private final long timestamp;
+    private final Map<String, String> versions;
+    private final Map<String, NodeArraySummary> nodeArrays;
+    private final boolean succeeded;
+
+    public RunSummary(String testName, String params, long timestamp, Map<String, String> versions, Map<String, NodeArraySummary> nodeArrays)
+    {
+        this(testName, params, timestamp, versions, nodeArrays, true);
+    }
+
+    private RunSummary(String testName, String params, long timestamp, Map<String, String> versions, Map<String, NodeArraySummary> nodeArrays, boolean succeeded)
+    {
+        this.testName = testName;
+        this.params = params;
+        this.timestamp = timestamp;
+        this.versions = versions;
+        this.nodeArrays = nodeArrays;
+        this.succeeded = succeeded;
+    }
+
+    public static RunSummary fromReport(String testName, String params, Path reportRootPath, Collection<String> nodeArrayIds) throws IOException
+    {
+        Map<String, String> versions = new LinkedHashMap<>();
+        Map<String, NodeArraySummary> nodeArrays = new LinkedHashMap<>();
+        for (String nodeArrayId : nodeArrayIds)
+        {
+            List<Path> nodeFolders;
+            try (Stream<Path> stream = Files.list(reportRootPath.resolve(nodeArrayId)))
+            {
+                nodeFolders = stream.filter(Files::isDirectory).sorted().toList();
+            }
+            nodeArrays.put(nodeArrayId, NodeArraySummary.fromNodeFolders(nodeFolders));
+
+            // the versions of the first node of the first array (i.e.: the server) identify the run
+            if (versions.isEmpty() && !nodeFolders.isEmpty())
+            {
+                Path nodeInfo = nodeFolders.get(0).resolve(ClusteredPerfTest.NODE_INFO_FILENAME);
+                if (Files.isReadable(nodeInfo))
+                {
+                    Properties properties = new Properties();
+                    try (InputStream is = Files.newInputStream(nodeInfo))
+                    {
+                        properties.load(is);
+                    }
+                    for (String key : List.of("jetty.version", "java.vm.vendor", "java.vm.version", "jvm.arguments"))
+                    {
+                        versions.put(key, properties.getProperty(key, ""));
+                    }
+                }
+            }
+        }
+        return new RunSummary(testName, params, System.currentTimeMillis(), versions, nodeArrays);
+    }
+
+    public String getTestName()
+    {
+        return testName;
+    }
+
+    public String getParams()
+    {
+        return params;
+    }
+
+    public long getTimestamp()
+    {
+        return timestamp;
+    }
+
+    public Map<String, String> getVersions()
+    {
+        return versions;
+    }
+
+    public Map<String, NodeArraySummary> getNodeArrays()
+    {
+        return nodeArrays;
+    }
+
+    /**
+     * @return true if the run passed its assertions; only such runs are stored, so stored summaries always did.
+     */
+    public boolean isSucceeded()
+    {
+        return succeeded;
+    }
+
+    /**
+     * @return a copy of this summary recording the outcome of the run's assertions.
+     */
+    public RunSummary withSucceeded(boolean succeeded)
+    {
+        return new RunSummary(testName, params, timestamp, versions, nodeArrays, succeeded);
+    }
+
+    Map<String, Object> toMap()
+    {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("testName", testName);
+        result.put("params", params);
+        result.put("timestamp", timestamp);
+        result.put("versions", versions);
+        Map<String, Object> arrays = new LinkedHashMap<>();
+        nodeArrays.forEach((id, summary) -> arrays.put(id, summary.toMap()));
+        result.put("nodeArrays", arrays);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    static RunSummary fromMap(Map<String, Object> map)
+    {
+        Map<String, String> versions = new LinkedHashMap<>();
+        ((Map<String, Object>)map.get("versions")).forEach((k, v) -> versions.put(k, String.valueOf(v)));
+        Map<String, NodeArraySummary> nodeArrays = new LinkedHashMap<>();
+        ((Map<String, Object>)map.get("nodeArrays")).forEach((k, v) -> nodeArrays.put(k, NodeArraySummary.fromMap((Map<String, Object>)v)));
+        return new RunSummary((String)map.get("testName"), (String)map.get("params"), ((Number)map.get("timestamp")).longValue(), versions, nodeArrays);
+    }
+
+    public static class NodeArraySummary
+    {
+        private final Map<Metric, Double> metrics;
+        private final long[] intervalP99s;
+
+        public NodeArraySummary(Map<Metric, Double> metrics, long[] intervalP99s)
+        {
+            this.metrics = metrics;
+            this.intervalP99s = intervalP99s;
+        }
+
+        /**
+         * @return the value of the metric, or null if it was not measured for this node array.
+         */
+        public Double getMetric(Metric metric)
+        {
+            return metrics.get(metric);
+        }
+
+        /**
+         * @return the P99 of each latency recording interval of all the nodes, in ns.
+         */
+        public long[] getIntervalP99s()
+        {
+            return intervalP99s;
+        }
+
+        static NodeArraySummary fromNodeFolders(List<Path> nodeFolders) throws IOException
+        {
+            Map<Metric, Double> metrics = new LinkedHashMap<>();
+            List<Long> intervalP99s = new ArrayList<>();
+            Histogram total = new Histogram(3);
+            long durationMs = 0L;
+            double cpuSum = 0.0;
+            int cpuNodes = 0;
+            double gcPauseTotal = 0.0;
+            double gcPauseMax = 0.0;
+            boolean gcLogged = false;
+            double allocationRateSum = 0.0;
+            int allocationNodes = 0;
+            double costRequests = 0.0;
+            double costCpu = 0.0;
+            double costAllocated = 0.0;
+
+            for (Path nodeFolder : nodeFolders)
+            {
+                File hlogFile = nodeFolder.resolve("perf.hlog").toFile();
+                if (hlogFile.isFile())
+                {
+                    long start = Long.MAX_VALUE;
+                    long end = Long.MIN_VALUE;
+                    try (HistogramLogReader reader = new HistogramLogReader(hlogFile))
+                    {
+                        while (reader.hasNext())
+                        {
+                            AbstractHistogram histogram = (AbstractHistogram)reader.nextIntervalHistogram();
+                            if (histogram == null)
+                                break;
+                            total.add(histogram);
+                            intervalP99s.add(histogram.getValueAtPercentile(99.0));
+                            start = Math.min(start, histogram.getStartTimeStamp());
+                            end = Math.max(end, histogram.getEndTimeStamp());
+                        }
+                    }
+                    // all nodes of an array run concurrently
+                    if (end > start)
+                        durationMs = Math.max(durationMs, end - start);
+                }
+
+                Path procFile = nodeFolder.resolve(LinuxProcMonitor.DEFAULT_FILENAME);
+                if (Files.isReadable(procFile))
+                {
+                    TimeSeries proc = TimeSeries.read(procFile);
+                    int idleIdx = proc.columnIndex("cpu.idle-pct");
+                    int iowaitIdx = proc.columnIndex("cpu.iowait-pct");
+                    if (idleIdx >= 0 && iowaitIdx >= 0 && !proc.getRows().isEmpty())
+                    {
+                        cpuSum += proc.getRows().stream().mapToDouble(row -> 100.0 - row.values()[idleIdx] - row.values()[iowaitIdx]).average().orElse(0.0);
+                        cpuNodes++;
+                    }
+                }
+
+                Path requestCostFile = nodeFolder.resolve(RequestCostMonitor.DEFAULT_FILENAME);
+                if (Files.isReadable(requestCostFile))
+                {
+                    TimeSeries requestCost = TimeSeries.read(requestCostFile);
+                    int requestsIdx = requestCost.columnIndex(RequestCostMonitor.REQUESTS_COLUMN);
+                    int cpuIdx = requestCost.columnIndex(RequestCostMonitor.CPU_COLUMN);
+                    int allocatedIdx = requestCost.columnIndex(RequestCostMonitor.ALLOCATED_COLUMN);
+                    if (requestsIdx >= 0 && cpuIdx >= 0 && allocatedIdx >= 0)
+                    {
+                        for (TimeSeries.Row row : requestCost.getRows())
+                        {
+                            costRequests += row.values()[requestsIdx];
+                            costCpu += row.values()[cpuIdx];
+                            costAllocated += row.values()[allocatedIdx];
+                        }
+                    }
+                }
+
+                Path gcLogFile = nodeFolder.resolve(GcLogParser.DEFAULT_FILENAME);
+                if (Files.isReadable(gcLogFile))
+                {
+                    gcLogged = true;
+                    List<GcEvent> gcEvents = GcLogParser.parse(gcLogFile);
+                    for (GcEvent event : gcEvents)
+                    {
+                        if (!event.isLatencyImpacting())
+                            continue;
+                        gcPauseTotal += event.durationMs();
+                        gcPauseMax = Math.max(gcPauseMax, event.durationMs());
+                    }
+                    double allocationRate = allocationRate(gcEvents);
+                    if (allocationRate >= 0.0)
+                    {
+                        allocationRateSum += allocationRate;
+                        allocationNodes++;
+                    }
+                }
+            }
+
+            if (total.getTotalCount() > 0L && durationMs > 0L)
+            {
+                metrics.put(Metric.THROUGHPUT, total.getTotalCount() * 1000.0 / durationMs);
+                metrics.put(Metric.P50, (double)total.getValueAtPercentile(50.0));
+                metrics.put(Metric.P99, (double)total.getValueAtPercentile(99.0));
+                metrics.put(Metric.P999, (double)total.getValueAtPercentile(99.9));
+            }
+            if (cpuNodes > 0)
+                metrics.put(Metric.CPU, cpuSum / cpuNodes);
+            if (gcLogged)
+            {
+                metrics.put(Metric.GC_PAUSE_TOTAL, gcPauseTotal);
+                metrics.put(Metric.GC_PAUSE_MAX, gcPauseMax);
+            }
+            if (allocationNodes > 0)
+                metrics.put(Metric.ALLOCATION_RATE, allocationRateSum / allocationNodes);
+            if (costRequests > 0.0)
+            {
+                metrics.put(Metric.CPU_PER_REQUEST, costCpu / costRequests);
+                metrics.put(Metric.ALLOCATION_PER_REQUEST, costAllocated / costRequests);
+            }
+            return new NodeArraySummary(metrics, intervalP99s.stream().mapToLong(Long::longValue).toArray());
+        }
+
+        /**
+         * @return the rate at which the heap grew between the collections, in MB/s, or -1 if there were not at least two collections.
+         */
+        private static double allocationRate(List<GcEvent> gcEvents)
+        {
+            long allocated = 0L;
+            long previousHeapAfter = -1L;
+            long start = -1L;
+            long end = -1L;
+            for (GcEvent event : gcEvents)
+            {
+                if (event.heapBeforeBytes() < 0L || event.heapAfterBytes() < 0L)
+                    continue;
+                // what was allocated since the previous collection is what the heap grew by until this one
+                if (previousHeapAfter >= 0L)
+                    allocated += Math.max(0L, event.heapBeforeBytes() - previousHeapAfter);
+                else
+                    start = event.timestamp();
+                previousHeapAfter = event.heapAfterBytes();
+                end = event.timestamp();
+            }
+            if (end <= start)
+                return -1.0;
+            return allocated / (1024.0 * 1024.0) * 1000.0 / (end - start);
+        }
+
+        Map<String, Object> toMap()
+        {
+            Map<String, Object> result = new LinkedHashMap<>();
+            metrics.forEach((metric, value) -> result.put(metric.getKey(), value));
+            result.put("interval-p99s-ns", intervalP99s);
+            return result;
+        }
+
+        static NodeArraySummary fromMap(Map<String, Object> map)
+        {
+            Map<Metric, Double> metrics = new LinkedHashMap<>();
+            for (Metric metric : Metric.values())
+            {
+                Object value = map.get(metric.getKey());
+                if (value instanceof Number number)
+                    metrics.put(metric, number.doubleValue());
+            }
+            Object[] values = (Object[])map.getOrDefault("interval-p99s-ns", new Object[0]);
+            long[] intervalP99s = new long[values.length];
+            for (int i = 0; i < values.length; i++)
+            {
+                intervalP99s[i] = ((Number)values[i]).longValue();
+            }
+            return new NodeArraySummary(metrics, intervalP99s);
+        }
+    }
+}
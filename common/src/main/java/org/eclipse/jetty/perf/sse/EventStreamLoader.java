@@ -0,0 +1,194 @@
+package org.eclipse.jetty.perf.sse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpClientTransport;
+import org.eclipse.jetty.client.Request;
+import org.eclipse.jetty.client.transport.HttpClientTransportOverHTTP;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.transport.HttpClientTransportOverHTTP2;
+import org.eclipse.jetty.io.ClientConnector;
+import org.eclipse.jetty.perf.histogram.loader.ResponseStatusListener;
+import org.eclipse.jetty.perf.test.PerfTestParams;
+import org.eclipse.jetty.perf.util.LatencyRecorder;
+import org.eclipse.jetty.perf.util.Recorder;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opens many Server-Sent Events streams and records how late each event arrives compared to the schedule
+ * the server was asked to emit them at. The lateness of an event is measured against the earliest-arriving
+ * event of its stream, so it does not depend on the clocks of the server and loader being in sync.
+ * The streams stay open until recording stops, so that their completion is not recorded as server latency.
+ * The idle streams are only opened by {@link #openIdleStreams()}, for the server to measure its heap in between.
+ * Failures are written to the statuses file, successes are not since a stream never completes while recording.
+ */
+public class EventStreamLoader implements Recorder
+{
+    private static final Logger LOG = LoggerFactory.getLogger(EventStreamLoader.class);
+    public static final String DEFAULT_STATS_FILENAME = "event-streams.properties";
+
+    private final URI serverUri;
+    private final PerfTestParams.HttpVersion version;
+    private final EventStreamSettings settings;
+    private final long intervalMicros;
+    private final LatencyRecorder latencyRecorder;
+    private final ResponseStatusListener statusListener;
+    private final LongAdder events = new LongAdder();
+    private final List<Request> requests = new ArrayList<>();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private HttpClient httpClient;
+    private long recordingEvents;
+    private long recordingStartNanos;
+
+    public EventStreamLoader(URI serverUri, PerfTestParams.HttpVersion version, EventStreamSettings settings, int rate, LatencyRecorder latencyRecorder, ResponseStatusListener statusListener)
+    {
+        this.serverUri = serverUri;
+        this.version = version;
+        this.settings = settings;
+        // the streams share the rate, each of them receives an event every interval
+        this.intervalMicros = Math.max(1L, settings.streams() * TimeUnit.SECONDS.toMicros(1) / rate);
+        this.latencyRecorder = latencyRecorder;
+        this.statusListener = statusListener;
+    }
+
+    public CompletableFuture<Void> begin() throws Exception
+    {
+        ClientConnector clientConnector = new ClientConnector();
+        clientConnector.setSslContextFactory(new SslContextFactory.Client(true));
+        HttpClientTransport transport = version == PerfTestParams.HttpVersion.HTTP2
+            ? new HttpClientTransportOverHTTP2(new HTTP2Client(clientConnector))
+            : new HttpClientTransportOverHTTP(clientConnector);
+        httpClient = new HttpClient(transport);
+        int totalStreams = settings.streams() + settings.idleStreams();
+        // with HTTP/1.1 each stream holds a connection for the whole run
+        httpClient.setMaxConnectionsPerDestination(totalStreams);
+        httpClient.setMaxRequestsQueuedPerDestination(totalStreams);
+        httpClient.setIdleTimeout(0L);
+        httpClient.start();
+
+        openStreams(settings.streams(), intervalMicros);
+        LOG.info("opened {} event streams to {}, each receiving an event every {} us", settings.streams(), serverUri, intervalMicros);
+        return completion;
+    }
+
+    /**
+     * Opens the idle streams on top of the streams opened by {@link #begin()}.
+     */
+    public void openIdleStreams() throws Exception
+    {
+        openStreams(settings.idleStreams(), 0L);
+        LOG.info("opened {} idle event streams to {}", settings.idleStreams(), serverUri);
+    }
+
+    private void openStreams(int count, long intervalMicros) throws InterruptedException
+    {
+        CountDownLatch opened = new CountDownLatch(count);
+        for (int i = 0; i < count; i++)
+        {
+            open(intervalMicros, opened);
+        }
+        if (!opened.await(60, TimeUnit.SECONDS))
+            throw new IllegalStateException("only " + (count - opened.getCount()) + "/" + count + " event streams opened");
+    }
+
+    private void open(long intervalMicros, CountDownLatch opened)
+    {
+        URI uri = serverUri.resolve(EventStreamSettings.PATH + "?" + EventStreamSettings.INTERVAL_PARAMETER + "=" + intervalMicros +
+            "&" + EventStreamSettings.EVENT_SIZE_PARAMETER + "=" + settings.eventSize());
+        long intervalNanos = TimeUnit.MICROSECONDS.toNanos(intervalMicros);
+        int eventSize = settings.eventSize();
+        long[] receivedBytesAndAnchor = {0L, Long.MAX_VALUE};
+        Request request = httpClient.newRequest(uri)
+            .onResponseHeaders(response -> opened.countDown())
+            .onResponseContent((response, content) ->
+            {
+                long now = System.nanoTime();
+                long receivedBytes = receivedBytesAndAnchor[0];
+                long before = receivedBytes / eventSize;
+                receivedBytes += content.remaining();
+                long after = receivedBytes / eventSize;
+                receivedBytesAndAnchor[0] = receivedBytes;
+                // all the events completed by this chunk arrived now
+                for (long sequence = before; sequence < after; sequence++)
+                {
+                    long scheduled = sequence * intervalNanos;
+                    receivedBytesAndAnchor[1] = Math.min(receivedBytesAndAnchor[1], now - scheduled);
+                    latencyRecorder.recordValue(now - receivedBytesAndAnchor[1] - scheduled);
+                    events.increment();
+                }
+            });
+        synchronized (requests)
+        {
+            requests.add(request);
+        }
+        request.send(result ->
+        {
+            if (result.isFailed())
+                statusListener.recordStatus(0, result.getFailure());
+            else
+                statusListener.recordStatus(result.getResponse().getStatus(), null);
+        });
+    }
+
+    @Override
+    public void startRecording()
+    {
+        recordingEvents = events.sum();
+        recordingStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void stopRecording()
+    {
+        long received = events.sum() - recordingEvents;
+        long elapsed = System.nanoTime() - recordingStartNanos;
+        Properties properties = new Properties();
+        properties.setProperty("settings", settings.toString());
+        properties.setProperty("interval-us", Long.toString(intervalMicros));
+        properties.setProperty("events", Long.toString(received));
+        properties.setProperty("events-per-second", Long.toString(elapsed == 0L ? 0L : received * TimeUnit.SECONDS.toNanos(1) / elapsed));
+        try (OutputStream os = Files.newOutputStream(Path.of(DEFAULT_STATS_FILENAME)))
+        {
+            properties.store(os, "Events while recording");
+        }
+        catch (IOException e)
+        {
+            LOG.error("Error writing event stream stats", e);
+        }
+
+        new Thread(() ->
+        {
+            try
+            {
+                synchronized (requests)
+                {
+                    for (Request request : requests)
+                    {
+                        request.abort(new IOException("recording stopped"));
+                    }
+                }
+                httpClient.stop();
+                completion.complete(null);
+            }
+            catch (Throwable x)
+            {
+                completion.completeExceptionally(x);
+            }
+        }, "event-stream-loader-stopper").start();
+    }
+}
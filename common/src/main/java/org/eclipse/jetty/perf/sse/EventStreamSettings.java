@@ -0,0 +1,38 @@
+package org.eclipse.jetty.perf.sse;
+
+import java.io.Serializable;
+
+/**
+ * How the loaders use Server-Sent Events streams when long-lived streaming responses are what is benchmarked.
+ *
+ * @param streams how many streams each loader keeps open and receives events from, sharing the loader rate.
+ * @param idleStreams how many more streams each loader keeps open without ever receiving an event.
+ * @param eventSize the size of each event, in bytes, at least {@link #MIN_EVENT_SIZE}.
+ */
+public record EventStreamSettings(int streams, int idleStreams, int eventSize) implements Serializable
+{
+    /**
+     * An event carries its zero-padded sequence number in its {@code id} field, plus the {@code data} field and
+     * the line terminators; all events of a stream having the same size, the client needs no parsing to count them.
+     */
+    public static final int MIN_EVENT_SIZE = 32;
+    public static final String PATH = "/events";
+    public static final String INTERVAL_PARAMETER = "intervalMicros";
+    public static final String EVENT_SIZE_PARAMETER = "eventSize";
+
+    public EventStreamSettings
+    {
+        if (streams < 1)
+            throw new IllegalArgumentException("there must be at least one stream receiving events");
+        if (idleStreams < 0)
+            throw new IllegalArgumentException("idle streams cannot be negative");
+        if (eventSize < MIN_EVENT_SIZE)
+            throw new IllegalArgumentException("event size must be at least " + MIN_EVENT_SIZE + " bytes");
+    }
+
+    @Override
+    public String toString()
+    {
+        return streams + "+" + idleStreams + "idle-" + eventSize + "b";
+    }
+}
@@ -0,0 +1,89 @@
+package org.eclipse.jetty.perf.sse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.function.IntSupplier;
+
+import org.eclipse.jetty.perf.util.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Estimates the heap an idle Server-Sent Events stream costs the server: the heap used after a GC is measured
+ * once while only the streams receiving events are open, then again once the idle streams are open on top of them,
+ * and the difference is divided by the number of idle streams. Both measurements are taken before recording, while
+ * no stream is closing, and are written to {@link #DEFAULT_STATS_FILENAME} when recording stops.
+ */
+public class IdleStreamHeapRecorder implements Recorder
+{
+    private static final Logger LOG = LoggerFactory.getLogger(IdleStreamHeapRecorder.class);
+    public static final String DEFAULT_STATS_FILENAME = "idle-stream-heap.properties";
+
+    private final IntSupplier idleStreams;
+    private long baselineHeapUsed = -1L;
+    private long heapUsed = -1L;
+    private int measuredIdleStreams;
+
+    /**
+     * @param idleStreams how many idle streams are open.
+     */
+    public IdleStreamHeapRecorder(IntSupplier idleStreams)
+    {
+        this.idleStreams = idleStreams;
+    }
+
+    /**
+     * Measures the heap used once only the streams receiving events are open.
+     */
+    public void measureBaseline()
+    {
+        baselineHeapUsed = heapUsedAfterGc();
+    }
+
+    /**
+     * Measures the heap used once the idle streams are open too.
+     */
+    public void measure()
+    {
+        heapUsed = heapUsedAfterGc();
+        measuredIdleStreams = idleStreams.getAsInt();
+    }
+
+    @Override
+    public void startRecording()
+    {
+    }
+
+    @Override
+    public void stopRecording()
+    {
+        if (baselineHeapUsed < 0L || heapUsed < 0L)
+            return;
+
+        Properties properties = new Properties();
+        properties.setProperty("idle-streams", Integer.toString(measuredIdleStreams));
+        properties.setProperty("baseline-heap-used-bytes", Long.toString(baselineHeapUsed));
+        properties.setProperty("heap-used-bytes", Long.toString(heapUsed));
+        properties.setProperty("heap-bytes-per-idle-stream", Long.toString(measuredIdleStreams == 0 ? 0L : (heapUsed - baselineHeapUsed) / measuredIdleStreams));
+        try (OutputStream os = Files.newOutputStream(Path.of(DEFAULT_STATS_FILENAME)))
+        {
+            properties.store(os, "Heap used by the idle streams, measured before recording");
+        }
+        catch (IOException e)
+        {
+            LOG.error("Error writing idle stream heap stats", e);
+        }
+    }
+
+    private static long heapUsedAfterGc()
+    {
+        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+        memoryMXBean.gc();
+        return memoryMXBean.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,210 @@
+package org.eclipse.jetty.perf.startup;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.perf.client.HttpClientLoader;
+import org.eclipse.jetty.perf.client.HttpClientSettings;
+import org.eclipse.jetty.perf.histogram.loader.ResponseStatusListener;
+import org.eclipse.jetty.perf.jdk.JvmSettings;
+import org.eclipse.jetty.perf.test.PerfTestParams;
+import org.eclipse.jetty.perf.util.LatencyRecorder;
+import org.eclipse.jetty.perf.util.OutputCapturer;
+import org.eclipse.jetty.perf.util.Recorder;
+import org.eclipse.jetty.perf.util.ReportUtil;
+import org.eclipse.jetty.perf.util.SerializableSupplier;
+import org.eclipse.jetty.server.Handler;
+import org.mortbay.jetty.orchestrator.Cluster;
+import org.mortbay.jetty.orchestrator.NodeArray;
+import org.mortbay.jetty.orchestrator.configuration.NodeArrayConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures how long the server takes to go from a cold JVM to its steady throughput while the loaders are already
+ * sending requests at their rate, the way an autoscaled server instance starts: the loaders begin before the server
+ * JVM is launched and keep going for the whole run, which has no warmup.
+ * The server runs as a {@link StartupServerProcess} child JVM of the server node, trained beforehand when its
+ * {@link StartupVariant} needs it. The variants the server node's JDK does not support are skipped.
+ */
+public class ClusteredStartupTest implements Serializable, Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ClusteredStartupTest.class);
+    private static final String UNSUPPORTED_COUNTER = "startup-unsupported";
+    private static final Duration LAUNCH_BUDGET = Duration.ofSeconds(90);
+
+    private final StartupVariant variant;
+    private final Duration trainingDuration;
+    private final Duration runDuration;
+    private final PerfTestParams.HttpVersion version;
+    private final List<URI> serverUris;
+    private final int serverPort;
+    private final int loaderRate;
+    private final List<String> serverJvmOptions;
+    private final String reportRootPath; // java.nio.Path isn't serializable, so we must use a String.
+    private final SerializableSupplier<Handler> testedHandlerSupplier;
+    private transient Cluster cluster; // not serializable, but there is no need to access this field from remote lambdas.
+
+    public ClusteredStartupTest(String testName, PerfTestParams perfTestParams, StartupVariant variant, Duration trainingDuration, Duration runDuration, SerializableSupplier<Handler> testedHandlerSupplier, Path reportRootPath) throws Exception
+    {
+        if (perfTestParams.getProtocol().isSecure() || perfTestParams.isProxied())
+            throw new IllegalArgumentException("the startup benchmark only supports clear text, unproxied protocols");
+        this.variant = variant;
+        this.trainingDuration = trainingDuration;
+        this.runDuration = runDuration;
+        this.version = perfTestParams.getProtocol().getVersion();
+        this.serverUris = perfTestParams.getServerUris();
+        this.serverPort = perfTestParams.getServerPort();
+        this.loaderRate = perfTestParams.getLoaderRate();
+        JvmSettings jvmSettings = perfTestParams.getJvmSettings();
+        // no -Xms nor pre-touching, the heap is sized like the server's but the startup cost is not inflated
+        List<String> jvmOptions = new ArrayList<>(jvmSettings.gc().getOptions());
+        jvmOptions.add("-Xmx" + jvmSettings.heapGb() + "g");
+        this.serverJvmOptions = List.copyOf(jvmOptions);
+        this.testedHandlerSupplier = testedHandlerSupplier;
+        this.reportRootPath = reportRootPath.toString();
+        this.cluster = new Cluster(testName, perfTestParams.getClusterConfiguration());
+    }
+
+    /**
+     * Runs the startup benchmark and asserts that each server node reached {@link StartupReport#STEADY_RATIO} of its
+     * steady throughput within the expected time since its JVM was launched.
+     *
+     * @return true if the assertions succeeded or the variant is not supported by the server JDK.
+     */
+    public static boolean runTest(String testName, PerfTestParams params, StartupVariant variant, Duration trainingDuration, Duration runDuration, long expectedSteadyMs, SerializableSupplier<Handler> testedHandlerSupplier) throws Exception
+    {
+        Path reportRootPath = ReportUtil.createReportRootPath(testName, params.toString(), variant.name());
+        try (OutputCapturer ignore = new OutputCapturer(reportRootPath))
+        {
+            try (ClusteredStartupTest clusteredStartupTest = new ClusteredStartupTest(testName, params, variant, trainingDuration, runDuration, testedHandlerSupplier, reportRootPath))
+            {
+                if (!clusteredStartupTest.execute())
+                {
+                    System.out.println(" " + variant + " is not supported by the server JDK, skipped");
+                    return true;
+                }
+            }
+
+            NodeArrayConfiguration serverCfg = params.getClusterConfiguration().nodeArrays().stream().filter(nac -> nac.id().equals("server")).findAny().orElseThrow();
+            List<StartupReport> reports = new ArrayList<>();
+            for (var node : serverCfg.nodes())
+            {
+                reports.add(StartupReport.load(reportRootPath.resolve(serverCfg.id()).resolve(node.getId())));
+            }
+            try (PrintStream ps = new PrintStream(Files.newOutputStream(reportRootPath.resolve(StartupReport.DEFAULT_FILENAME))))
+            {
+                StartupReport.print(reports, ps);
+            }
+            StartupReport.print(reports, System.out);
+
+            boolean succeeded = true;
+            System.out.println(" Asserting server");
+            for (StartupReport report : reports)
+            {
+                boolean reached = report.firstOkMs() >= 0L && report.steadyMs() >= 0L && report.steadyMs() <= expectedSteadyMs;
+                System.out.println("  " + (reached ? "OK" : "NOK") + "; steady throughput reached after " + report.steadyMs() + " ms, expected at most " + expectedSteadyMs + " ms");
+                succeeded &= reached;
+            }
+            return succeeded;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (cluster != null)
+        {
+            cluster.close();
+            cluster = null;
+        }
+    }
+
+    /**
+     * @return false if the server JDK does not support the variant, in which case nothing was run.
+     */
+    public boolean execute() throws Exception
+    {
+        NodeArray serverArray = cluster.nodeArray("server");
+        NodeArray loadersArray = cluster.nodeArray("loaders");
+
+        LOG.info("Preparing the {} server...", variant);
+        serverArray.executeOnAll(tools ->
+        {
+            if (!StartupServerProcess.isSupported(variant))
+            {
+                LOG.info("{} is not supported by JVM version '{}'", variant, System.getProperty("java.vm.version"));
+                tools.atomicCounter(UNSUPPORTED_COUNTER, 0L).incrementAndGet();
+                return;
+            }
+            StartupServerProcess process = new StartupServerProcess(variant, Files.createTempDirectory("jetty-perf-startup-"), serverPort, version, serverJvmOptions, testedHandlerSupplier);
+            process.train(trainingDuration);
+            tools.nodeEnvironment().put(StartupServerProcess.class.getName(), process);
+        }).get(trainingDuration.toSeconds() * 2 + 300, TimeUnit.SECONDS);
+        if (cluster.tools().atomicCounter(UNSUPPORTED_COUNTER, 0L).get() > 0L)
+            return false;
+
+        LOG.info("Starting the loaders before the server...");
+        loadersArray.executeOnAll(tools -> runHttpClientLoader(serverUris.get((int)(tools.atomicCounter("loaders-target-index", 0L).getAndIncrement() % serverUris.size())), tools.nodeEnvironment())).get(30, TimeUnit.SECONDS);
+
+        try
+        {
+            LOG.info("Launching the server JVM...");
+            serverArray.executeOnAll(tools -> ((StartupServerProcess)tools.nodeEnvironment().get(StartupServerProcess.class.getName())).launch()).get(LAUNCH_BUDGET.toSeconds(), TimeUnit.SECONDS);
+            LOG.info("Running {}s ...", runDuration.toSeconds());
+            Thread.sleep(runDuration.toMillis());
+        }
+        finally
+        {
+            // the server is stopped while still loaded, so that its timeline ends at steady throughput
+            LOG.info("Stopping the server JVM...");
+            serverArray.executeOnAll(tools -> ((StartupServerProcess)tools.nodeEnvironment().get(StartupServerProcess.class.getName())).close()).get(90, TimeUnit.SECONDS);
+            LOG.info("Stopping the loaders...");
+            loadersArray.executeOnAll(tools ->
+            {
+                @SuppressWarnings("unchecked")
+                List<Recorder> recorders = (List<Recorder>)tools.nodeEnvironment().get(Recorder.class.getName());
+                recorders.forEach(Recorder::stopRecording);
+                CompletableFuture<?> cf = (CompletableFuture<?>)tools.nodeEnvironment().get(CompletableFuture.class.getName());
+                cf.get();
+            }).get(LAUNCH_BUDGET.toSeconds() + 60, TimeUnit.SECONDS);
+
+            LOG.info("Generating report...");
+            ReportUtil.generateReport(Path.of(reportRootPath), List.of("server", "loaders"), cluster);
+        }
+        return true;
+    }
+
+    private void runHttpClientLoader(URI serverUri, Map<String, Object> env) throws Exception
+    {
+        // the requests sent before the server accepts connections fail, which is expected
+        LatencyRecorder latencyRecorder = new LatencyRecorder("perf.hlog");
+        ResponseStatusListener responseStatusListener = new ResponseStatusListener("http-client-statuses.log");
+        HttpClientLoader httpClientLoader = new HttpClientLoader(serverUri, version, HttpClientSettings.defaults(version), loaderRate, null, latencyRecorder, responseStatusListener);
+        List<Recorder> recorders = List.of(latencyRecorder, responseStatusListener, httpClientLoader);
+        // there is no warmup, the whole run is recorded
+        recorders.forEach(Recorder::startRecording);
+        env.put(Recorder.class.getName(), recorders);
+
+        LOG.info("http client load begin against {}", serverUri);
+        // the loaders keep going while the server JVM is launched and until it is stopped
+        CompletableFuture<Void> cf = httpClientLoader.begin(runDuration.plus(LAUNCH_BUDGET));
+        env.put(CompletableFuture.class.getName(), cf.whenComplete((x, f) ->
+        {
+            if (f == null)
+                LOG.info("http client load complete");
+            else
+                LOG.info("http client load failure", f);
+        }));
+    }
+}
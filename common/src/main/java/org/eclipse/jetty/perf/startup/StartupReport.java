@@ -0,0 +1,103 @@
+package org.eclipse.jetty.perf.startup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * The startup milestones of a server node, in ms since its JVM was launched, computed from the files written by
+ * {@link StartupServerProcess} and {@link StartupServer}; -1 for the milestones that were not reached or do not apply.
+ * The steady throughput is the average over the last third of the run, and the time to steady throughput is the end
+ * of the first one second window to reach {@link #STEADY_RATIO} of it.
+ */
+public record StartupReport(String variant, long mainMs, long serverStartedMs, long restoredMs, long portOpenMs, long firstOkMs, double steadyThroughput, long steadyMs)
+{
+    public static final String DEFAULT_FILENAME = "startup-report.txt";
+    public static final double STEADY_RATIO = 0.95;
+    private static final int WINDOW_BUCKETS = (int)(1000L / StartupServer.BUCKET_MS);
+
+    public static StartupReport load(Path nodeFolder) throws IOException
+    {
+        Properties launcher = loadProperties(nodeFolder.resolve(StartupServerProcess.DEFAULT_STATS_FILENAME));
+        Properties server = loadProperties(nodeFolder.resolve(StartupServer.DEFAULT_STATS_FILENAME));
+        long launchEpochMs = Long.parseLong(launcher.getProperty("launch-epoch-ms"));
+        long originEpochMs = Long.parseLong(server.getProperty("timeline-origin-epoch-ms"));
+
+        long[] buckets = Files.readAllLines(nodeFolder.resolve(StartupServer.DEFAULT_TIMELINE_FILENAME)).stream()
+            .skip(1)
+            .mapToLong(line -> Long.parseLong(line.substring(line.indexOf(',') + 1)))
+            .toArray();
+        double steadyThroughput = 0.0;
+        long steadyMs = -1L;
+        int windows = buckets.length - WINDOW_BUCKETS + 1;
+        if (windows > 0)
+        {
+            long[] windowSums = new long[windows];
+            long sum = 0L;
+            for (int i = 0; i < buckets.length; i++)
+            {
+                sum += buckets[i];
+                if (i >= WINDOW_BUCKETS)
+                    sum -= buckets[i - WINDOW_BUCKETS];
+                if (i >= WINDOW_BUCKETS - 1)
+                    windowSums[i - WINDOW_BUCKETS + 1] = sum;
+            }
+            long tail = 0L;
+            int tailStart = buckets.length * 2 / 3;
+            for (int i = tailStart; i < buckets.length; i++)
+            {
+                tail += buckets[i];
+            }
+            steadyThroughput = tail * 1000.0 / ((buckets.length - tailStart) * StartupServer.BUCKET_MS);
+            for (int i = 0; i < windows; i++)
+            {
+                if (windowSums[i] >= steadyThroughput * STEADY_RATIO)
+                {
+                    steadyMs = originEpochMs + (i + WINDOW_BUCKETS) * StartupServer.BUCKET_MS - launchEpochMs;
+                    break;
+                }
+            }
+        }
+
+        return new StartupReport(
+            launcher.getProperty("variant"),
+            sinceLaunch(server, "main-epoch-ms", launchEpochMs),
+            sinceLaunch(server, "server-started-epoch-ms", launchEpochMs),
+            sinceLaunch(server, "restored-epoch-ms", launchEpochMs),
+            sinceLaunch(launcher, "port-open-epoch-ms", launchEpochMs),
+            sinceLaunch(server, "first-ok-epoch-ms", launchEpochMs),
+            steadyThroughput,
+            steadyMs);
+    }
+
+    private static Properties loadProperties(Path path) throws IOException
+    {
+        Properties properties = new Properties();
+        try (InputStream is = Files.newInputStream(path))
+        {
+            properties.load(is);
+        }
+        return properties;
+    }
+
+    private static long sinceLaunch(Properties properties, String key, long launchEpochMs)
+    {
+        long epochMs = Long.parseLong(properties.getProperty(key, "0"));
+        return epochMs == 0L ? -1L : epochMs - launchEpochMs;
+    }
+
+    public static void print(List<StartupReport> reports, PrintStream ps)
+    {
+        ps.printf(Locale.ROOT, "  %-24s %10s %12s %12s %12s %12s %14s %12s%n", "variant", "main-ms", "started-ms", "restored-ms", "port-ms", "first-200-ms", "steady-req/s", "steady-ms");
+        for (StartupReport report : reports)
+        {
+            ps.printf(Locale.ROOT, "  %-24s %10d %12d %12d %12d %12d %14.1f %12d%n",
+                report.variant(), report.mainMs(), report.serverStartedMs(), report.restoredMs(), report.portOpenMs(), report.firstOkMs(), report.steadyThroughput(), report.steadyMs());
+        }
+    }
+}
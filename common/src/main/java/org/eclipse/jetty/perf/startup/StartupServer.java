@@ -0,0 +1,233 @@
+package org.eclipse.jetty.perf.startup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.perf.test.PerfTestParams;
+import org.eclipse.jetty.perf.util.SerializableSupplier;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.HttpStream;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Callback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The server whose startup is benchmarked, run in its own JVM by {@link StartupServerProcess} so that the JVM start
+ * is part of what is measured. The tested handler is deserialized from the file given as first argument.
+ * The wall-clock times main was entered at, the server was started at and the first 200 was sent at are written to
+ * {@link #DEFAULT_STATS_FILENAME} when the JVM exits, together with the requests completed during each
+ * {@link #BUCKET_MS} ms bucket in {@link #DEFAULT_TIMELINE_FILENAME}.
+ * On a CRaC enabled JDK the connector is closed before a checkpoint and reopened on restore; the restored JVM
+ * then writes its own times, relative to the restore, instead of the training ones.
+ */
+public class StartupServer
+{
+    private static final Logger LOG = LoggerFactory.getLogger(StartupServer.class);
+    public static final String DEFAULT_STATS_FILENAME = "startup-server.properties";
+    public static final String DEFAULT_TIMELINE_FILENAME = "startup-timeline.csv";
+    public static final String TRAINING_PREFIX = "training-";
+    public static final long BUCKET_MS = 100L;
+    // one hour of buckets, completions after that are not counted
+    private static final int BUCKETS = 36_000;
+    // jdk.crac keeps weak references to the registered resources
+    private static Object cracResource;
+
+    private final AtomicLongArray completions = new AtomicLongArray(BUCKETS);
+    private final AtomicLong firstOkEpochMs = new AtomicLong();
+    private final Server server;
+    private final ServerConnector connector;
+    private volatile long originEpochMs;
+    private volatile String filenamePrefix;
+    private long serverStartedEpochMs;
+    private long restoredEpochMs;
+
+    public static void main(String[] args) throws Exception
+    {
+        long mainEpochMs = System.currentTimeMillis();
+        if (args.length < 3)
+            throw new IllegalArgumentException("usage: StartupServer <handler-file> <port> <HTTP11|HTTP2> [training]");
+        SerializableSupplier<Handler> handlerSupplier = readHandlerSupplier(Path.of(args[0]));
+        boolean training = args.length > 3 && Boolean.parseBoolean(args[3]);
+        StartupServer startupServer = new StartupServer(handlerSupplier.get(), Integer.parseInt(args[1]), PerfTestParams.HttpVersion.valueOf(args[2]), mainEpochMs, training ? TRAINING_PREFIX : "");
+        startupServer.start();
+        startupServer.server.join();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SerializableSupplier<Handler> readHandlerSupplier(Path path) throws IOException, ClassNotFoundException
+    {
+        try (InputStream is = Files.newInputStream(path);
+             ObjectInputStream ois = new ObjectInputStream(is))
+        {
+            return (SerializableSupplier<Handler>)ois.readObject();
+        }
+    }
+
+    private StartupServer(Handler testedHandler, int port, PerfTestParams.HttpVersion version, long mainEpochMs, String filenamePrefix)
+    {
+        this.originEpochMs = mainEpochMs;
+        this.filenamePrefix = filenamePrefix;
+        server = new Server();
+        HttpConfiguration httpConfiguration = new HttpConfiguration();
+        ConnectionFactory http = version == PerfTestParams.HttpVersion.HTTP2
+            ? new HTTP2CServerConnectionFactory(httpConfiguration)
+            : new HttpConnectionFactory(httpConfiguration);
+        connector = new ServerConnector(server, http);
+        connector.setPort(port);
+        server.addConnector(connector);
+        server.setHandler(new TimelineHandler(testedHandler));
+    }
+
+    private void start() throws Exception
+    {
+        server.start();
+        serverStartedEpochMs = System.currentTimeMillis();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::writeStats, "startup-server-stats"));
+        registerCracResource();
+    }
+
+    private void registerCracResource()
+    {
+        if (ModuleLayer.boot().findModule("jdk.crac").isEmpty())
+            return;
+        try
+        {
+            // jdk.crac is only on CRaC enabled JDKs, so it cannot be compiled against
+            Class<?> resourceClass = Class.forName("jdk.crac.Resource");
+            Class<?> contextClass = Class.forName("jdk.crac.Context");
+            Object resource = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{resourceClass}, (proxy, method, args) ->
+            {
+                switch (method.getName())
+                {
+                    case "beforeCheckpoint" -> beforeCheckpoint();
+                    case "afterRestore" -> afterRestore();
+                    case "hashCode" -> { return System.identityHashCode(proxy); }
+                    case "equals" -> { return proxy == args[0]; }
+                    case "toString" -> { return "StartupServerResource"; }
+                    default -> { }
+                }
+                return null;
+            });
+            Object globalContext = Class.forName("jdk.crac.Core").getMethod("getGlobalContext").invoke(null);
+            Method register = contextClass.getMethod("register", resourceClass);
+            register.invoke(globalContext, resource);
+            cracResource = resource;
+        }
+        catch (ReflectiveOperationException x)
+        {
+            throw new IllegalStateException("cannot register the CRaC resource", x);
+        }
+    }
+
+    private void beforeCheckpoint()
+    {
+        // no socket may be open when the checkpoint is taken
+        connector.close();
+        connector.getConnectedEndPoints().forEach(EndPoint::close);
+    }
+
+    private void afterRestore() throws Exception
+    {
+        // what the training run counted is not part of the measured startup
+        restoredEpochMs = System.currentTimeMillis();
+        originEpochMs = restoredEpochMs;
+        filenamePrefix = "";
+        firstOkEpochMs.set(0L);
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            completions.set(i, 0L);
+        }
+        connector.open();
+    }
+
+    private void onCompleted(int status)
+    {
+        long now = System.currentTimeMillis();
+        if (status == 200)
+            firstOkEpochMs.compareAndSet(0L, now);
+        int bucket = (int)((now - originEpochMs) / BUCKET_MS);
+        if (bucket >= 0 && bucket < BUCKETS)
+            completions.incrementAndGet(bucket);
+    }
+
+    private void writeStats()
+    {
+        Properties properties = new Properties();
+        properties.setProperty("jvm-start-epoch-ms", Long.toString(ManagementFactory.getRuntimeMXBean().getStartTime()));
+        properties.setProperty("main-epoch-ms", Long.toString(restoredEpochMs == 0L ? originEpochMs : 0L));
+        properties.setProperty("server-started-epoch-ms", Long.toString(restoredEpochMs == 0L ? serverStartedEpochMs : 0L));
+        properties.setProperty("restored-epoch-ms", Long.toString(restoredEpochMs));
+        properties.setProperty("first-ok-epoch-ms", Long.toString(firstOkEpochMs.get()));
+        properties.setProperty("timeline-origin-epoch-ms", Long.toString(originEpochMs));
+        properties.setProperty("jvm.arguments", String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()));
+        try (OutputStream os = Files.newOutputStream(Path.of(filenamePrefix + DEFAULT_STATS_FILENAME));
+             PrintWriter timeline = new PrintWriter(Files.newBufferedWriter(Path.of(filenamePrefix + DEFAULT_TIMELINE_FILENAME))))
+        {
+            properties.store(os, "Startup of the server JVM");
+            timeline.println("offset-ms,completed");
+            int last = BUCKETS - 1;
+            while (last > 0 && completions.get(last) == 0L)
+            {
+                last--;
+            }
+            for (int i = 0; i <= last; i++)
+            {
+                timeline.println(i * BUCKET_MS + "," + completions.get(i));
+            }
+        }
+        catch (IOException x)
+        {
+            LOG.error("Error writing startup stats", x);
+        }
+    }
+
+    private class TimelineHandler extends Handler.Wrapper
+    {
+        private TimelineHandler(Handler handler)
+        {
+            super(handler);
+        }
+
+        @Override
+        public boolean handle(Request request, Response response, Callback callback) throws Exception
+        {
+            request.addHttpStreamWrapper(httpStream -> new HttpStream.Wrapper(httpStream)
+            {
+                @Override
+                public void succeeded()
+                {
+                    super.succeeded();
+                    onCompleted(response.getStatus());
+                }
+
+                @Override
+                public void failed(Throwable x)
+                {
+                    super.failed(x);
+                    onCompleted(0);
+                }
+            });
+            return super.handle(request, response, callback);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package org.eclipse.jetty.perf.startup;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpClientTransport;
+import org.eclipse.jetty.client.transport.HttpClientTransportOverHTTP;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.transport.HttpClientTransportOverHTTP2;
+import org.eclipse.jetty.perf.test.PerfTestParams;
+import org.eclipse.jetty.perf.util.SerializableSupplier;
+import org.eclipse.jetty.server.Handler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Launches {@link StartupServer} in a child JVM of the same JDK and classpath as the current one, first for the
+ * training runs of its {@link StartupVariant} that are loaded locally, then for the measured run.
+ * The wall-clock times the measured JVM was launched at and its port accepted a first connection at are written
+ * to {@link #DEFAULT_STATS_FILENAME} when it is closed.
+ */
+public class StartupServerProcess implements AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(StartupServerProcess.class);
+    public static final String DEFAULT_STATS_FILENAME = "startup-launcher.properties";
+    private static final String HANDLER_FILENAME = "startup-handler.ser";
+    private static final Duration PORT_TIMEOUT = Duration.ofSeconds(60);
+    private static final int TRAINING_THREADS = 8;
+
+    private final StartupVariant variant;
+    private final Path workDir;
+    private final int port;
+    private final PerfTestParams.HttpVersion version;
+    private final List<String> jvmOptions;
+    private Process process;
+    private long launchEpochMs;
+    private long portOpenEpochMs;
+
+    public StartupServerProcess(StartupVariant variant, Path workDir, int port, PerfTestParams.HttpVersion version, List<String> jvmOptions, SerializableSupplier<Handler> handlerSupplier) throws IOException
+    {
+        this.variant = variant;
+        this.workDir = workDir;
+        this.port = port;
+        this.version = version;
+        this.jvmOptions = List.copyOf(jvmOptions);
+        Files.createDirectories(workDir);
+        try (OutputStream os = Files.newOutputStream(workDir.resolve(HANDLER_FILENAME));
+             ObjectOutputStream oos = new ObjectOutputStream(os))
+        {
+            oos.writeObject(handlerSupplier);
+        }
+    }
+
+    /**
+     * @return true if the JVM running this method supports the variant.
+     */
+    public static boolean isSupported(StartupVariant variant)
+    {
+        return variant.isSupported(Runtime.version().feature(), ModuleLayer.boot().findModule("jdk.crac").isPresent());
+    }
+
+    /**
+     * Runs the training JVMs of the variant, each loaded for the given duration, then builds its artifacts.
+     */
+    public void train(Duration trainingDuration) throws Exception
+    {
+        List<List<String>> trainingOptions = variant.trainingOptions(workDir);
+        for (int i = 0; i < trainingOptions.size(); i++)
+        {
+            LOG.info("training run {}/{} of {} for {}s", i + 1, trainingOptions.size(), variant, trainingDuration.toSeconds());
+            Process training = start(trainingOptions.get(i), true, "training-" + i);
+            if (awaitPortOpen(training) == 0L)
+                throw new IllegalStateException("training server did not open port " + port);
+            load(trainingDuration);
+            if (variant.isCheckpointing())
+                run(List.of(javaTool("jcmd"), Long.toString(training.pid()), "JDK.checkpoint"), "checkpoint");
+            else
+                training.destroy();
+            if (!training.waitFor(PORT_TIMEOUT.toSeconds(), TimeUnit.SECONDS))
+            {
+                training.destroyForcibly();
+                throw new IllegalStateException("training server did not exit");
+            }
+        }
+        List<String> assemblyOptions = variant.assemblyOptions(workDir);
+        if (!assemblyOptions.isEmpty())
+        {
+            List<String> command = new ArrayList<>();
+            command.add(javaTool("java"));
+            // the cache is only usable by a JVM whose options (e.g.: the GC) match the ones it was created with
+            command.addAll(jvmOptions);
+            command.addAll(assemblyOptions);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            run(command, "assembly");
+        }
+        Path artifact = variant.artifact(workDir);
+        if (artifact != null && !Files.exists(artifact))
+            throw new IllegalStateException(variant + " training did not produce " + artifact);
+    }
+
+    /**
+     * Launches the measured JVM and waits until its port accepts connections.
+     */
+    public void launch() throws Exception
+    {
+        launchEpochMs = System.currentTimeMillis();
+        process = start(variant.runOptions(workDir), false, "startup-server");
+        portOpenEpochMs = awaitPortOpen(process);
+        LOG.info("{} server JVM accepting connections after {} ms", variant, portOpenEpochMs == 0L ? -1L : portOpenEpochMs - launchEpochMs);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (process == null)
+            return;
+        // the server writes its stats from a shutdown hook
+        process.destroy();
+        try
+        {
+            if (!process.waitFor(PORT_TIMEOUT.toSeconds(), TimeUnit.SECONDS))
+                process.destroyForcibly();
+        }
+        catch (InterruptedException x)
+        {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        Properties properties = new Properties();
+        properties.setProperty("variant", variant.name());
+        properties.setProperty("launch-epoch-ms", Long.toString(launchEpochMs));
+        properties.setProperty("port-open-epoch-ms", Long.toString(portOpenEpochMs));
+        try (OutputStream os = Files.newOutputStream(Path.of(DEFAULT_STATS_FILENAME)))
+        {
+            properties.store(os, "Launch of the server JVM");
+        }
+    }
+
+    private Process start(List<String> variantOptions, boolean training, String outputName) throws IOException
+    {
+        List<String> command = new ArrayList<>();
+        command.add(javaTool("java"));
+        if (variant.isRestoring() && !training)
+        {
+            // the restored JVM keeps the options and arguments of the checkpointed one
+            command.addAll(variantOptions);
+        }
+        else
+        {
+            command.addAll(jvmOptions);
+            command.addAll(variantOptions);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(StartupServer.class.getName());
+            command.add(workDir.resolve(HANDLER_FILENAME).toString());
+            command.add(Integer.toString(port));
+            command.add(version.name());
+            command.add(Boolean.toString(training));
+        }
+        LOG.info("starting {}", command);
+        return new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(Path.of(outputName + ".out").toFile())
+            .start();
+    }
+
+    private void run(List<String> command, String outputName) throws Exception
+    {
+        LOG.info("running {}", command);
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(Path.of(outputName + ".out").toFile())
+            .start();
+        if (!process.waitFor(5, TimeUnit.MINUTES))
+        {
+            process.destroyForcibly();
+            throw new IllegalStateException("timed out running " + command);
+        }
+        if (process.exitValue() != 0)
+            throw new IllegalStateException("exit value " + process.exitValue() + " running " + command);
+    }
+
+    private long awaitPortOpen(Process process) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + PORT_TIMEOUT.toNanos();
+        while (process.isAlive() && System.nanoTime() < deadline)
+        {
+            try (Socket socket = new Socket())
+            {
+                socket.connect(new InetSocketAddress("localhost", port), 100);
+                return System.currentTimeMillis();
+            }
+            catch (IOException x)
+            {
+                Thread.sleep(1);
+            }
+        }
+        return 0L;
+    }
+
+    private void load(Duration duration) throws Exception
+    {
+        HttpClientTransport transport = version == PerfTestParams.HttpVersion.HTTP2
+            ? new HttpClientTransportOverHTTP2(new HTTP2Client())
+            : new HttpClientTransportOverHTTP();
+        HttpClient httpClient = new HttpClient(transport);
+        httpClient.start();
+        try
+        {
+            long deadline = System.nanoTime() + duration.toNanos();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < TRAINING_THREADS; i++)
+            {
+                Thread thread = new Thread(() ->
+                {
+                    while (System.nanoTime() < deadline)
+                    {
+                        try
+                        {
+                            httpClient.GET("http://localhost:" + port + "/");
+                        }
+                        catch (Exception x)
+                        {
+                            LOG.debug("training request failure", x);
+                        }
+                    }
+                }, "startup-training-" + i);
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads)
+            {
+                thread.join();
+            }
+        }
+        finally
+        {
+            httpClient.stop();
+        }
+    }
+
+    private static String javaTool(String name)
+    {
+        return Path.of(System.getProperty("java.home"), "bin", name).toString();
+    }
+}
@@ -0,0 +1,107 @@
+package org.eclipse.jetty.perf.startup;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * How the server JVM is started by the startup benchmark. Some variants first train the JVM with runs of the server
+ * under load, whose artifacts (a class data sharing archive, an ahead-of-time cache or a checkpoint) the measured
+ * run then starts from.
+ */
+public enum StartupVariant
+{
+    DEFAULT,
+    // C1 only: cheaper compilation, earlier steady state but a lower peak
+    TIERED_STOP_AT_LEVEL_1,
+    // dynamic AppCDS archive dumped when the training run exits
+    APP_CDS,
+    // Leyden ahead-of-time cache (JEP 483), JDK 24+: recording run, then cache creation
+    LEYDEN_AOT_CACHE,
+    // CRaC checkpoint taken with jcmd after the training run warmed up, only on CRaC enabled JDKs
+    CRAC,
+    ;
+
+    /**
+     * @return true if the JVM of the given feature version, with or without the {@code jdk.crac} module, supports this variant.
+     */
+    public boolean isSupported(int javaFeatureVersion, boolean crac)
+    {
+        return switch (this)
+        {
+            case DEFAULT, TIERED_STOP_AT_LEVEL_1 -> true;
+            case APP_CDS -> javaFeatureVersion >= 13;
+            case LEYDEN_AOT_CACHE -> javaFeatureVersion >= 24;
+            case CRAC -> crac;
+        };
+    }
+
+    /**
+     * @return the JVM options of the training runs that are loaded before being stopped, in order.
+     */
+    public List<List<String>> trainingOptions(Path workDir)
+    {
+        return switch (this)
+        {
+            case DEFAULT, TIERED_STOP_AT_LEVEL_1 -> List.of();
+            case APP_CDS -> List.of(List.of("-XX:ArchiveClassesAtExit=" + artifact(workDir)));
+            case LEYDEN_AOT_CACHE -> List.of(List.of("-XX:AOTMode=record", "-XX:AOTConfiguration=" + workDir.resolve("app.aotconf")));
+            case CRAC -> List.of(List.of("-XX:CRaCCheckpointTo=" + artifact(workDir)));
+        };
+    }
+
+    /**
+     * @return the JVM options of the runs that only produce an artifact from the training, without starting the server.
+     */
+    public List<String> assemblyOptions(Path workDir)
+    {
+        if (this == LEYDEN_AOT_CACHE)
+            return List.of("-XX:AOTMode=create", "-XX:AOTConfiguration=" + workDir.resolve("app.aotconf"), "-XX:AOTCache=" + artifact(workDir));
+        return List.of();
+    }
+
+    /**
+     * @return the file or directory the training must have produced for the measured run, or null if there is none.
+     */
+    public Path artifact(Path workDir)
+    {
+        return switch (this)
+        {
+            case DEFAULT, TIERED_STOP_AT_LEVEL_1 -> null;
+            case APP_CDS -> workDir.resolve("app.jsa");
+            case LEYDEN_AOT_CACHE -> workDir.resolve("app.aot");
+            case CRAC -> workDir.resolve("checkpoint");
+        };
+    }
+
+    /**
+     * @return the JVM options of the measured run; the JVM refuses to start rather than silently run without
+     * the archive or cache.
+     */
+    public List<String> runOptions(Path workDir)
+    {
+        return switch (this)
+        {
+            case DEFAULT -> List.of();
+            case TIERED_STOP_AT_LEVEL_1 -> List.of("-XX:TieredStopAtLevel=1");
+            case APP_CDS -> List.of("-Xshare:on", "-XX:SharedArchiveFile=" + artifact(workDir));
+            case LEYDEN_AOT_CACHE -> List.of("-XX:AOTMode=on", "-XX:AOTCache=" + artifact(workDir));
+            case CRAC -> List.of("-XX:CRaCRestoreFrom=" + artifact(workDir));
+        };
+    }
+
+    /**
+     * @return true if the measured run restores a checkpoint instead of running the server's main class.
+     */
+    public boolean isRestoring()
+    {
+        return this == CRAC;
+    }
+
+    /**
+     * @return true if the training runs end with a checkpoint instead of being stopped.
+     */
+    public boolean isCheckpointing()
+    {
+        return this == CRAC;
+    }
+}
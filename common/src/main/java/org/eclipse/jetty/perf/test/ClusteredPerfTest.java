@@ -1,6 +1,7 @@
 package org.eclipse.jetty.perf.test;
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
@@ -19,19 +20,45 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpClientTransport;
+import org.eclipse.jetty.client.transport.HttpClientTransportOverHTTP;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.transport.HttpClientTransportOverHTTP2;
 import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.perf.client.HttpClientLoader;
+import org.eclipse.jetty.perf.client.HttpClientSettings;
+import org.eclipse.jetty.perf.client.SessionSettings;
+import org.eclipse.jetty.perf.client.UploadSettings;
+import org.eclipse.jetty.perf.files.PageCacheRecorder;
+import org.eclipse.jetty.perf.files.StaticFileTree;
+import org.eclipse.jetty.perf.files.StaticFilesSettings;
+import org.eclipse.jetty.perf.handler.HandlerTreeSettings;
+import org.eclipse.jetty.perf.handler.LatencyRecordingProxyHandler;
 import org.eclipse.jetty.perf.handler.ModernLatencyRecordingHandler;
+import org.eclipse.jetty.perf.handler.UploadAccountingHandler;
 import org.eclipse.jetty.perf.histogram.loader.ResponseStatusListener;
 import org.eclipse.jetty.perf.histogram.loader.ResponseTimeListener;
 import org.eclipse.jetty.perf.monitoring.ConfigurableMonitor;
+import org.eclipse.jetty.perf.monitoring.jetty.ByteBufferPoolMonitor;
+import org.eclipse.jetty.perf.monitoring.jetty.MonitoredServerConnector;
+import org.eclipse.jetty.perf.monitoring.jetty.TrackingByteBufferPool;
+import org.eclipse.jetty.perf.monitoring.jit.JitWarmupGate;
+import org.eclipse.jetty.perf.sse.EventStreamLoader;
+import org.eclipse.jetty.perf.sse.EventStreamSettings;
+import org.eclipse.jetty.perf.sse.IdleStreamHeapRecorder;
 import org.eclipse.jetty.perf.util.IOUtil;
 import org.eclipse.jetty.perf.util.LatencyRecorder;
 import org.eclipse.jetty.perf.util.Recorder;
 import org.eclipse.jetty.perf.util.SerializableSupplier;
+import org.eclipse.jetty.perf.websocket.WebSocketLoader;
+import org.eclipse.jetty.perf.websocket.WebSocketSettings;
 import org.eclipse.jetty.server.ConnectionFactory;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.HttpConfiguration;
@@ -40,7 +67,10 @@ import org.eclipse.jetty.server.SecureRequestCustomizer;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.util.Jetty;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.MonitoredQueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import org.mortbay.jetty.load.generator.HTTP2ClientTransportBuilder;
 import org.mortbay.jetty.load.generator.LoadGenerator;
 import org.mortbay.jetty.load.generator.Resource;
@@ -50,6 +80,7 @@ import org.mortbay.jetty.orchestrator.NodeArrayFuture;
 import org.mortbay.jetty.orchestrator.NodeJob;
 import org.mortbay.jetty.orchestrator.configuration.ClusterConfiguration;
 import org.mortbay.jetty.orchestrator.configuration.NodeArrayConfiguration;
+import org.mortbay.jetty.orchestrator.tools.AtomicCounter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,12 +89,30 @@ import static org.eclipse.jetty.perf.util.ReportUtil.generateReport;
 public class ClusteredPerfTest implements Serializable, Closeable
 {
     private static final Logger LOG = LoggerFactory.getLogger(ClusteredPerfTest.class);
+    public static final String NODE_INFO_FILENAME = "node-info.properties";
+    /**
+     * How much longer than the warmup duration recording may be delayed until the server's JIT compilation settles,
+     * zero (the default) to start recording right after the warmup duration. The loads last that much longer to make up for it.
+     */
+    private static final Duration WARMUP_GATE_MAX = Duration.ofSeconds(Long.getLong("test.warmup.gate.max-seconds", 0L));
+    private static final Duration STATIC_FILES_GENERATION_TIMEOUT = Duration.ofMinutes(15);
 
     private final Duration warmupDuration;
     private final Duration runDuration;
     private final EnumSet<ConfigurableMonitor.Item> monitoredItems;
     private final PerfTestParams.Protocol protocol;
-    private final URI serverUri;
+    private final PerfTestParams.Protocol serverProtocol;
+    private final List<URI> serverUris;
+    private final List<URI> targetUris;
+    private final boolean proxied;
+    private final int proxyMaxConnectionsPerDestination;
+    private final HttpClientSettings httpClientSettings;
+    private final WebSocketSettings webSocketSettings;
+    private final EventStreamSettings eventStreamSettings;
+    private final UploadSettings uploadSettings;
+    private final StaticFilesSettings staticFilesSettings;
+    private final SessionSettings sessionSettings;
+    private final HandlerTreeSettings handlerTreeSettings;
     private final int loaderRate;
     private final int probeRate;
     private final String reportRootPath; // java.nio.Path isn't serializable, so we must use a String.
@@ -78,7 +127,18 @@ public class ClusteredPerfTest implements Serializable, Closeable
         this.runDuration = runDuration;
         this.monitoredItems = perfTestParams.getMonitoredItems();
         this.protocol = perfTestParams.getProtocol();
-        this.serverUri = perfTestParams.getServerUri();
+        this.serverProtocol = perfTestParams.getServerProtocol();
+        this.serverUris = perfTestParams.getServerUris();
+        this.targetUris = perfTestParams.getTargetUris();
+        this.proxied = perfTestParams.isProxied();
+        this.proxyMaxConnectionsPerDestination = perfTestParams.getProxyMaxConnectionsPerDestination();
+        this.httpClientSettings = perfTestParams.getHttpClientSettings();
+        this.webSocketSettings = perfTestParams.getWebSocketSettings();
+        this.eventStreamSettings = perfTestParams.getEventStreamSettings();
+        this.uploadSettings = perfTestParams.getUploadSettings();
+        this.staticFilesSettings = perfTestParams.getStaticFilesSettings();
+        this.sessionSettings = perfTestParams.getSessionSettings();
+        this.handlerTreeSettings = perfTestParams.getHandlerTreeSettings();
         this.loaderRate = perfTestParams.getLoaderRate();
         this.probeRate = perfTestParams.getProbeRate();
         this.testedHandlerSupplier = testedHandlerSupplier;
@@ -104,38 +164,81 @@ public class ClusteredPerfTest implements Serializable, Closeable
         NodeArray serverArray = cluster.nodeArray("server");
         NodeArray loadersArray = cluster.nodeArray("loaders");
         NodeArray probeArray = cluster.nodeArray("probe");
+        NodeArray proxyArray = proxied ? cluster.nodeArray("proxy") : null;
 
-        NodeJob logSysInfo = tools -> LOG.info("{} '{}/{}': running JVM version '{}'",
-            java.net.InetAddress.getLocalHost().getHostName(),
-            System.getProperty("os.name"),
-            System.getProperty("os.arch"),
-            System.getProperty("java.vm.version"));
-        List<NodeArrayFuture> futures = List.of(
+        NodeJob logSysInfo = tools ->
+        {
+            LOG.info("{} '{}/{}': running JVM version '{}'",
+                java.net.InetAddress.getLocalHost().getHostName(),
+                System.getProperty("os.name"),
+                System.getProperty("os.arch"),
+                System.getProperty("java.vm.version"));
+            writeNodeInfo();
+        };
+        List<NodeArrayFuture> futures = new ArrayList<>(List.of(
             serverArray.executeOnAll(logSysInfo),
             loadersArray.executeOnAll(logSysInfo),
             probeArray.executeOnAll(logSysInfo)
-        );
+        ));
+        if (proxyArray != null)
+            futures.add(proxyArray.executeOnAll(logSysInfo));
         for (NodeArrayFuture future : futures)
         {
             future.get(30, TimeUnit.SECONDS);
         }
 
+        if (staticFilesSettings != null)
+        {
+            // generating the files can take much longer than starting the server
+            LOG.info("Generating the static files...");
+            serverArray.executeOnAll(tools -> StaticFileTree.generate(staticFilesSettings)).get(STATIC_FILES_GENERATION_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+        }
         LOG.info("Starting the server...");
-        serverArray.executeOnAll(tools -> startServer(protocol, serverUri.getPort(), tools.nodeEnvironment())).get(30, TimeUnit.SECONDS);
+        serverArray.executeOnAll(tools -> startServer(serverProtocol, serverUris.get(0).getPort(), tools.nodeEnvironment())).get(30, TimeUnit.SECONDS);
+        if (proxyArray != null)
+        {
+            LOG.info("Starting the proxy...");
+            proxyArray.executeOnAll(tools -> startProxy(protocol, targetUris.get(0).getPort(), nextTargetUri(tools.atomicCounter("proxy-target-index", 0L), serverUris), tools.nodeEnvironment())).get(30, TimeUnit.SECONDS);
+        }
+        // the loads must last until the end of the run however long the warmup gate holds recording back
+        Duration loadedRunDuration = runDuration.plus(WARMUP_GATE_MAX);
         LOG.info("Starting the loaders...");
-        loadersArray.executeOnAll(tools -> runLoadGenerator(protocol, serverUri, loaderRate, warmupDuration, runDuration, tools.nodeEnvironment())).get(30, TimeUnit.SECONDS);
+        loadersArray.executeOnAll(tools -> runLoadGenerator(protocol, nextTargetUri(tools.atomicCounter("loaders-target-index", 0L), targetUris), loaderRate, warmupDuration, loadedRunDuration, tools.nodeEnvironment())).get(30, TimeUnit.SECONDS);
+        if (eventStreamSettings != null && eventStreamSettings.idleStreams() > 0)
+        {
+            // the heap of an idle stream is what the idle streams add on top of the streams receiving events
+            LOG.info("Measuring the server heap used by the idle event streams...");
+            serverArray.executeOnAll(tools -> idleStreamHeapRecorders(tools.nodeEnvironment()).forEach(IdleStreamHeapRecorder::measureBaseline)).get(30, TimeUnit.SECONDS);
+            loadersArray.executeOnAll(tools -> ((EventStreamLoader)tools.nodeEnvironment().get(EventStreamLoader.class.getName())).openIdleStreams()).get(90, TimeUnit.SECONDS);
+            serverArray.executeOnAll(tools -> idleStreamHeapRecorders(tools.nodeEnvironment()).forEach(IdleStreamHeapRecorder::measure)).get(30, TimeUnit.SECONDS);
+        }
         LOG.info("Starting the probe...");
-        probeArray.executeOnAll(tools -> runProbeGenerator(protocol, serverUri, probeRate, warmupDuration, runDuration, tools.nodeEnvironment())).get(30, TimeUnit.SECONDS);
+        probeArray.executeOnAll(tools -> runProbeGenerator(protocol, nextTargetUri(tools.atomicCounter("probe-target-index", 0L), targetUris), probeRate, warmupDuration, loadedRunDuration, tools.nodeEnvironment())).get(30, TimeUnit.SECONDS);
 
         LOG.info("Warming up {}s ...", warmupDuration.toSeconds());
         Thread.sleep(warmupDuration.toMillis());
+        Duration gateWait = Duration.ZERO;
+        if (!WARMUP_GATE_MAX.isZero())
+        {
+            LOG.info("Waiting at most {}s for the server's JIT compilation to settle...", WARMUP_GATE_MAX.toSeconds());
+            long gateStart = System.nanoTime();
+            serverArray.executeOnAll(tools -> awaitWarmupGate(tools.nodeEnvironment())).get(WARMUP_GATE_MAX.toSeconds() + 30, TimeUnit.SECONDS);
+            gateWait = Duration.ofNanos(System.nanoTime() - gateStart);
+        }
+        // what the warmup gate did not use of its time is still loaded after the run
+        long unusedGateSeconds = Math.max(0L, WARMUP_GATE_MAX.minus(gateWait).toSeconds());
 
         LOG.info("Running {}s ...", runDuration.toSeconds());
         long before = System.nanoTime();
 
         NodeJob recordingJob = tools ->
         {
-            try (ConfigurableMonitor ignore = new ConfigurableMonitor(monitoredItems))
+            // what was started with the server keeps running, only the rest of the items is started now
+            ConfigurableMonitor serverStartMonitor = (ConfigurableMonitor)tools.nodeEnvironment().remove(ConfigurableMonitor.class.getName());
+            EnumSet<ConfigurableMonitor.Item> recordingItems = EnumSet.copyOf(monitoredItems);
+            if (serverStartMonitor != null)
+                recordingItems.removeAll(serverStartMonitoredItems());
+            try (serverStartMonitor; ConfigurableMonitor ignore = new ConfigurableMonitor(recordingItems, tools.nodeEnvironment()))
             {
                 @SuppressWarnings("unchecked")
                 List<Recorder> recorders = (List<Recorder>)tools.nodeEnvironment().get(Recorder.class.getName());
@@ -157,6 +260,7 @@ public class ClusteredPerfTest implements Serializable, Closeable
         NodeArrayFuture serverFuture = serverArray.executeOnAll(recordingJob);
         NodeArrayFuture loadersFuture = loadersArray.executeOnAll(recordingJob);
         NodeArrayFuture probeFuture = probeArray.executeOnAll(recordingJob);
+        NodeArrayFuture proxyFuture = proxyArray != null ? proxyArray.executeOnAll(recordingJob) : null;
 
         try
         {
@@ -172,9 +276,14 @@ public class ClusteredPerfTest implements Serializable, Closeable
             }
             finally
             {
-                waitForFutures(30, TimeUnit.SECONDS, serverFuture, loadersFuture, probeFuture);
+                waitForFutures(30 + unusedGateSeconds, TimeUnit.SECONDS, serverFuture, loadersFuture, probeFuture, proxyFuture);
             }
 
+            if (proxyArray != null)
+            {
+                LOG.info("Stopping the proxy...");
+                proxyArray.executeOnAll((tools) -> stopServer(tools.nodeEnvironment())).get(30, TimeUnit.SECONDS);
+            }
             LOG.info("Stopping the server...");
             serverArray.executeOnAll((tools) -> stopServer(tools.nodeEnvironment())).get(30, TimeUnit.SECONDS);
 
@@ -210,9 +319,13 @@ public class ClusteredPerfTest implements Serializable, Closeable
                     loadersArray.executeOn(id, dump).get();
                 }
                 probeArray.executeOn(probeFuture.getNotDoneNodeIds(), dump).get();
+                if (proxyArray != null)
+                    proxyArray.executeOn(proxyFuture.getNotDoneNodeIds(), dump).get();
 
                 msg.append(String.format("; nodes that failed to stop: server=%s loaders=%s probe=%s",
                     serverFuture.getNotDoneNodeIds(), loadersFuture.getNotDoneNodeIds(), probeFuture.getNotDoneNodeIds()));
+                if (proxyFuture != null)
+                    msg.append(String.format(" proxy=%s", proxyFuture.getNotDoneNodeIds()));
                 LOG.error(msg.toString(), e);
             }
             catch (Exception subEx)
@@ -223,12 +336,41 @@ public class ClusteredPerfTest implements Serializable, Closeable
         }
     }
 
+    private static void writeNodeInfo() throws IOException
+    {
+        // downloaded with the rest of the node's files, so each run records what it ran on
+        Properties properties = new Properties();
+        properties.setProperty("hostname", java.net.InetAddress.getLocalHost().getHostName());
+        properties.setProperty("os.name", System.getProperty("os.name"));
+        properties.setProperty("os.arch", System.getProperty("os.arch"));
+        properties.setProperty("available.processors", Integer.toString(Runtime.getRuntime().availableProcessors()));
+        properties.setProperty("java.vm.name", System.getProperty("java.vm.name"));
+        properties.setProperty("java.vm.vendor", System.getProperty("java.vm.vendor"));
+        properties.setProperty("java.vm.version", System.getProperty("java.vm.version"));
+        properties.setProperty("jvm.arguments", String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()));
+        properties.setProperty("jetty.version", Jetty.VERSION);
+        try (OutputStream os = Files.newOutputStream(Path.of(NODE_INFO_FILENAME)))
+        {
+            properties.store(os, null);
+        }
+    }
+
+    private static URI nextTargetUri(AtomicCounter targetIndex, List<URI> targetUris)
+    {
+        // spread the nodes of an array across their targets, round-robin
+        URI targetUri = targetUris.get((int)(targetIndex.getAndIncrement() % targetUris.size()));
+        LOG.info("targeting {}", targetUri);
+        return targetUri;
+    }
+
     private void waitForFutures(long time, TimeUnit unit, NodeArrayFuture... futures) throws Exception
     {
         LOG.info("  Waiting for all report files to be written...");
         Exception ex = null;
         for (NodeArrayFuture future : futures)
         {
+            if (future == null)
+                continue;
             try
             {
                 future.get(time, unit);
@@ -248,13 +390,81 @@ public class ClusteredPerfTest implements Serializable, Closeable
 
     private void startServer(PerfTestParams.Protocol protocol, int serverPort, Map<String, Object> env) throws Exception
     {
-        Server server = new Server();
+        // Jetty internals monitoring needs an instrumented thread pool (sized like the default one) and instrumented selectors.
+        boolean monitorJettyServer = monitoredItems.contains(ConfigurableMonitor.Item.JETTY_SERVER);
+        ThreadPool threadPool = monitorJettyServer ? new MonitoredQueuedThreadPool(200) : null;
+        // Buffer pool monitoring needs the pool to be decorated before the server is created.
+        ByteBufferPool byteBufferPool = monitoredItems.contains(ConfigurableMonitor.Item.BYTE_BUFFER_POOL) ? new TrackingByteBufferPool(new ArrayByteBufferPool()) : null;
+        Server server = new Server(threadPool, null, byteBufferPool);
 
 //        server.setDumpBeforeStop(true);
 
 //        MBeanContainer mbContainer = new MBeanContainer(ManagementFactory.getPlatformMBeanServer());
 //        server.addBean(mbContainer);
 
+        ServerConnector serverConnector = newServerConnector(server, protocol, serverPort, monitorJettyServer);
+        server.addConnector(serverConnector);
+
+        LatencyRecorder latencyRecorder = new LatencyRecorder("perf.hlog");
+        Handler testedHandler = testedHandlerSupplier.get();
+        if (uploadSettings != null)
+            testedHandler = new UploadAccountingHandler(testedHandler);
+        Handler latencyRecordingHandler = new ModernLatencyRecordingHandler(testedHandler, latencyRecorder);
+//        StatisticsHandler statisticsHandler = new StatisticsHandler(latencyRecordingHandler);
+//        server.setHandler(statisticsHandler);
+        server.setHandler(latencyRecordingHandler);
+        server.start();
+
+//        env.put(StatisticsHandler.class.getName(), statisticsHandler);
+        // tested handlers can record their own stats by being recorders
+        List<Recorder> recorders = new ArrayList<>();
+        recorders.add(latencyRecorder);
+        recorders.addAll(server.getContainedBeans(Recorder.class));
+        if (staticFilesSettings != null)
+            recorders.add(new PageCacheRecorder());
+        env.put(Recorder.class.getName(), recorders);
+        env.put(CompletableFuture.class.getName(), CompletableFuture.completedFuture(null));
+        env.put(Server.class.getName(), server);
+        if (!WARMUP_GATE_MAX.isZero())
+            env.put(JitWarmupGate.class.getName(), new JitWarmupGate());
+        EnumSet<ConfigurableMonitor.Item> serverStartItems = serverStartMonitoredItems();
+        if (!serverStartItems.isEmpty())
+            env.put(ConfigurableMonitor.class.getName(), new ConfigurableMonitor(serverStartItems, env));
+    }
+
+    /**
+     * The monitored items that must also cover the warmup, so they are started with the server and closed after recording.
+     */
+    private EnumSet<ConfigurableMonitor.Item> serverStartMonitoredItems()
+    {
+        // the warmup is when most of the JIT compilations happen
+        EnumSet<ConfigurableMonitor.Item> items = EnumSet.of(ConfigurableMonitor.Item.JIT);
+        // snapshots are there to show how the profile evolves from the first request on
+        if (monitoredItems.contains(ConfigurableMonitor.Item.ASYNC_PROF_SNAPSHOTS))
+        {
+            items.addAll(EnumSet.of(ConfigurableMonitor.Item.ASYNC_PROF_CPU, ConfigurableMonitor.Item.ASYNC_PROF_ALLOC,
+                ConfigurableMonitor.Item.ASYNC_PROF_LOCK, ConfigurableMonitor.Item.ASYNC_PROF_CACHE_MISSES, ConfigurableMonitor.Item.ASYNC_PROF_SNAPSHOTS));
+        }
+        items.retainAll(monitoredItems);
+        return items;
+    }
+
+    private static List<IdleStreamHeapRecorder> idleStreamHeapRecorders(Map<String, Object> env)
+    {
+        Server server = (Server)env.get(Server.class.getName());
+        return List.copyOf(server.getContainedBeans(IdleStreamHeapRecorder.class));
+    }
+
+    private void awaitWarmupGate(Map<String, Object> env) throws Exception
+    {
+        try (JitWarmupGate jitWarmupGate = (JitWarmupGate)env.remove(JitWarmupGate.class.getName()))
+        {
+            jitWarmupGate.await(WARMUP_GATE_MAX);
+        }
+    }
+
+    private ServerConnector newServerConnector(Server server, PerfTestParams.Protocol protocol, int serverPort, boolean monitored) throws IOException
+    {
         HttpConfiguration httpConfiguration = new HttpConfiguration();
         if (protocol.isSecure())
         {
@@ -289,28 +499,41 @@ public class ClusteredPerfTest implements Serializable, Closeable
         }
         connectionFactories.add(http);
 
-        ServerConnector serverConnector = new ServerConnector(server, 4, 24, connectionFactories.toArray(new ConnectionFactory[0]));
+        ConnectionFactory[] factories = connectionFactories.toArray(new ConnectionFactory[0]);
+        ServerConnector serverConnector = monitored ? new MonitoredServerConnector(server, 4, 24, factories) : new ServerConnector(server, 4, 24, factories);
         serverConnector.setPort(serverPort);
+        return serverConnector;
+    }
 
-        server.addConnector(serverConnector);
-
+    private void startProxy(PerfTestParams.Protocol protocol, int proxyPort, URI backendUri, Map<String, Object> env) throws Exception
+    {
+        boolean monitorJettyServer = monitoredItems.contains(ConfigurableMonitor.Item.JETTY_SERVER);
+        ThreadPool threadPool = monitorJettyServer ? new MonitoredQueuedThreadPool(200) : null;
+        Server server = new Server(threadPool);
+        server.addConnector(newServerConnector(server, protocol, proxyPort, monitorJettyServer));
+
+        // the proxy always talks clear text to the server, with the HTTP version the server listens to
+        HttpClientTransport transport = serverProtocol.getVersion() == PerfTestParams.HttpVersion.HTTP2
+            ? new HttpClientTransportOverHTTP2(new HTTP2Client())
+            : new HttpClientTransportOverHTTP();
         LatencyRecorder latencyRecorder = new LatencyRecorder("perf.hlog");
-        Handler latencyRecordingHandler = new ModernLatencyRecordingHandler(testedHandlerSupplier.get(), latencyRecorder);
-//        StatisticsHandler statisticsHandler = new StatisticsHandler(latencyRecordingHandler);
-//        server.setHandler(statisticsHandler);
-        server.setHandler(latencyRecordingHandler);
+        LatencyRecorder upstreamLatencyRecorder = new LatencyRecorder("proxy-upstream.hlog");
+        LatencyRecorder addedLatencyRecorder = new LatencyRecorder("proxy-added.hlog");
+        Handler proxyHandler = new LatencyRecordingProxyHandler(backendUri, transport, proxyMaxConnectionsPerDestination, upstreamLatencyRecorder, addedLatencyRecorder);
+        server.setHandler(new ModernLatencyRecordingHandler(proxyHandler, latencyRecorder));
         server.start();
 
-//        env.put(StatisticsHandler.class.getName(), statisticsHandler);
-        env.put(Recorder.class.getName(), List.of(latencyRecorder));
+        env.put(Recorder.class.getName(), List.of(latencyRecorder, upstreamLatencyRecorder, addedLatencyRecorder));
         env.put(CompletableFuture.class.getName(), CompletableFuture.completedFuture(null));
         env.put(Server.class.getName(), server);
     }
 
-
     private void stopServer(Map<String, Object> env) throws Exception
     {
-        ((Server)env.get(Server.class.getName())).stop();
+        Server server = (Server)env.get(Server.class.getName());
+        server.stop();
+        if (server.getByteBufferPool() instanceof TrackingByteBufferPool trackingByteBufferPool)
+            trackingByteBufferPool.writeLeaks(ByteBufferPoolMonitor.DEFAULT_LEAKS_FILENAME);
 //        StatisticsHandler statisticsHandler = (StatisticsHandler)env.get(StatisticsHandler.class.getName());
 //        try (PrintWriter printWriter = new PrintWriter("StatisticsHandler.txt"))
 //        {
@@ -320,6 +543,22 @@ public class ClusteredPerfTest implements Serializable, Closeable
 
     private void runLoadGenerator(PerfTestParams.Protocol protocol, URI serverUri, int loaderRate, Duration warmupDuration, Duration runDuration, Map<String, Object> env) throws Exception
     {
+        if (httpClientSettings != null || uploadSettings != null || staticFilesSettings != null || sessionSettings != null || handlerTreeSettings != null)
+        {
+            runHttpClientLoader(protocol, serverUri, loaderRate, warmupDuration, runDuration, env);
+            return;
+        }
+        if (webSocketSettings != null)
+        {
+            runWebSocketLoader(serverUri, loaderRate, warmupDuration, runDuration, env);
+            return;
+        }
+        if (eventStreamSettings != null)
+        {
+            runEventStreamLoader(protocol, serverUri, loaderRate, env);
+            return;
+        }
+
         LatencyRecorder latencyRecorder = new LatencyRecorder("perf.hlog");
         ResponseTimeListener responseTimeListener = new ResponseTimeListener(latencyRecorder);
         ResponseStatusListener responseStatusListener = new ResponseStatusListener("http-client-statuses.log");
@@ -362,6 +601,81 @@ public class ClusteredPerfTest implements Serializable, Closeable
         env.put(CompletableFuture.class.getName(), cf);
     }
 
+    private void runHttpClientLoader(PerfTestParams.Protocol protocol, URI serverUri, int loaderRate, Duration warmupDuration, Duration runDuration, Map<String, Object> env) throws Exception
+    {
+        LatencyRecorder latencyRecorder = new LatencyRecorder("perf.hlog");
+        ResponseStatusListener responseStatusListener = new ResponseStatusListener("http-client-statuses.log");
+        HttpClientSettings settings = httpClientSettings != null ? httpClientSettings : HttpClientSettings.defaults(protocol.getVersion());
+        HttpClientLoader httpClientLoader = new HttpClientLoader(serverUri, protocol.getVersion(), settings, loaderRate, uploadSettings, latencyRecorder, responseStatusListener);
+        if (staticFilesSettings != null)
+            httpClientLoader.setPathSupplier(staticFilesSettings::randomPath);
+        if (handlerTreeSettings != null)
+            httpClientLoader.setPathSupplier(handlerTreeSettings::randomPath);
+        if (sessionSettings != null)
+            httpClientLoader.setSessionUsers(sessionSettings.users());
+        env.put(Recorder.class.getName(), List.of(latencyRecorder, responseStatusListener, httpClientLoader));
+
+        LOG.info("http client load begin with settings '{}' and upload '{}'", settings, uploadSettings);
+        CompletableFuture<Void> cf = httpClientLoader.begin(warmupDuration.plus(runDuration));
+        cf = cf.whenComplete((x, f) -> {
+            if (f == null)
+            {
+                LOG.info("http client load complete");
+            }
+            else
+            {
+                LOG.info("http client load failure", f);
+            }
+        });
+        env.put(CompletableFuture.class.getName(), cf);
+    }
+
+    private void runWebSocketLoader(URI serverUri, int messageRate, Duration warmupDuration, Duration runDuration, Map<String, Object> env) throws Exception
+    {
+        LatencyRecorder latencyRecorder = new LatencyRecorder("perf.hlog");
+        ResponseStatusListener responseStatusListener = new ResponseStatusListener("http-client-statuses.log");
+        WebSocketLoader webSocketLoader = new WebSocketLoader(serverUri, webSocketSettings, messageRate, latencyRecorder, responseStatusListener);
+        env.put(Recorder.class.getName(), List.of(latencyRecorder, responseStatusListener, webSocketLoader));
+
+        LOG.info("websocket load begin with settings '{}'", webSocketSettings);
+        CompletableFuture<Void> cf = webSocketLoader.begin(warmupDuration.plus(runDuration));
+        cf = cf.whenComplete((x, f) -> {
+            if (f == null)
+            {
+                LOG.info("websocket load complete");
+            }
+            else
+            {
+                LOG.info("websocket load failure", f);
+            }
+        });
+        env.put(CompletableFuture.class.getName(), cf);
+    }
+
+    private void runEventStreamLoader(PerfTestParams.Protocol protocol, URI serverUri, int eventRate, Map<String, Object> env) throws Exception
+    {
+        LatencyRecorder latencyRecorder = new LatencyRecorder("perf.hlog");
+        ResponseStatusListener responseStatusListener = new ResponseStatusListener("http-client-statuses.log");
+        EventStreamLoader eventStreamLoader = new EventStreamLoader(serverUri, protocol.getVersion(), eventStreamSettings, eventRate, latencyRecorder, responseStatusListener);
+        // the loader closes its streams when it stops recording, so it must come last
+        env.put(Recorder.class.getName(), List.of(latencyRecorder, responseStatusListener, eventStreamLoader));
+        env.put(EventStreamLoader.class.getName(), eventStreamLoader);
+
+        LOG.info("event stream load begin with settings '{}'", eventStreamSettings);
+        CompletableFuture<Void> cf = eventStreamLoader.begin();
+        cf = cf.whenComplete((x, f) -> {
+            if (f == null)
+            {
+                LOG.info("event stream load complete");
+            }
+            else
+            {
+                LOG.info("event stream load failure", f);
+            }
+        });
+        env.put(CompletableFuture.class.getName(), cf);
+    }
+
     private void runProbeGenerator(PerfTestParams.Protocol protocol, URI serverUri, int probeRate, Duration warmupDuration, Duration runDuration, Map<String, Object> env) throws Exception
     {
         LatencyRecorder latencyRecorder = new LatencyRecorder("perf.hlog");
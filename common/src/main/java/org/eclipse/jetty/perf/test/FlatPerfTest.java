@@ -2,7 +2,13 @@ package org.eclipse.jetty.perf.test;
 
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.LongStream;
 
+import org.eclipse.jetty.perf.results.RegressionDetector;
+import org.eclipse.jetty.perf.results.ResultsStore;
+import org.eclipse.jetty.perf.results.RunSummary;
 import org.eclipse.jetty.perf.util.OutputCapturer;
 import org.eclipse.jetty.perf.util.ReportUtil;
 import org.eclipse.jetty.perf.util.SerializableSupplier;
@@ -11,11 +17,25 @@ import org.mortbay.jetty.orchestrator.configuration.NodeArrayConfiguration;
 
 import static org.eclipse.jetty.perf.assertions.Assertions.assertHttpClientStatuses;
 import static org.eclipse.jetty.perf.assertions.Assertions.assertP99Latency;
+import static org.eclipse.jetty.perf.assertions.Assertions.assertP99LatencyPerNode;
+import static org.eclipse.jetty.perf.assertions.Assertions.assertP99LatencyVsBaseline;
 import static org.eclipse.jetty.perf.assertions.Assertions.assertThroughput;
 
 public class FlatPerfTest
 {
-    public static boolean runTest(String testName, PerfTestParams params, Duration warmupDuration, Duration runDuration, SerializableSupplier<Handler> testedHandlerSupplier) throws Exception
+    /**
+     * {@code threshold} (the default) asserts the P99 latencies against the expected values of the params,
+     * {@code baseline} asserts them against the distributions of the previous runs stored in the {@link ResultsStore}.
+     * Params without expected latencies are always asserted against the baseline, and only once it is large enough.
+     */
+    private static final String ASSERTION_MODE = System.getProperty("test.assertion.mode", "threshold");
+    private static final double BASELINE_ALPHA = Double.parseDouble(System.getProperty("test.assertion.alpha", "0.01"));
+    private static final double BASELINE_MIN_EFFECT_PCT = Double.parseDouble(System.getProperty("test.assertion.min-effect-pct", "5.0"));
+
+    /**
+     * @return the summary of the run, which tells whether it passed its assertions.
+     */
+    public static RunSummary runTest(String testName, PerfTestParams params, Duration warmupDuration, Duration runDuration, SerializableSupplier<Handler> testedHandlerSupplier) throws Exception
     {
         Path reportRootPath = ReportUtil.createReportRootPath(testName, params.toString());
         try (OutputCapturer ignore = new OutputCapturer(reportRootPath))
@@ -32,6 +52,27 @@ public class FlatPerfTest
             long totalLoadersRequestCount = params.getLoaderRate() * loadersCount * runDuration.toSeconds();
             long totalProbeRequestCount = params.getProbeRate() * runDuration.toSeconds();
 
+            List<String> nodeArrayIds = params.getClusterConfiguration().nodeArrays().stream().map(NodeArrayConfiguration::id).toList();
+            RunSummary runSummary = RunSummary.fromReport(testName, params.toString(), reportRootPath, nodeArrayIds);
+            ResultsStore resultsStore = new ResultsStore();
+            List<RunSummary> history = resultsStore.history(testName, params.toString());
+            List<RunSummary> baseline = history.subList(Math.max(0, history.size() - RegressionDetector.DEFAULT_BASELINE_SIZE), history.size());
+            boolean baselineMode = "baseline".equals(ASSERTION_MODE) || !params.hasExpectedLatencies();
+            boolean assertLatencies = true;
+            if (baselineMode && baseline.size() < RegressionDetector.MIN_BASELINE_SIZE)
+            {
+                if (params.hasExpectedLatencies())
+                {
+                    System.out.println(" Only " + baseline.size() + " previous run(s), asserting latencies against thresholds");
+                    baselineMode = false;
+                }
+                else
+                {
+                    System.out.println(" Only " + baseline.size() + " previous run(s) and no expected latencies, not asserting latencies");
+                    assertLatencies = false;
+                }
+            }
+
             boolean succeeded = true;
 
             System.out.println(" Asserting loaders");
@@ -46,15 +87,51 @@ public class FlatPerfTest
             // assert probe had a given throughput and max latency
             succeeded &= assertThroughput(reportRootPath, probeCfg, totalProbeRequestCount, 1);
             // assert probe had a given max latency
-            succeeded &= assertP99Latency(reportRootPath, probeCfg, params.getExpectedP99ProbeLatency(), params.getExpectedP99ErrorMargin(), 2);
+            if (!assertLatencies)
+                System.out.println("  " + probeCfg.id() + " P99 latencies recorded for the baseline");
+            else if (baselineMode)
+                succeeded &= assertP99LatencyVsBaseline(reportRootPath, probeCfg, baselineIntervalP99s(baseline, probeCfg.id()), BASELINE_ALPHA, BASELINE_MIN_EFFECT_PCT);
+            else
+                succeeded &= assertP99Latency(reportRootPath, probeCfg, params.getExpectedP99ProbeLatency(), params.getExpectedP99ErrorMargin(), 2);
 
             System.out.println(" Asserting server");
-            // assert server had a given throughput
-            succeeded &= assertThroughput(reportRootPath, serverCfg, totalLoadersRequestCount, 1);
-            // assert server had a given max latency
-            succeeded &= assertP99Latency(reportRootPath, serverCfg, params.getExpectedP99ServerLatency(), params.getExpectedP99ErrorMargin(), 2);
+            // assert server had a given throughput; websocket messages and streamed events are not requests, so only the probe's are recorded
+            boolean loadersSendRequests = params.getWebSocketSettings() == null && params.getEventStreamSettings() == null;
+            long totalServerRequestCount = loadersSendRequests ? totalLoadersRequestCount : totalProbeRequestCount;
+            succeeded &= assertThroughput(reportRootPath, serverCfg, totalServerRequestCount, 1);
+            // assert each server had a given max latency
+            if (!assertLatencies)
+                System.out.println("  " + serverCfg.id() + " P99 latencies recorded for the baseline");
+            else if (baselineMode)
+                succeeded &= assertP99LatencyVsBaseline(reportRootPath, serverCfg, baselineIntervalP99s(baseline, serverCfg.id()), BASELINE_ALPHA, BASELINE_MIN_EFFECT_PCT);
+            else
+                succeeded &= assertP99LatencyPerNode(reportRootPath, serverCfg, params.getExpectedP99ServerLatency(), params.getExpectedP99ErrorMargin(), 2);
 
-            return succeeded;
+            if (params.isProxied())
+            {
+                NodeArrayConfiguration proxyCfg = params.getClusterConfiguration().nodeArrays().stream().filter(nac -> nac.id().equals("proxy")).findAny().orElseThrow();
+                System.out.println(" Asserting proxy");
+                // assert proxy forwarded all the loaders' and probe's requests
+                succeeded &= assertThroughput(reportRootPath, proxyCfg, totalLoadersRequestCount + totalProbeRequestCount, 1);
+            }
+
+            System.out.println(" Comparing with previous runs");
+            RegressionDetector.print(new RegressionDetector().detect(runSummary, history), System.out);
+            // only succeeded runs become part of the baseline
+            if (succeeded)
+                resultsStore.save(runSummary);
+
+            return runSummary.withSucceeded(succeeded);
         }
     }
+
+    private static long[] baselineIntervalP99s(List<RunSummary> baseline, String nodeArrayId)
+    {
+        // pool the intervals of all the baseline runs
+        return baseline.stream()
+            .map(summary -> summary.getNodeArrays().get(nodeArrayId))
+            .filter(Objects::nonNull)
+            .flatMapToLong(summary -> LongStream.of(summary.getIntervalP99s()))
+            .toArray();
+    }
 }
@@ -0,0 +1,114 @@
+package org.eclipse.jetty.perf.test;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.eclipse.jetty.perf.jdk.JvmSettings;
+import org.eclipse.jetty.perf.results.MatrixReport;
+import org.eclipse.jetty.perf.results.RunSummary;
+import org.eclipse.jetty.perf.util.ReportUtil;
+import org.eclipse.jetty.perf.util.SerializableSupplier;
+import org.eclipse.jetty.server.Handler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the same test once per server JVM of a matrix of JDKs, garbage collectors and heap sizes, then writes
+ * a {@code matrix.txt} report with a line per JVM. The matrix is configured with system properties:
+ * {@code test.matrix.jdks} the comma-separated JDK names, by default the one of {@code test.jdk.name};
+ * {@code test.matrix.gcs} the comma-separated {@link JvmSettings.GarbageCollector} names, by default the one of the default JVM;
+ * {@code test.matrix.heaps} the comma-separated heap sizes in GB, by default the one of the default JVM.
+ * The JVMs whose JDK does not ship the garbage collector are skipped. Each JVM has its own latencies, so the
+ * params should have no expected latencies to assert every JVM against the baseline of its previous runs.
+ */
+public class JvmMatrix
+{
+    private static final Logger LOG = LoggerFactory.getLogger(JvmMatrix.class);
+    private static final List<String> PROPERTIES = List.of("test.matrix.jdks", "test.matrix.gcs", "test.matrix.heaps");
+
+    /**
+     * @return true if any of the matrix properties is set, for the matrix tests to be opt-in.
+     */
+    public static boolean isConfigured()
+    {
+        return PROPERTIES.stream().anyMatch(name -> System.getProperty(name) != null);
+    }
+
+    public static List<JvmSettings> configurations()
+    {
+        JvmSettings defaults = PerfTestParams.getDefaultJvmSettings();
+        List<String> jdks = split(System.getProperty("test.matrix.jdks", defaults.jdkName()));
+        List<JvmSettings.GarbageCollector> gcs = split(System.getProperty("test.matrix.gcs", defaults.gc().name())).stream()
+            .map(name -> JvmSettings.GarbageCollector.valueOf(name.toUpperCase(Locale.ROOT)))
+            .toList();
+        List<Integer> heaps = split(System.getProperty("test.matrix.heaps", Integer.toString(defaults.heapGb()))).stream()
+            .map(Integer::parseInt)
+            .toList();
+
+        List<JvmSettings> result = new ArrayList<>();
+        for (String jdk : jdks)
+        {
+            for (JvmSettings.GarbageCollector gc : gcs)
+            {
+                for (int heap : heaps)
+                {
+                    JvmSettings jvmSettings = new JvmSettings(jdk, gc, heap);
+                    if (jvmSettings.isSupported())
+                        result.add(jvmSettings);
+                    else
+                        LOG.info("Skipping JVM {}, {} does not ship {}", jvmSettings, jdk, gc);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the test succeeded with all the JVMs of the matrix.
+     */
+    public static boolean runTest(String testName, PerfTestParams params, Duration warmupDuration, Duration runDuration, SerializableSupplier<Handler> testedHandlerSupplier) throws Exception
+    {
+        boolean succeeded = true;
+        Map<String, RunSummary> summaries = new LinkedHashMap<>();
+        for (JvmSettings jvmSettings : configurations())
+        {
+            PerfTestParams jvmParams = params.withJvm(jvmSettings);
+            try
+            {
+                RunSummary runSummary = FlatPerfTest.runTest(testName, jvmParams, warmupDuration, runDuration, testedHandlerSupplier);
+                succeeded &= runSummary.isSucceeded();
+                summaries.put(jvmSettings.toString(), runSummary);
+            }
+            catch (Exception x)
+            {
+                // e.g.: a JVM that could not start, keep going with the rest of the matrix
+                LOG.warn("Could not run {} on JVM {}", testName, jvmSettings, x);
+                summaries.put(jvmSettings.toString(), null);
+                succeeded = false;
+            }
+        }
+
+        Path reportRootPath = ReportUtil.createReportRootPath(testName, params.toString() + "_jvm-matrix");
+        try (PrintStream ps = new PrintStream(Files.newOutputStream(reportRootPath.resolve("matrix.txt")), true, StandardCharsets.UTF_8))
+        {
+            MatrixReport.print(summaries, ps);
+        }
+        System.out.println(" Comparing JVMs");
+        MatrixReport.print(summaries, System.out);
+        return succeeded;
+    }
+
+    private static List<String> split(String value)
+    {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+}
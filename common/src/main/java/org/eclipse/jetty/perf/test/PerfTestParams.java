@@ -7,9 +7,19 @@ import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.eclipse.jetty.perf.client.HttpClientSettings;
+import org.eclipse.jetty.perf.client.SessionSettings;
+import org.eclipse.jetty.perf.client.UploadSettings;
+import org.eclipse.jetty.perf.files.StaticFilesSettings;
+import org.eclipse.jetty.perf.handler.HandlerTreeSettings;
+import org.eclipse.jetty.perf.jdk.JvmSettings;
 import org.eclipse.jetty.perf.jdk.LocalJdk;
 import org.eclipse.jetty.perf.monitoring.ConfigurableMonitor;
+import org.eclipse.jetty.perf.sse.EventStreamSettings;
+import org.eclipse.jetty.perf.websocket.WebSocketSettings;
 import org.mortbay.jetty.orchestrator.configuration.ClusterConfiguration;
 import org.mortbay.jetty.orchestrator.configuration.Jvm;
 import org.mortbay.jetty.orchestrator.configuration.Node;
@@ -21,6 +31,10 @@ public class PerfTestParams implements Serializable
 {
     private static final String JDK_TO_USE = System.getProperty("test.jdk.name", "load-jdk17");
     private static final String OPTIONAL_MONITORED_ITEMS = System.getProperty("test.optional.monitored.items", "");
+    // comma-separated hostnames of the server nodes; the loaders are spread across them round-robin
+    private static final String SERVER_HOSTS = System.getProperty("test.server.hosts", "load-master");
+    // comma-separated hostnames of the proxy nodes, only used by proxied params
+    private static final String PROXY_HOSTS = System.getProperty("test.proxy.hosts", "load-proxy");
 
     private static final EnumSet<ConfigurableMonitor.Item> DEFAULT_MONITORED_ITEMS = EnumSet.of(
         ConfigurableMonitor.Item.CMDLINE_CPU,
@@ -36,23 +50,9 @@ public class PerfTestParams implements Serializable
         addAll(ConfigurableMonitor.parseConfigurableMonitorItems(OPTIONAL_MONITORED_ITEMS));
     }});
 
-    private static final ClusterConfiguration CLUSTER_CONFIGURATION = new SimpleClusterConfiguration()
-        .jvm(new Jvm(new LocalJdk(JDK_TO_USE)))
-        .nodeArray(new SimpleNodeArrayConfiguration("server")
-            .node(new Node("load-master"))
-            .jvm(new Jvm(new LocalJdk(JDK_TO_USE), defaultJvmOpts("-Xms32g", "-Xmx32g")))
-        )
-        .nodeArray(new SimpleNodeArrayConfiguration("loaders")
-            .node(new Node("load-client-1"))
-            .node(new Node("load-client-2"))
-            .node(new Node("load-client-3"))
-            .node(new Node("load-client-4"))
-            .jvm(new Jvm(new LocalJdk(JDK_TO_USE), defaultJvmOpts("-Xms8g", "-Xmx8g")))
-        )
-        .nodeArray(new SimpleNodeArrayConfiguration("probe")
-            .node(new Node("load-sample"))
-            .jvm(new Jvm(new LocalJdk(JDK_TO_USE), defaultJvmOpts("-Xint", "-Xms8g", "-Xmx8g")))
-        );
+    private static final JvmSettings DEFAULT_JVM_SETTINGS = JvmSettings.defaults(JDK_TO_USE);
+    // by proxied flag then server JVM settings, so that all the params of a test share the same configuration instance
+    private static final Map<Boolean, Map<JvmSettings, ClusterConfiguration>> CLUSTER_CONFIGURATIONS = new ConcurrentHashMap<>();
 
     public enum Protocol
     {
@@ -92,14 +92,132 @@ public class PerfTestParams implements Serializable
     private final long expectedP99ServerLatency;
     private final long expectedP99ProbeLatency;
     private final double expectedP99ErrorMargin;
+    private final HttpVersion proxyUpstreamVersion; // null when the loaders talk to the server directly
+    private final int proxyMaxConnectionsPerDestination;
+    private final HttpClientSettings httpClientSettings; // null when the loaders use the load generator
+    private final WebSocketSettings webSocketSettings; // null when the loaders use HTTP
+    private final EventStreamSettings eventStreamSettings; // null when the loaders send requests
+    private final UploadSettings uploadSettings; // null when the requests have no body
+    private final StaticFilesSettings staticFilesSettings; // null when the loaders all request the same path
+    private final SessionSettings sessionSettings; // null when the requests carry no cookie
+    private final HandlerTreeSettings handlerTreeSettings; // null when the server is not built as a handler tree
+    private final JvmSettings jvmSettings;
+
+    /**
+     * Params without expected latencies, for the variants that were never calibrated: their P99 latencies
+     * are asserted against the previous runs stored in the results store, see {@link FlatPerfTest}.
+     */
+    public PerfTestParams(Protocol protocol, int loaderRate)
+    {
+        this(protocol, loaderRate, 0L, 0L, 0.0);
+    }
 
     public PerfTestParams(Protocol protocol, int loaderRate, long expectedP99ServerLatency, long expectedP99ProbeLatency, double expectedP99ErrorMargin)
+    {
+        this(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin, null, 0, null, null, null, null, null, null, null, DEFAULT_JVM_SETTINGS);
+    }
+
+    private PerfTestParams(Protocol protocol, int loaderRate, long expectedP99ServerLatency, long expectedP99ProbeLatency, double expectedP99ErrorMargin, HttpVersion proxyUpstreamVersion, int proxyMaxConnectionsPerDestination, HttpClientSettings httpClientSettings, WebSocketSettings webSocketSettings, EventStreamSettings eventStreamSettings, UploadSettings uploadSettings, StaticFilesSettings staticFilesSettings, SessionSettings sessionSettings, HandlerTreeSettings handlerTreeSettings, JvmSettings jvmSettings)
     {
         this.protocol = protocol;
         this.loaderRate = loaderRate;
         this.expectedP99ServerLatency = expectedP99ServerLatency;
         this.expectedP99ProbeLatency = expectedP99ProbeLatency;
         this.expectedP99ErrorMargin = expectedP99ErrorMargin;
+        this.proxyUpstreamVersion = proxyUpstreamVersion;
+        this.proxyMaxConnectionsPerDestination = proxyMaxConnectionsPerDestination;
+        this.httpClientSettings = httpClientSettings;
+        this.webSocketSettings = webSocketSettings;
+        this.eventStreamSettings = eventStreamSettings;
+        this.uploadSettings = uploadSettings;
+        this.staticFilesSettings = staticFilesSettings;
+        this.sessionSettings = sessionSettings;
+        this.handlerTreeSettings = handlerTreeSettings;
+        this.jvmSettings = jvmSettings;
+    }
+
+    /**
+     * @return a copy of these params that puts a {@code proxy} node array between the loaders and the server,
+     * the proxy speaking the given HTTP version in clear text to the server.
+     */
+    public PerfTestParams proxied(HttpVersion upstreamVersion, int maxConnectionsPerDestination)
+    {
+        return new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin, upstreamVersion, maxConnectionsPerDestination, httpClientSettings, webSocketSettings, eventStreamSettings, uploadSettings, staticFilesSettings, sessionSettings, handlerTreeSettings, jvmSettings);
+    }
+
+    /**
+     * @return a copy of these params whose loaders send their requests with a plain {@code HttpClient}
+     * configured with the given settings, to benchmark the client rather than the server.
+     */
+    public PerfTestParams withHttpClient(HttpClientSettings settings)
+    {
+        return new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin, proxyUpstreamVersion, proxyMaxConnectionsPerDestination, settings, webSocketSettings, eventStreamSettings, uploadSettings, staticFilesSettings, sessionSettings, handlerTreeSettings, jvmSettings);
+    }
+
+    /**
+     * @return a copy of these params whose loaders exchange WebSocket messages with the server instead of
+     * sending HTTP requests; the loader rate then is in messages per second.
+     */
+    public PerfTestParams withWebSocket(WebSocketSettings settings)
+    {
+        return new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin, proxyUpstreamVersion, proxyMaxConnectionsPerDestination, httpClientSettings, settings, eventStreamSettings, uploadSettings, staticFilesSettings, sessionSettings, handlerTreeSettings, jvmSettings);
+    }
+
+    /**
+     * @return a copy of these params whose loaders keep Server-Sent Events streams open and receive events
+     * from the server instead of sending requests; the loader rate then is in events per second.
+     */
+    public PerfTestParams withEventStreams(EventStreamSettings settings)
+    {
+        return new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin, proxyUpstreamVersion, proxyMaxConnectionsPerDestination, httpClientSettings, webSocketSettings, settings, uploadSettings, staticFilesSettings, sessionSettings, handlerTreeSettings, jvmSettings);
+    }
+
+    /**
+     * @return a copy of these params whose loaders upload a request body with each request, sending them with
+     * the {@code HttpClient} loader, which uses the default client settings unless {@link #withHttpClient(HttpClientSettings)}
+     * configured others.
+     */
+    public PerfTestParams withUpload(UploadSettings settings)
+    {
+        return new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin, proxyUpstreamVersion, proxyMaxConnectionsPerDestination, httpClientSettings, webSocketSettings, eventStreamSettings, settings, staticFilesSettings, sessionSettings, handlerTreeSettings, jvmSettings);
+    }
+
+    /**
+     * @return a copy of these params whose loaders request random files of the given static file tree, sending
+     * them with the {@code HttpClient} loader, which uses the default client settings unless
+     * {@link #withHttpClient(HttpClientSettings)} configured others.
+     */
+    public PerfTestParams withStaticFiles(StaticFilesSettings settings)
+    {
+        return new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin, proxyUpstreamVersion, proxyMaxConnectionsPerDestination, httpClientSettings, webSocketSettings, eventStreamSettings, uploadSettings, settings, sessionSettings, handlerTreeSettings, jvmSettings);
+    }
+
+    /**
+     * @return a copy of these params whose loaders send their requests on behalf of many users, each carrying its
+     * own session cookie, with the {@code HttpClient} loader, which uses the default client settings unless
+     * {@link #withHttpClient(HttpClientSettings)} configured others.
+     */
+    public PerfTestParams withSessions(SessionSettings settings)
+    {
+        return new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin, proxyUpstreamVersion, proxyMaxConnectionsPerDestination, httpClientSettings, webSocketSettings, eventStreamSettings, uploadSettings, staticFilesSettings, settings, handlerTreeSettings, jvmSettings);
+    }
+
+    /**
+     * @return a copy of these params whose loaders spread their requests over the paths of the given handler tree,
+     * sending them with the {@code HttpClient} loader, which uses the default client settings unless
+     * {@link #withHttpClient(HttpClientSettings)} configured others.
+     */
+    public PerfTestParams withHandlerTree(HandlerTreeSettings settings)
+    {
+        return new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin, proxyUpstreamVersion, proxyMaxConnectionsPerDestination, httpClientSettings, webSocketSettings, eventStreamSettings, uploadSettings, staticFilesSettings, sessionSettings, settings, jvmSettings);
+    }
+
+    /**
+     * @return a copy of these params whose server runs on the JVM of the given settings instead of the default one.
+     */
+    public PerfTestParams withJvm(JvmSettings settings)
+    {
+        return new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin, proxyUpstreamVersion, proxyMaxConnectionsPerDestination, httpClientSettings, webSocketSettings, eventStreamSettings, uploadSettings, staticFilesSettings, sessionSettings, handlerTreeSettings, settings);
     }
 
     public Protocol getProtocol()
@@ -109,31 +227,149 @@ public class PerfTestParams implements Serializable
 
     public ClusterConfiguration getClusterConfiguration()
     {
-        return CLUSTER_CONFIGURATION;
+        return CLUSTER_CONFIGURATIONS.computeIfAbsent(isProxied(), proxied -> new ConcurrentHashMap<>())
+            .computeIfAbsent(jvmSettings, settings -> clusterConfiguration(isProxied(), settings));
+    }
+
+    public boolean isProxied()
+    {
+        return proxyUpstreamVersion != null;
+    }
+
+    /**
+     * @return the protocol the server listens to: the one of the loaders, or the one the proxy speaks to it.
+     */
+    public Protocol getServerProtocol()
+    {
+        if (!isProxied())
+            return protocol;
+        return proxyUpstreamVersion == HttpVersion.HTTP2 ? Protocol.h2c : Protocol.http;
     }
 
-    public URI getServerUri()
+    public int getProxyMaxConnectionsPerDestination()
     {
-        String serverHostname = null;
+        return proxyMaxConnectionsPerDestination;
+    }
+
+    public HttpClientSettings getHttpClientSettings()
+    {
+        return httpClientSettings;
+    }
+
+    public WebSocketSettings getWebSocketSettings()
+    {
+        return webSocketSettings;
+    }
+
+    public EventStreamSettings getEventStreamSettings()
+    {
+        return eventStreamSettings;
+    }
+
+    public UploadSettings getUploadSettings()
+    {
+        return uploadSettings;
+    }
+
+    public StaticFilesSettings getStaticFilesSettings()
+    {
+        return staticFilesSettings;
+    }
+
+    public SessionSettings getSessionSettings()
+    {
+        return sessionSettings;
+    }
+
+    public HandlerTreeSettings getHandlerTreeSettings()
+    {
+        return handlerTreeSettings;
+    }
+
+    public JvmSettings getJvmSettings()
+    {
+        return jvmSettings;
+    }
+
+    /**
+     * @return the JVM settings the server runs with when {@link #withJvm(JvmSettings)} is not called.
+     */
+    public static JvmSettings getDefaultJvmSettings()
+    {
+        return DEFAULT_JVM_SETTINGS;
+    }
+
+    /**
+     * @return true if the {@code test.proxy.hosts} property names the proxy nodes, for the proxied tests to be opt-in.
+     */
+    public static boolean isProxyConfigured()
+    {
+        return System.getProperty("test.proxy.hosts") != null;
+    }
+
+    /**
+     * @return true if the {@code test.variants} property is {@code true}, for the test families beyond the calibrated
+     * baseline ones, which have no expected latencies yet, to be opt-in.
+     */
+    public static boolean areVariantsEnabled()
+    {
+        return Boolean.getBoolean("test.variants");
+    }
+
+    /**
+     * @return the URIs of the server nodes, in the order of the server node array.
+     */
+    public List<URI> getServerUris()
+    {
+        return nodeUris("server", getServerProtocol());
+    }
+
+    /**
+     * @return the URIs of the proxy nodes, in the order of the proxy node array.
+     */
+    public List<URI> getProxyUris()
+    {
+        return nodeUris("proxy", getProtocol());
+    }
+
+    /**
+     * @return the URIs the loaders and the probe send their requests to.
+     */
+    public List<URI> getTargetUris()
+    {
+        return isProxied() ? getProxyUris() : getServerUris();
+    }
+
+    private List<URI> nodeUris(String nodeArrayId, Protocol protocol)
+    {
+        List<URI> uris = new ArrayList<>();
         for (NodeArrayConfiguration nodeArrayConfiguration : getClusterConfiguration().nodeArrays())
         {
-            if (!nodeArrayConfiguration.id().equals("server"))
+            if (!nodeArrayConfiguration.id().equals(nodeArrayId))
                 continue;
 
             Collection<Node> nodes = nodeArrayConfiguration.nodes();
-            if (nodes.size() != 1)
-                throw new IllegalStateException("server node array must contain only one node");
-            serverHostname = nodes.iterator().next().getHostname();
+            if (nodes.isEmpty())
+                throw new IllegalStateException(nodeArrayId + " node array must contain at least one node");
+            for (Node node : nodes)
+            {
+                uris.add(URI.create("http" + (protocol.isSecure() ? "s" : "") + "://" + node.getHostname() + ":" + getPort(protocol)));
+            }
         }
-        if (serverHostname == null)
-            throw new IllegalStateException("cluster configuration must have a node array named 'server'");
+        if (uris.isEmpty())
+            throw new IllegalStateException("cluster configuration must have a node array named '" + nodeArrayId + "'");
 
-        return URI.create("http" + (getProtocol().isSecure() ? "s" : "") + "://" + serverHostname + ":" + getServerPort());
+        return uris;
     }
 
     public int getServerPort()
     {
-        return getProtocol().isSecure() ? 9443 : 9080;
+        return getPort(getServerProtocol());
+    }
+
+    private static int getPort(Protocol protocol)
+    {
+        return protocol.isSecure() ? 9443 : 9080;
     }
 
     public EnumSet<ConfigurableMonitor.Item> getMonitoredItems()
@@ -151,6 +387,11 @@ public class PerfTestParams implements Serializable
         return 100;
     }
 
+    public boolean hasExpectedLatencies()
+    {
+        return expectedP99ServerLatency > 0L && expectedP99ProbeLatency > 0L;
+    }
+
     public long getExpectedP99ServerLatency()
     {
         return expectedP99ServerLatency;
@@ -169,17 +410,78 @@ public class PerfTestParams implements Serializable
     @Override
     public String toString()
     {
-        return protocol.name();
+        String result = protocol.name();
+        if (isProxied())
+            result += "_proxy-" + getServerProtocol().name() + "-" + proxyMaxConnectionsPerDestination;
+        if (httpClientSettings != null)
+            result += "_client-" + httpClientSettings;
+        if (webSocketSettings != null)
+            result += "_ws-" + webSocketSettings;
+        if (eventStreamSettings != null)
+            result += "_sse-" + eventStreamSettings;
+        if (uploadSettings != null)
+            result += "_upload-" + uploadSettings;
+        if (staticFilesSettings != null)
+            result += "_files-" + staticFilesSettings;
+        if (sessionSettings != null)
+            result += "_sessions-" + sessionSettings;
+        if (handlerTreeSettings != null)
+            result += "_tree-" + handlerTreeSettings;
+        // only named when not the default, so that the results stored before the JVM could be changed still match
+        if (!jvmSettings.equals(DEFAULT_JVM_SETTINGS))
+            result += "_jvm-" + jvmSettings;
+        return result;
+    }
+
+    private static ClusterConfiguration clusterConfiguration(boolean proxied, JvmSettings serverJvmSettings)
+    {
+        SimpleClusterConfiguration clusterConfiguration = new SimpleClusterConfiguration()
+            .jvm(new Jvm(new LocalJdk(JDK_TO_USE)))
+            .nodeArray(nodeArray("server", SERVER_HOSTS)
+                .jvm(new Jvm(new LocalJdk(serverJvmSettings.jdkName()), jvmOpts(serverJvmSettings, "-Xms" + serverJvmSettings.heapGb() + "g", "-Xmx" + serverJvmSettings.heapGb() + "g")))
+            );
+        if (proxied)
+        {
+            clusterConfiguration.nodeArray(nodeArray("proxy", PROXY_HOSTS)
+                .jvm(new Jvm(new LocalJdk(JDK_TO_USE), defaultJvmOpts("-Xms16g", "-Xmx16g")))
+            );
+        }
+        return clusterConfiguration
+            .nodeArray(new SimpleNodeArrayConfiguration("loaders")
+                .node(new Node("load-client-1"))
+                .node(new Node("load-client-2"))
+                .node(new Node("load-client-3"))
+                .node(new Node("load-client-4"))
+                .jvm(new Jvm(new LocalJdk(JDK_TO_USE), defaultJvmOpts("-Xms8g", "-Xmx8g")))
+            )
+            .nodeArray(new SimpleNodeArrayConfiguration("probe")
+                .node(new Node("load-sample"))
+                .jvm(new Jvm(new LocalJdk(JDK_TO_USE), defaultJvmOpts("-Xint", "-Xms8g", "-Xmx8g")))
+            );
+    }
+
+    private static SimpleNodeArrayConfiguration nodeArray(String id, String hosts)
+    {
+        SimpleNodeArrayConfiguration nodeArray = new SimpleNodeArrayConfiguration(id);
+        for (String host : hosts.split(","))
+        {
+            if (!host.isBlank())
+                nodeArray.node(new Node(host.trim()));
+        }
+        return nodeArray;
     }
 
     private static String[] defaultJvmOpts(String... extra)
+    {
+        return jvmOpts(DEFAULT_JVM_SETTINGS, extra);
+    }
+
+    private static String[] jvmOpts(JvmSettings jvmSettings, String... extra)
     {
         List<String> result = new ArrayList<>();
         if (MONITORED_ITEMS.contains(ConfigurableMonitor.Item.GC_LOGS))
             result.addAll(List.of("-Xlog:async", "-Xlog:gc*:file=gc.log:time,level,tags")); // -Xlog:async requires jdk 17, see https://aws.amazon.com/blogs/developer/asynchronous-logging-corretto-17/
-        result.add("-XX:+UseZGC");
-        if (JDK_TO_USE.contains("21"))
-            result.add("-XX:+ZGenerational"); // use generational ZGC on JDK 21
+        result.addAll(jvmSettings.gc().getOptions());
         result.add("-XX:+AlwaysPreTouch");
         if (MONITORED_ITEMS.contains(ConfigurableMonitor.Item.ASYNC_PROF_CPU) ||
             MONITORED_ITEMS.contains(ConfigurableMonitor.Item.ASYNC_PROF_ALLOC) ||
@@ -187,8 +489,12 @@ public class PerfTestParams implements Serializable
             MONITORED_ITEMS.contains(ConfigurableMonitor.Item.ASYNC_PROF_CACHE_MISSES))
         {
             result.addAll(List.of("-XX:+UnlockDiagnosticVMOptions", "-XX:+DebugNonSafepoints"));
-            if (JDK_TO_USE.contains("21"))
+            if (jvmSettings.jdkName().contains("21"))
                 result.add("-XX:+EnableDynamicAgentLoading"); // JDK 21 needs this flag to disable a warning when async prof is used
+            // forward the location of a locally provisioned async profiler, e.g.: -Dasync-profiler.home=/opt/async-profiler
+            System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("async-profiler."))
+                .forEach(name -> result.add("-D" + name + "=" + System.getProperty(name)));
         }
         result.addAll(List.of(extra));
         return result.toArray(new String[0]);
@@ -11,12 +11,25 @@ import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
+import org.eclipse.jetty.perf.histogram.AggregateReport;
+import org.eclipse.jetty.perf.histogram.AnomalyReport;
+import org.eclipse.jetty.perf.histogram.GcReport;
 import org.eclipse.jetty.perf.histogram.HgrmReport;
+import org.eclipse.jetty.perf.histogram.JfrReport;
 import org.eclipse.jetty.perf.histogram.JHiccupReport;
 import org.eclipse.jetty.perf.histogram.PerfReport;
+import org.eclipse.jetty.perf.histogram.PerfStatReport;
+import org.eclipse.jetty.perf.monitoring.gc.GcEvent;
+import org.eclipse.jetty.perf.monitoring.gc.GcLogParser;
+import org.eclipse.jetty.perf.monitoring.jetty.JettyServerMonitor;
+import org.eclipse.jetty.perf.monitoring.jfr.JfrMonitor;
+import org.eclipse.jetty.perf.monitoring.jhiccup.JHiccupMonitor;
+import org.eclipse.jetty.perf.monitoring.os.LinuxPerfStatIntervalMonitor;
 import org.mortbay.jetty.orchestrator.Cluster;
 import org.mortbay.jetty.orchestrator.NodeArray;
 import org.slf4j.Logger;
@@ -54,7 +67,18 @@ public class ReportUtil
             Path targetPath = reportPath.resolve(nodeArrayId);
             download(nodeArray, targetPath);
             transformPerfHisto(nodeArray, targetPath);
+            transformPerfHisto(nodeArray, targetPath, "proxy-upstream.hlog");
+            transformPerfHisto(nodeArray, targetPath, "proxy-added.hlog");
+            transformAggregatePerfHisto(nodeArray, targetPath);
             transformJHiccupHisto(nodeArray, targetPath);
+            transformGcLog(nodeArray, targetPath);
+            transformJfrRecording(nodeArray, targetPath);
+            transformPerfStat(nodeArray, targetPath);
+        }
+        // correlates what was downloaded from all the node arrays
+        try (OutputStream os = new FileOutputStream(reportPath.resolve(AnomalyReport.DEFAULT_FILENAME).toFile()))
+        {
+            AnomalyReport.createReport(reportPath, nodeArrayIds, AnomalyReport.DEFAULT_WORST_INTERVALS, os);
         }
     }
 
@@ -119,13 +143,35 @@ public class ReportUtil
             {
                 HgrmReport.createHgrmHistogram(hlogFile.toFile(), os);
             }
+            // plot the Jetty internals next to the latency when they were monitored
+            Path jettyServerHlogFile = reportFolder.resolve(JettyServerMonitor.DEFAULT_FILENAME);
             try (OutputStream os = new FileOutputStream(new File(reportFolder.toFile(), hlogFile.getFileName() + ".html")))
             {
-                PerfReport.createHtmlHistogram(hlogFile.toFile(), os);
+                PerfReport.createHtmlHistogram(hlogFile.toFile(), Files.isReadable(jettyServerHlogFile) ? jettyServerHlogFile.toFile() : null, loadGcEvents(reportFolder), os);
             }
         }
     }
 
+    public static void transformAggregatePerfHisto(NodeArray nodeArray, Path targetFolder) throws IOException
+    {
+        Map<String, File> hlogFiles = new LinkedHashMap<>();
+        for (String id : nodeArray.ids())
+        {
+            Path hlogFile = targetFolder.resolve(id).resolve("perf.hlog");
+            if (Files.isReadable(hlogFile))
+                hlogFiles.put(id, hlogFile.toFile());
+        }
+        // only worth it when there is more than a single node to compare
+        if (hlogFiles.size() < 2)
+            return;
+
+        try (OutputStream hgrmOs = new FileOutputStream(targetFolder.resolve("aggregate-perf.hlog.hgrm").toFile());
+             OutputStream summaryOs = new FileOutputStream(targetFolder.resolve("aggregate-perf.txt").toFile()))
+        {
+            AggregateReport.createAggregate(hlogFiles, hgrmOs, summaryOs);
+        }
+    }
+
     public static void transformJHiccupHisto(NodeArray nodeArray, Path targetFolder) throws IOException
     {
         for (String id : nodeArray.ids())
@@ -141,8 +187,97 @@ public class ReportUtil
             }
             try (OutputStream os = new FileOutputStream(new File(reportFolder.toFile(), hlogFile.getFileName() + ".html")))
             {
-                JHiccupReport.createHtmlHistogram(hlogFile.toFile(), os);
+                JHiccupReport.createHtmlHistogram(hlogFile.toFile(), loadGcEvents(reportFolder), os);
             }
         }
     }
+
+    public static void transformGcLog(NodeArray nodeArray, Path targetFolder) throws IOException
+    {
+        for (String id : nodeArray.ids())
+        {
+            Path reportFolder = targetFolder.resolve(id);
+            if (!Files.isReadable(reportFolder.resolve(GcLogParser.DEFAULT_FILENAME)))
+                continue;
+            List<GcEvent> gcEvents = loadGcEvents(reportFolder);
+
+            Path intervalsHlogFile = intervalsHlogFile(reportFolder);
+            if (intervalsHlogFile != null)
+                GcReport.createTimeSeries(intervalsHlogFile.toFile(), gcEvents, reportFolder.resolve("gc.csv").toString());
+
+            Path perfHlogFile = reportFolder.resolve("perf.hlog");
+            Path jhiccupHlogFile = reportFolder.resolve(JHiccupMonitor.DEFAULT_FILENAME);
+            try (OutputStream os = new FileOutputStream(new File(reportFolder.toFile(), "gc-latency.log")))
+            {
+                if (Files.isReadable(perfHlogFile))
+                    GcReport.createLatencyCorrelation(perfHlogFile.toFile(), 99.0, gcEvents, os);
+                if (Files.isReadable(jhiccupHlogFile))
+                    GcReport.createLatencyCorrelation(jhiccupHlogFile.toFile(), 100.0, gcEvents, os);
+            }
+        }
+    }
+
+    public static void transformJfrRecording(NodeArray nodeArray, Path targetFolder) throws IOException
+    {
+        for (String id : nodeArray.ids())
+        {
+            Path reportFolder = targetFolder.resolve(id);
+            if (!Files.isDirectory(reportFolder))
+                continue;
+
+            // the JFR monitor's recording, and the async profiler ones which may be snapshots
+            List<Path> jfrFiles;
+            try (Stream<Path> stream = Files.list(reportFolder))
+            {
+                jfrFiles = stream.filter(path -> path.getFileName().toString().endsWith(".jfr")).toList();
+            }
+            for (Path jfrFile : jfrFiles)
+            {
+                String filename = jfrFile.getFileName().toString();
+                // the JDK recording keeps its historical jfr-summary.txt name
+                String summaryFilename = filename.equals(JfrMonitor.DEFAULT_FILENAME) ? "jfr-summary.txt" : filename.substring(0, filename.length() - ".jfr".length()) + "-summary.txt";
+                try (OutputStream os = new FileOutputStream(new File(reportFolder.toFile(), summaryFilename)))
+                {
+                    JfrReport.createSummary(jfrFile, 20, os);
+                }
+            }
+        }
+    }
+
+    public static void transformPerfStat(NodeArray nodeArray, Path targetFolder) throws IOException
+    {
+        for (String id : nodeArray.ids())
+        {
+            Path reportFolder = targetFolder.resolve(id);
+            Path perfStatFile = reportFolder.resolve(LinuxPerfStatIntervalMonitor.DEFAULT_FILENAME);
+            Path intervalsHlogFile = intervalsHlogFile(reportFolder);
+            if (!Files.isReadable(perfStatFile) || intervalsHlogFile == null)
+                continue;
+
+            PerfStatReport.createAlignedTimeSeries(intervalsHlogFile.toFile(), TimeSeries.read(perfStatFile), reportFolder.resolve("perf-stat.csv").toString());
+        }
+    }
+
+    /**
+     * @return the hlog file whose intervals the other time series are aligned with: the latency one,
+     * or the hiccup one for nodes that do not record latency, or null if there is none.
+     */
+    private static Path intervalsHlogFile(Path reportFolder)
+    {
+        Path perfHlogFile = reportFolder.resolve("perf.hlog");
+        if (Files.isReadable(perfHlogFile))
+            return perfHlogFile;
+        Path jhiccupHlogFile = reportFolder.resolve(JHiccupMonitor.DEFAULT_FILENAME);
+        if (Files.isReadable(jhiccupHlogFile))
+            return jhiccupHlogFile;
+        return null;
+    }
+
+    private static List<GcEvent> loadGcEvents(Path reportFolder) throws IOException
+    {
+        Path gcLogFile = reportFolder.resolve(GcLogParser.DEFAULT_FILENAME);
+        if (!Files.isReadable(gcLogFile))
+            return List.of();
+        return GcLogParser.parse(gcLogFile);
+    }
 }
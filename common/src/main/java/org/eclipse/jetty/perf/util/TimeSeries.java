@@ -0,0 +1,87 @@
+package org.eclipse.jetty.perf.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A time series read back from a file written by {@link TimeSeriesWriter}.
+ */
+public class TimeSeries
+{
+    private final List<String> columns;
+    private final List<Row> rows;
+
+    private TimeSeries(List<String> columns, List<Row> rows)
+    {
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    public static TimeSeries read(Path file) throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+        {
+            String header = reader.readLine();
+            if (header == null)
+                throw new IOException("Empty time series file: " + file);
+            String[] headerColumns = header.split(",");
+            if (!headerColumns[0].equals(TimeSeriesWriter.TIMESTAMP_COLUMN))
+                throw new IOException("Not a time series file: " + file);
+            List<String> columns = List.of(Arrays.copyOfRange(headerColumns, 1, headerColumns.length));
+
+            List<Row> rows = new ArrayList<>();
+            while (true)
+            {
+                String line = reader.readLine();
+                if (line == null)
+                    break;
+                String[] fields = line.split(",");
+                if (fields.length != headerColumns.length)
+                    continue;
+                double[] values = new double[columns.size()];
+                for (int i = 0; i < values.length; i++)
+                {
+                    values[i] = Double.parseDouble(fields[i + 1]);
+                }
+                rows.add(new Row(Long.parseLong(fields[0]), values));
+            }
+            return new TimeSeries(columns, rows);
+        }
+    }
+
+    public List<String> getColumns()
+    {
+        return columns;
+    }
+
+    public List<Row> getRows()
+    {
+        return rows;
+    }
+
+    /**
+     * @return the index of the given column in the rows' values, or -1 if there is no such column.
+     */
+    public int columnIndex(String column)
+    {
+        return columns.indexOf(column);
+    }
+
+    /**
+     * @return the rows whose timestamp is in the ]start, end] interval.
+     */
+    public List<Row> rowsBetween(long start, long end)
+    {
+        return rows.stream().filter(row -> row.timestamp() > start && row.timestamp() <= end).toList();
+    }
+
+    public record Row(long timestamp, double[] values)
+    {
+    }
+}
@@ -0,0 +1,50 @@
+package org.eclipse.jetty.perf.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+
+/**
+ * Writes a columnar time series as CSV: one header line naming the columns,
+ * then one line per sample starting with its timestamp in ms since the epoch,
+ * so it can be aligned with the intervals of the hlog files.
+ */
+public class TimeSeriesWriter implements Closeable
+{
+    public static final String TIMESTAMP_COLUMN = "timestamp";
+
+    private final PrintWriter printWriter;
+    private final int columnCount;
+
+    public TimeSeriesWriter(String filename, String... columns) throws IOException
+    {
+        this.printWriter = new PrintWriter(filename, StandardCharsets.UTF_8);
+        this.columnCount = columns.length;
+        StringJoiner header = new StringJoiner(",");
+        header.add(TIMESTAMP_COLUMN);
+        for (String column : columns)
+            header.add(column);
+        printWriter.println(header);
+        printWriter.flush();
+    }
+
+    public void write(long timestamp, Number... values)
+    {
+        if (values.length != columnCount)
+            throw new IllegalArgumentException("expected " + columnCount + " values, got " + values.length);
+        StringJoiner line = new StringJoiner(",");
+        line.add(Long.toString(timestamp));
+        for (Number value : values)
+            line.add(String.valueOf(value));
+        printWriter.println(line);
+        printWriter.flush();
+    }
+
+    @Override
+    public void close()
+    {
+        printWriter.close();
+    }
+}
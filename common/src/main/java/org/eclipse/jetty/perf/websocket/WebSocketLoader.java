@@ -0,0 +1,207 @@
+package org.eclipse.jetty.perf.websocket;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.perf.histogram.loader.ResponseStatusListener;
+import org.eclipse.jetty.perf.util.LatencyRecorder;
+import org.eclipse.jetty.perf.util.Recorder;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.websocket.api.Callback;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opens many WebSocket sessions and sends binary messages over them at a fixed rate,
+ * recording the round-trip time of each message that comes back to its sender.
+ * Messages the server fans out to other sessions are only counted.
+ * Failures are written to the statuses file, successes are not since there is no HTTP status to report.
+ */
+public class WebSocketLoader implements Recorder
+{
+    private static final Logger LOG = LoggerFactory.getLogger(WebSocketLoader.class);
+    public static final String DEFAULT_STATS_FILENAME = "websocket.properties";
+
+    private final URI serverUri;
+    private final WebSocketSettings settings;
+    private final int rate;
+    private final LatencyRecorder latencyRecorder;
+    private final ResponseStatusListener statusListener;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder echoed = new LongAdder();
+    private final LongAdder fannedOut = new LongAdder();
+    private final List<LoaderEndPoint> endPoints = new ArrayList<>();
+    private final byte[] template;
+    private long recordingSent;
+    private long recordingEchoed;
+    private long recordingFannedOut;
+
+    public WebSocketLoader(URI serverUri, WebSocketSettings settings, int rate, LatencyRecorder latencyRecorder, ResponseStatusListener statusListener)
+    {
+        this.serverUri = serverUri;
+        this.settings = settings;
+        this.rate = rate;
+        this.latencyRecorder = latencyRecorder;
+        this.statusListener = statusListener;
+        // random letters, so that permessage-deflate has text-like content to compress instead of zeroes
+        this.template = new byte[settings.messageSize()];
+        for (int i = 0; i < template.length; i++)
+        {
+            template[i] = (byte)('a' + ThreadLocalRandom.current().nextInt(26));
+        }
+    }
+
+    public CompletableFuture<Void> begin(Duration duration) throws Exception
+    {
+        HttpClient httpClient = new HttpClient();
+        httpClient.setSslContextFactory(new SslContextFactory.Client(true));
+        WebSocketClient webSocketClient = new WebSocketClient(httpClient);
+        webSocketClient.start();
+
+        URI uri = URI.create((serverUri.getScheme().equals("https") ? "wss" : "ws") + "://" + serverUri.getHost() + ":" + serverUri.getPort() +
+            WebSocketSettings.PATH + "?" + WebSocketSettings.FAN_OUT_PARAMETER + "=" + settings.fanOut());
+        List<CompletableFuture<Session>> connects = new ArrayList<>();
+        for (int i = 0; i < settings.sessions(); i++)
+        {
+            LoaderEndPoint endPoint = new LoaderEndPoint();
+            endPoints.add(endPoint);
+            ClientUpgradeRequest upgradeRequest = new ClientUpgradeRequest();
+            if (settings.deflate())
+                upgradeRequest.addExtensions("permessage-deflate");
+            connects.add(webSocketClient.connect(endPoint, uri, upgradeRequest));
+        }
+        CompletableFuture.allOf(connects.toArray(new CompletableFuture<?>[0])).get(60, TimeUnit.SECONDS);
+        LOG.info("opened {} websocket sessions to {}", endPoints.size(), uri);
+
+        // send in small bursts, as a single thread cannot tick once per message at high rates
+        int messagesPerTick = Math.max(1, rate / 1000);
+        long periodNanos = messagesPerTick * TimeUnit.SECONDS.toNanos(1) / rate;
+        AtomicLong next = new AtomicLong();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleAtFixedRate(() ->
+        {
+            for (int i = 0; i < messagesPerTick; i++)
+            {
+                endPoints.get((int)(next.getAndIncrement() % endPoints.size())).send();
+            }
+        }, 0L, periodNanos, TimeUnit.NANOSECONDS);
+
+        CompletableFuture<Void> cf = new CompletableFuture<>();
+        scheduler.schedule(() ->
+        {
+            scheduler.shutdown();
+            try
+            {
+                for (LoaderEndPoint endPoint : endPoints)
+                {
+                    endPoint.close();
+                }
+                webSocketClient.stop();
+                cf.complete(null);
+            }
+            catch (Throwable x)
+            {
+                cf.completeExceptionally(x);
+            }
+        }, duration.toNanos(), TimeUnit.NANOSECONDS);
+        return cf;
+    }
+
+    @Override
+    public void startRecording()
+    {
+        recordingSent = sent.sum();
+        recordingEchoed = echoed.sum();
+        recordingFannedOut = fannedOut.sum();
+    }
+
+    @Override
+    public void stopRecording()
+    {
+        Properties properties = new Properties();
+        properties.setProperty("settings", settings.toString());
+        properties.setProperty("sessions", Integer.toString(endPoints.size()));
+        properties.setProperty("sent", Long.toString(sent.sum() - recordingSent));
+        properties.setProperty("echoed", Long.toString(echoed.sum() - recordingEchoed));
+        properties.setProperty("fanned-out", Long.toString(fannedOut.sum() - recordingFannedOut));
+        try (OutputStream os = Files.newOutputStream(Path.of(DEFAULT_STATS_FILENAME)))
+        {
+            properties.store(os, "Messages while recording");
+        }
+        catch (IOException e)
+        {
+            LOG.error("Error writing websocket stats", e);
+        }
+    }
+
+    private class LoaderEndPoint implements Session.Listener.AutoDemanding
+    {
+        private final long token = ThreadLocalRandom.current().nextLong();
+        private volatile Session session;
+
+        @Override
+        public void onWebSocketOpen(Session session)
+        {
+            this.session = session;
+        }
+
+        @Override
+        public void onWebSocketBinary(ByteBuffer payload, Callback callback)
+        {
+            if (payload.getLong(payload.position() + Long.BYTES) == token)
+            {
+                latencyRecorder.recordValue(System.nanoTime() - payload.getLong(payload.position()));
+                echoed.increment();
+            }
+            else
+            {
+                fannedOut.increment();
+            }
+            callback.succeed();
+        }
+
+        @Override
+        public void onWebSocketError(Throwable cause)
+        {
+            statusListener.recordStatus(0, cause);
+        }
+
+        private void send()
+        {
+            Session session = this.session;
+            if (session == null || !session.isOpen())
+                return;
+            ByteBuffer payload = ByteBuffer.wrap(template.clone());
+            payload.putLong(0, System.nanoTime());
+            payload.putLong(Long.BYTES, token);
+            sent.increment();
+            session.sendBinary(payload, Callback.from(() -> {}, failure -> statusListener.recordStatus(0, failure)));
+        }
+
+        private void close()
+        {
+            Session session = this.session;
+            if (session != null)
+                session.close();
+        }
+    }
+}
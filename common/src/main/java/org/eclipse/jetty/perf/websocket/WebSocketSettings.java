@@ -0,0 +1,35 @@
+package org.eclipse.jetty.perf.websocket;
+
+import java.io.Serializable;
+
+/**
+ * How the loaders use WebSocket when it is what is benchmarked.
+ *
+ * @param sessions how many sessions each loader opens and keeps open for the whole run.
+ * @param messageSize the size of the binary messages, in bytes, at least {@link #MIN_MESSAGE_SIZE}.
+ * @param deflate whether the permessage-deflate extension is offered.
+ * @param fanOut how many sessions the server sends each message to, the sender included.
+ */
+public record WebSocketSettings(int sessions, int messageSize, boolean deflate, int fanOut) implements Serializable
+{
+    /**
+     * A message carries the sender's send time and session token, both longs.
+     */
+    public static final int MIN_MESSAGE_SIZE = 16;
+    public static final String PATH = "/ws";
+    public static final String FAN_OUT_PARAMETER = "fanOut";
+
+    public WebSocketSettings
+    {
+        if (messageSize < MIN_MESSAGE_SIZE)
+            throw new IllegalArgumentException("message size must be at least " + MIN_MESSAGE_SIZE + " bytes");
+        if (fanOut < 1)
+            throw new IllegalArgumentException("fan-out must be at least 1");
+    }
+
+    @Override
+    public String toString()
+    {
+        return sessions + "-" + messageSize + "b" + (deflate ? "-deflate" : "") + "-x" + fanOut;
+    }
+}
@@ -0,0 +1,126 @@
+// GC overlay shared by the perf and jhiccup reports, expects the gcEvents array and Chart.js
+function gcPerInterval(histograms) {
+    var result = [];
+    for (var i = 0; i < histograms.length; i++) {
+        const start = histograms[i].startTimeStampMsec;
+        const end = histograms[i].endTimeStampMsec;
+        var interval = {pauseMs: 0, stallMs: 0, heapAfter: null, names: []};
+        for (const event of gcEvents) {
+            if (event.type === 'HEAP' || (event.type === 'PAUSE' && event.heapAfter >= 0)) {
+                if (event.t < end) {
+                    interval.heapAfter = event.heapAfter;
+                }
+            }
+            if (event.type === 'HEAP') {
+                continue;
+            }
+            // unified logging timestamps the end of the pause
+            if (event.t - Math.ceil(event.ms) < end && event.t >= start) {
+                if (event.type === 'PAUSE') {
+                    interval.pauseMs += event.ms;
+                } else {
+                    interval.stallMs += event.ms;
+                }
+                interval.names.push(event.name + ' ' + event.ms + 'ms');
+            }
+        }
+        result.push(interval);
+    }
+    return result;
+}
+
+function overlayGc(histograms, config) {
+    if (gcEvents.length === 0) {
+        return;
+    }
+    const intervals = gcPerInterval(histograms);
+    var flagged = 0;
+    var colors = [];
+    for (var i = 0; i < intervals.length; i++) {
+        const gc = intervals[i].names.length > 0;
+        if (gc) {
+            flagged++;
+        }
+        colors.push(gc ? 'rgba(54, 162, 235, 1)' : config.data.datasets[0].backgroundColor);
+    }
+    config.data.datasets[0].backgroundColor = colors;
+    const afterLabel = config.data.datasets[0].tooltip.callbacks.afterLabel;
+    config.data.datasets[0].tooltip.callbacks.afterLabel = function(x) {
+        const names = intervals[x.dataIndex].names;
+        return names.length === 0 ? afterLabel(x) : [afterLabel(x), 'Coinciding GC events:'].concat(names);
+    };
+    $('#gc-flagged-lat').text(flagged + ' interval(s) coinciding with GC events (in blue)');
+}
+
+function graphGc(histograms) {
+    if (gcEvents.length === 0) {
+        return;
+    }
+    $('#gc-section').show();
+    const config = {
+      data: {
+        labels: [],
+        datasets: [{
+          type: 'bar',
+          label: 'GC pauses (ms)',
+          data: [],
+          backgroundColor: 'rgba(54, 162, 235, 1)',
+          yAxisID: 'y'
+        }, {
+          type: 'bar',
+          label: 'Allocation stalls (ms)',
+          data: [],
+          backgroundColor: 'rgba(153, 102, 255, 1)',
+          yAxisID: 'y'
+        }, {
+          type: 'line',
+          label: 'Heap after GC (MB)',
+          data: [],
+          borderColor: 'rgba(75, 192, 192, 1)',
+          backgroundColor: 'rgba(75, 192, 192, 1)',
+          yAxisID: 'y1'
+        }]
+      },
+      options: {
+        scales: {
+          x: {
+            title: {
+              display: true,
+              text: 'Elapsed time (s)'
+            },
+            stacked: true
+          },
+          y: {
+            title: {
+              display: true,
+              text: 'Time (ms)'
+            },
+            beginAtZero: true,
+            stacked: true
+          },
+          y1: {
+            title: {
+              display: true,
+              text: 'Heap (MB)'
+            },
+            beginAtZero: true,
+            position: 'right',
+            grid: {
+              drawOnChartArea: false
+            }
+          }
+        }
+      },
+    };
+
+    const intervals = gcPerInterval(histograms);
+    for (var i = 0; i < intervals.length; i++) {
+        const interval = intervals[i];
+        config.data.labels.push(i);                                                                   // X axis
+        config.data.datasets[0].data.push(interval.pauseMs);                                          // Y axis pauses
+        config.data.datasets[1].data.push(interval.stallMs);                                          // Y axis stalls
+        config.data.datasets[2].data.push(interval.heapAfter === null ? null : Math.floor(interval.heapAfter / 1048576)); // Y1 axis heap
+    }
+
+    new Chart(document.getElementById('canvas-gc'), config);
+}
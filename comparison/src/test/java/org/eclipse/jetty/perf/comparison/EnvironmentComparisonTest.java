@@ -0,0 +1,116 @@
+package org.eclipse.jetty.perf.comparison;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.perf.ee10.AsyncEE10Servlet;
+import org.eclipse.jetty.perf.ee10.SyncEE10Servlet;
+import org.eclipse.jetty.perf.ee9.AsyncEE9Servlet;
+import org.eclipse.jetty.perf.ee9.SyncEE9Servlet;
+import org.eclipse.jetty.perf.handler.AsyncHandler;
+import org.eclipse.jetty.perf.handler.SyncHandlerUsingOutputStream;
+import org.eclipse.jetty.perf.results.ComparisonReport;
+import org.eclipse.jetty.perf.results.RunSummary;
+import org.eclipse.jetty.perf.test.FlatPerfTest;
+import org.eclipse.jetty.perf.test.PerfTestParams;
+import org.eclipse.jetty.perf.util.ReportUtil;
+import org.eclipse.jetty.perf.util.SerializableSupplier;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Runs the same "Hi there!" workload with the same params in core, EE9 and EE10 one after the other, then writes
+ * a {@code comparison.txt} report with the deltas of the EE environments relative to core.
+ * The allocation rates are only compared when the {@code GC_LOGS} monitored item is enabled.
+ */
+public class EnvironmentComparisonTest
+{
+    private static final Duration WARMUP_DURATION = Duration.ofSeconds(60);
+    private static final Duration RUN_DURATION = Duration.ofSeconds(180);
+    private static final byte[] ANSWER = "Hi there!".getBytes(StandardCharsets.ISO_8859_1);
+
+    private String testName;
+
+    @BeforeEach
+    protected void beforeEach(TestInfo testInfo)
+    {
+        // Generate test name
+        String className = testInfo.getTestClass().orElseThrow().getName();
+        String simpleClassName = className.substring(className.lastIndexOf('.') + 1);
+        String methodName = testInfo.getTestMethod().orElseThrow().getName();
+        testName = simpleClassName + "_" + methodName;
+    }
+
+    @ParameterizedTest(name = "{0} {5}")
+    @CsvSource({
+        "http, 60_000,  6_000, 800_000, 15.0, true",
+        "http, 60_000,  6_000, 800_000, 15.0, false",
+        "h2c,  60_000, 27_000, 850_000, 15.0, true",
+        "h2c,  60_000, 27_000, 850_000, 15.0, false"
+    })
+    public void testNoGzip(PerfTestParams.Protocol protocol, int loaderRate, long expectedP99ServerLatency, long expectedP99ProbeLatency, double expectedP99ErrorMargin, boolean async) throws Exception
+    {
+        // the expectations are the loosest of the three environments, it is the comparison that matters
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin);
+        String testName = this.testName + (async ? "_async" : "_sync");
+        Map<String, SerializableSupplier<Handler>> environments = new LinkedHashMap<>();
+        environments.put("core", () -> coreHandler(async));
+        environments.put("ee9", () -> ee9Handler(async));
+        environments.put("ee10", () -> ee10Handler(async));
+
+        boolean succeeded = true;
+        Map<String, RunSummary> summaries = new LinkedHashMap<>();
+        for (Map.Entry<String, SerializableSupplier<Handler>> entry : environments.entrySet())
+        {
+            String environmentTestName = testName + "_" + entry.getKey();
+            RunSummary runSummary = FlatPerfTest.runTest(environmentTestName, params, WARMUP_DURATION, RUN_DURATION, entry.getValue());
+            succeeded &= runSummary.isSucceeded();
+            summaries.put(entry.getKey(), runSummary);
+        }
+
+        Path reportRootPath = ReportUtil.createReportRootPath(testName, params.toString());
+        try (PrintStream ps = new PrintStream(Files.newOutputStream(reportRootPath.resolve("comparison.txt")), true, StandardCharsets.UTF_8))
+        {
+            ComparisonReport.print(summaries, ps);
+        }
+        System.out.println(" Comparing environments");
+        ComparisonReport.print(summaries, System.out);
+        assertThat("Performance assertions failure for " + params, succeeded, is(true));
+    }
+
+    private static Handler coreHandler(boolean async)
+    {
+        ContextHandler contextHandler = new ContextHandler("/");
+        contextHandler.setHandler(async ? new AsyncHandler(ANSWER) : new SyncHandlerUsingOutputStream(ANSWER));
+        return contextHandler;
+    }
+
+    private static Handler ee9Handler(boolean async)
+    {
+        org.eclipse.jetty.ee9.servlet.ServletContextHandler servletContextHandler = new org.eclipse.jetty.ee9.servlet.ServletContextHandler();
+        servletContextHandler.setContextPath("/");
+        servletContextHandler.addServlet(new org.eclipse.jetty.ee9.servlet.ServletHolder(async ? new AsyncEE9Servlet(ANSWER) : new SyncEE9Servlet(ANSWER)), "/*");
+        return servletContextHandler.getCoreContextHandler();
+    }
+
+    private static Handler ee10Handler(boolean async)
+    {
+        ServletContextHandler servletContextHandler = new ServletContextHandler();
+        servletContextHandler.setContextPath("/");
+        servletContextHandler.addServlet(async ? new AsyncEE10Servlet(ANSWER) : new SyncEE10Servlet(ANSWER), "/*");
+        return servletContextHandler;
+    }
+}
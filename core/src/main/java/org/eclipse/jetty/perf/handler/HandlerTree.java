@@ -0,0 +1,33 @@
+package org.eclipse.jetty.perf.handler;
+
+import java.util.function.Supplier;
+
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+
+/**
+ * Builds the core handler tree described by {@link HandlerTreeSettings}: a {@link ContextHandlerCollection} of
+ * contexts, each nesting pass-through {@link Handler.Wrapper}s before its own handler from the supplier.
+ */
+public class HandlerTree
+{
+    public static ContextHandlerCollection build(HandlerTreeSettings settings, Supplier<Handler> handlerSupplier)
+    {
+        ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
+        for (int i = 0; i < settings.contexts(); i++)
+        {
+            ContextHandler contextHandler = new ContextHandler(settings.contextPath(i));
+            Handler.Singleton parent = contextHandler;
+            for (int j = 0; j < settings.wrappers(); j++)
+            {
+                Handler.Wrapper wrapper = new Handler.Wrapper();
+                parent.setHandler(wrapper);
+                parent = wrapper;
+            }
+            parent.setHandler(handlerSupplier.get());
+            contextHandlerCollection.addHandler(contextHandler);
+        }
+        return contextHandlerCollection;
+    }
+}
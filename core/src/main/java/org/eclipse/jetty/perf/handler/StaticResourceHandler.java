@@ -0,0 +1,45 @@
+package org.eclipse.jetty.perf.handler;
+
+import java.time.Duration;
+
+import org.eclipse.jetty.http.content.CachingHttpContentFactory;
+import org.eclipse.jetty.http.content.FileMappingHttpContentFactory;
+import org.eclipse.jetty.http.content.HttpContent;
+import org.eclipse.jetty.http.content.PreCompressedHttpContentFactory;
+import org.eclipse.jetty.http.content.ResourceHttpContentFactory;
+import org.eclipse.jetty.http.content.ValidatingCachingHttpContentFactory;
+import org.eclipse.jetty.server.handler.ResourceHandler;
+
+/**
+ * A {@link ResourceHandler} whose content factory can be uncached, or cached in heap or direct buffers.
+ * Unlike the default one, the cache is unbounded so that the whole file tree fits in it.
+ * File mapping and precompressed formats are configured with the usual {@link ResourceHandler} setters.
+ */
+public class StaticResourceHandler extends ResourceHandler
+{
+    private final boolean cached;
+    private final boolean directBuffers;
+
+    public StaticResourceHandler(boolean cached, boolean directBuffers)
+    {
+        this.cached = cached;
+        this.directBuffers = directBuffers;
+    }
+
+    @Override
+    protected HttpContent.Factory newHttpContentFactory()
+    {
+        HttpContent.Factory factory = new ResourceHttpContentFactory(getBaseResource(), getMimeTypes());
+        if (isUseFileMapping())
+            factory = new FileMappingHttpContentFactory(factory);
+        factory = new PreCompressedHttpContentFactory(factory, getPrecompressedFormats());
+        if (!cached)
+            return factory;
+
+        CachingHttpContentFactory cachingFactory = new ValidatingCachingHttpContentFactory(factory, Duration.ofSeconds(1).toMillis(), getByteBufferPool());
+        cachingFactory.setMaxCachedFiles(Integer.MAX_VALUE);
+        cachingFactory.setMaxCacheSize(Long.MAX_VALUE);
+        cachingFactory.setUseDirectByteBuffers(directBuffers);
+        return cachingFactory;
+    }
+}
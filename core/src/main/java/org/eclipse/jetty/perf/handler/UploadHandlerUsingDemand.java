@@ -0,0 +1,73 @@
+package org.eclipse.jetty.perf.handler;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+
+/**
+ * Reads the request content chunk by chunk with {@link Request#read()}, demanding more when none is available,
+ * then answers once the last chunk was read.
+ */
+public class UploadHandlerUsingDemand extends Handler.Abstract.NonBlocking
+{
+    private final ByteBuffer answer;
+
+    public UploadHandlerUsingDemand(byte[] answer)
+    {
+        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(answer.length);
+        byteBuffer.put(answer);
+        byteBuffer.flip();
+        this.answer = byteBuffer;
+    }
+
+    @Override
+    public boolean handle(Request request, Response response, Callback callback)
+    {
+        new Reader(request, response, callback).run();
+        return true;
+    }
+
+    private class Reader implements Runnable
+    {
+        private final Request request;
+        private final Response response;
+        private final Callback callback;
+
+        private Reader(Request request, Response response, Callback callback)
+        {
+            this.request = request;
+            this.response = response;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run()
+        {
+            while (true)
+            {
+                Content.Chunk chunk = request.read();
+                if (chunk == null)
+                {
+                    request.demand(this);
+                    return;
+                }
+                if (Content.Chunk.isFailure(chunk))
+                {
+                    callback.failed(chunk.getFailure());
+                    return;
+                }
+                chunk.release();
+                if (chunk.isLast())
+                {
+                    response.setStatus(200);
+                    response.write(true, answer.asReadOnlyBuffer(), callback);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.eclipse.jetty.perf.handler;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+
+/**
+ * Reads the request content with a blocking {@link InputStream} into a buffer of the given size,
+ * then answers once the end of the stream was reached.
+ */
+public class UploadHandlerUsingInputStream extends Handler.Abstract
+{
+    private final byte[] answer;
+    private final int bufferSize;
+
+    public UploadHandlerUsingInputStream(byte[] answer, int bufferSize)
+    {
+        this.answer = answer;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public boolean handle(Request request, Response response, Callback callback) throws Exception
+    {
+        byte[] buffer = new byte[bufferSize];
+        try (InputStream inputStream = Content.Source.asInputStream(request))
+        {
+            while (inputStream.read(buffer) >= 0)
+            {
+                // the content is discarded, only reading it matters
+            }
+        }
+        response.setStatus(200);
+        response.write(true, ByteBuffer.wrap(answer), callback);
+        return true;
+    }
+}
@@ -0,0 +1,182 @@
+package org.eclipse.jetty.perf.sse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.perf.util.Recorder;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.Fields;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers the requests to {@link EventStreamSettings#PATH} with a Server-Sent Events stream that is written
+ * incrementally with {@link Response#write(boolean, ByteBuffer, Callback)} callbacks, one event every interval
+ * the client asked for, or never for idle streams. The streams end when the client goes away or the server stops.
+ * Other requests go to the wrapped handler, e.g.: for the probe.
+ * When recording stops, the event counts are written to {@link #DEFAULT_STATS_FILENAME}; the heap used per idle
+ * stream is estimated by the {@link IdleStreamHeapRecorder} bean of this handler.
+ */
+public class EventStreamHandler extends Handler.Wrapper implements Recorder
+{
+    private static final Logger LOG = LoggerFactory.getLogger(EventStreamHandler.class);
+    public static final String DEFAULT_STATS_FILENAME = "event-streams.properties";
+    private static final int SEQUENCE_DIGITS = 19;
+    private static final byte[] ID_PREFIX = "id: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DATA_PREFIX = "\ndata: ".getBytes(StandardCharsets.US_ASCII);
+
+    private final AtomicInteger idleStreams = new AtomicInteger();
+    private final LongAdder events = new LongAdder();
+    private long recordingEvents;
+    private long recordingStartNanos;
+
+    public EventStreamHandler(Handler fallbackHandler)
+    {
+        super(fallbackHandler);
+        addBean(new IdleStreamHeapRecorder(idleStreams::get));
+    }
+
+    @Override
+    public boolean handle(Request request, Response response, Callback callback) throws Exception
+    {
+        if (!EventStreamSettings.PATH.equals(Request.getPathInContext(request)))
+            return super.handle(request, response, callback);
+
+        Fields parameters = Request.extractQueryParameters(request);
+        long intervalMicros = longParameter(parameters, EventStreamSettings.INTERVAL_PARAMETER, 0L);
+        int eventSize = (int)longParameter(parameters, EventStreamSettings.EVENT_SIZE_PARAMETER, EventStreamSettings.MIN_EVENT_SIZE);
+        new EventStream(request, response, callback, intervalMicros, eventSize).open();
+        return true;
+    }
+
+    @Override
+    public void startRecording()
+    {
+        recordingEvents = events.sum();
+        recordingStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void stopRecording()
+    {
+        long sent = events.sum() - recordingEvents;
+        long elapsed = System.nanoTime() - recordingStartNanos;
+        Properties properties = new Properties();
+        properties.setProperty("events", Long.toString(sent));
+        properties.setProperty("events-per-second", Long.toString(elapsed == 0L ? 0L : sent * TimeUnit.SECONDS.toNanos(1) / elapsed));
+        try (OutputStream os = Files.newOutputStream(Path.of(DEFAULT_STATS_FILENAME)))
+        {
+            properties.store(os, "Event streams while recording");
+        }
+        catch (IOException e)
+        {
+            LOG.error("Error writing event stream stats", e);
+        }
+    }
+
+    private static long longParameter(Fields parameters, String name, long defaultValue)
+    {
+        String value = parameters.getValue(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    private static byte[] newTemplate(int eventSize)
+    {
+        byte[] template = new byte[eventSize];
+        Arrays.fill(template, (byte)'x');
+        System.arraycopy(ID_PREFIX, 0, template, 0, ID_PREFIX.length);
+        Arrays.fill(template, ID_PREFIX.length, ID_PREFIX.length + SEQUENCE_DIGITS, (byte)'0');
+        System.arraycopy(DATA_PREFIX, 0, template, ID_PREFIX.length + SEQUENCE_DIGITS, DATA_PREFIX.length);
+        template[eventSize - 2] = '\n';
+        template[eventSize - 1] = '\n';
+        return template;
+    }
+
+    private class EventStream
+    {
+        private final Request request;
+        private final Response response;
+        private final Callback callback;
+        private final long intervalNanos;
+        private final byte[] template;
+        private final Scheduler scheduler;
+        private final AtomicInteger done = new AtomicInteger();
+        private long startNanos;
+        private long sequence;
+
+        private EventStream(Request request, Response response, Callback callback, long intervalMicros, int eventSize)
+        {
+            this.request = request;
+            this.response = response;
+            this.callback = callback;
+            this.intervalNanos = TimeUnit.MICROSECONDS.toNanos(intervalMicros);
+            this.template = intervalNanos == 0L ? null : newTemplate(Math.max(EventStreamSettings.MIN_EVENT_SIZE, eventSize));
+            this.scheduler = request.getComponents().getScheduler();
+        }
+
+        private void open()
+        {
+            if (intervalNanos == 0L)
+                idleStreams.incrementAndGet();
+            // the streams are expected to stay silent for longer than the idle timeout
+            request.addIdleTimeoutListener(timeout -> false);
+            request.addFailureListener(this::fail);
+
+            response.setStatus(200);
+            response.getHeaders().put(HttpHeader.CONTENT_TYPE, "text/event-stream");
+            response.getHeaders().put(HttpHeader.CACHE_CONTROL, "no-cache");
+            startNanos = System.nanoTime();
+            // commit the response right away, so that the client knows the stream is open
+            response.write(false, null, Callback.from(this::scheduleNext, this::fail));
+        }
+
+        private void scheduleNext()
+        {
+            if (intervalNanos == 0L)
+                return;
+            // keep to the schedule, a late event makes the next ones sent without delay
+            long delay = startNanos + sequence * intervalNanos - System.nanoTime();
+            scheduler.schedule(this::writeEvent, Math.max(0L, delay), TimeUnit.NANOSECONDS);
+        }
+
+        private void writeEvent()
+        {
+            byte[] event = template.clone();
+            long value = sequence;
+            for (int i = ID_PREFIX.length + SEQUENCE_DIGITS - 1; i >= ID_PREFIX.length; i--)
+            {
+                event[i] = (byte)('0' + value % 10);
+                value /= 10;
+            }
+            response.write(false, ByteBuffer.wrap(event), Callback.from(() ->
+            {
+                sequence++;
+                events.increment();
+                scheduleNext();
+            }, this::fail));
+        }
+
+        private void fail(Throwable failure)
+        {
+            if (done.getAndIncrement() > 0)
+                return;
+            if (intervalNanos == 0L)
+                idleStreams.decrementAndGet();
+            callback.failed(failure);
+        }
+    }
+}
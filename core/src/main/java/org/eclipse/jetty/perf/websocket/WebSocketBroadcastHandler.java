@@ -0,0 +1,103 @@
+package org.eclipse.jetty.perf.websocket;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.websocket.api.Callback;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.server.WebSocketUpgradeHandler;
+
+/**
+ * Upgrades the requests to {@link WebSocketSettings#PATH} to WebSocket sessions that send each binary message
+ * they receive back to its sender and to as many other sessions as the fan-out the client asked for.
+ * Other requests go to the wrapped handler, e.g.: for the probe.
+ */
+public class WebSocketBroadcastHandler extends Handler.Wrapper
+{
+    private final List<Session> sessions = new ArrayList<>();
+    private volatile Session[] sessionsSnapshot = new Session[0];
+    private final AtomicInteger nextSession = new AtomicInteger();
+    private WebSocketUpgradeHandler upgradeHandler;
+
+    public WebSocketBroadcastHandler(Handler fallbackHandler)
+    {
+        super(fallbackHandler);
+    }
+
+    @Override
+    public void setServer(Server server)
+    {
+        // the upgrade handler needs the server to register its container
+        if (server != null && upgradeHandler == null)
+        {
+            Handler fallbackHandler = getHandler();
+            upgradeHandler = WebSocketUpgradeHandler.from(server, container ->
+                container.addMapping(WebSocketSettings.PATH, (request, response, callback) -> new BroadcastEndPoint()));
+            upgradeHandler.setHandler(fallbackHandler);
+            setHandler(upgradeHandler);
+        }
+        super.setServer(server);
+    }
+
+    private class BroadcastEndPoint implements Session.Listener.AutoDemanding
+    {
+        private Session session;
+        private int fanOut;
+
+        @Override
+        public void onWebSocketOpen(Session session)
+        {
+            this.session = session;
+            List<String> fanOutValues = session.getUpgradeRequest().getParameterMap().get(WebSocketSettings.FAN_OUT_PARAMETER);
+            this.fanOut = fanOutValues == null ? 1 : Integer.parseInt(fanOutValues.get(0));
+            synchronized (sessions)
+            {
+                sessions.add(session);
+                sessionsSnapshot = sessions.toArray(new Session[0]);
+            }
+        }
+
+        @Override
+        public void onWebSocketClose(int statusCode, String reason)
+        {
+            synchronized (sessions)
+            {
+                sessions.remove(session);
+                sessionsSnapshot = sessions.toArray(new Session[0]);
+            }
+        }
+
+        @Override
+        public void onWebSocketBinary(ByteBuffer payload, Callback callback)
+        {
+            Session[] targets = sessionsSnapshot;
+            int others = Math.max(0, Math.min(fanOut - 1, targets.length - 1));
+            // the payload must stay valid until the last send completes
+            AtomicInteger pending = new AtomicInteger(others + 1);
+            Callback sendCallback = Callback.from(() ->
+            {
+                if (pending.decrementAndGet() == 0)
+                    callback.succeed();
+            }, failure ->
+            {
+                if (pending.getAndSet(0) > 0)
+                    callback.fail(failure);
+            });
+
+            session.sendBinary(payload.slice(), sendCallback);
+            int sent = 0;
+            while (sent < others)
+            {
+                Session target = targets[Math.floorMod(nextSession.getAndIncrement(), targets.length)];
+                if (target == session)
+                    continue;
+                target.sendBinary(payload.slice(), sendCallback);
+                sent++;
+            }
+        }
+    }
+}
@@ -2,19 +2,34 @@ package org.eclipse.jetty.perf.handler;
 
 import java.time.Duration;
 
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.perf.client.HttpClientSettings;
+import org.eclipse.jetty.perf.client.UploadSettings;
+import org.eclipse.jetty.perf.files.StaticFileTree;
+import org.eclipse.jetty.perf.files.StaticFilesSettings;
+import org.eclipse.jetty.perf.sse.EventStreamHandler;
+import org.eclipse.jetty.perf.sse.EventStreamSettings;
+import org.eclipse.jetty.perf.results.RunSummary;
 import org.eclipse.jetty.perf.test.FlatPerfTest;
+import org.eclipse.jetty.perf.test.JvmMatrix;
 import org.eclipse.jetty.perf.test.PerfTestParams;
+import org.eclipse.jetty.perf.util.SerializableSupplier;
+import org.eclipse.jetty.perf.websocket.WebSocketBroadcastHandler;
+import org.eclipse.jetty.perf.websocket.WebSocketSettings;
+import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.condition.EnabledIf;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
 public class CoreHandlerPerfTest
 {
@@ -41,7 +56,7 @@ public class CoreHandlerPerfTest
     public void testNoGzipAsync(PerfTestParams.Protocol protocol, int loaderRate, long expectedP99ServerLatency, long expectedP99ProbeLatency, double expectedP99ErrorMargin) throws Exception
     {
         PerfTestParams params = new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin);
-        boolean succeeded = FlatPerfTest.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, () ->
+        runTest(testName, params, () ->
         {
             ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
             ContextHandler targetContextHandler = new ContextHandler("/");
@@ -52,7 +67,6 @@ public class CoreHandlerPerfTest
             targetContextHandler.setHandler(asyncHandler);
             return contextHandlerCollection;
         });
-        assertThat("Performance assertions failure for " + params, succeeded, is(true));
     }
 
     @ParameterizedTest(name = "{0}")
@@ -63,7 +77,7 @@ public class CoreHandlerPerfTest
     public void testNoGzipSyncUsingBlocker(PerfTestParams.Protocol protocol, int loaderRate, long expectedP99ServerLatency, long expectedP99ProbeLatency, double expectedP99ErrorMargin) throws Exception
     {
         PerfTestParams params = new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin);
-        boolean succeeded = FlatPerfTest.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, () ->
+        runTest(testName, params, () ->
         {
             ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
             ContextHandler targetContextHandler = new ContextHandler("/");
@@ -74,7 +88,6 @@ public class CoreHandlerPerfTest
             targetContextHandler.setHandler(syncHandler);
             return contextHandlerCollection;
         });
-        assertThat("Performance assertions failure for " + params, succeeded, is(true));
     }
 
     @Disabled
@@ -86,7 +99,7 @@ public class CoreHandlerPerfTest
     public void testNoGzipSyncUsingOutputStream(PerfTestParams.Protocol protocol, int loaderRate, long expectedP99ServerLatency, long expectedP99ProbeLatency, double expectedP99ErrorMargin) throws Exception
     {
         PerfTestParams params = new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin);
-        boolean succeeded = FlatPerfTest.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, () ->
+        runTest(testName, params, () ->
         {
             ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
             ContextHandler targetContextHandler = new ContextHandler("/");
@@ -97,7 +110,6 @@ public class CoreHandlerPerfTest
             targetContextHandler.setHandler(syncHandler);
             return contextHandlerCollection;
         });
-        assertThat("Performance assertions failure for " + params, succeeded, is(true));
     }
 
     @ParameterizedTest(name = "{0}")
@@ -108,7 +120,7 @@ public class CoreHandlerPerfTest
     public void testNoGzipFullyAsyncHandlerTree(PerfTestParams.Protocol protocol, int loaderRate, long expectedP99ServerLatency, long expectedP99ProbeLatency, double expectedP99ErrorMargin) throws Exception
     {
         PerfTestParams params = new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin);
-        boolean succeeded = FlatPerfTest.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, () ->
+        runTest(testName, params, () ->
         {
             ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection(false);
             ContextHandler targetContextHandler = new ContextHandler("/");
@@ -119,6 +131,209 @@ public class CoreHandlerPerfTest
             targetContextHandler.setHandler(asyncHandler);
             return contextHandlerCollection;
         });
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#isProxyConfigured")
+    @ParameterizedTest(name = "{0} {2} {3}")
+    @CsvSource({
+        "http, 60_000, HTTP11,  64",
+        "http, 60_000, HTTP11, 256",
+        "http, 60_000, HTTP2,    1",
+        "http, 60_000, HTTP2,    4",
+        "h2c,  60_000, HTTP11, 256",
+        "h2c,  60_000, HTTP2,    4"
+    })
+    public void testNoGzipAsyncProxied(PerfTestParams.Protocol protocol, int loaderRate, PerfTestParams.HttpVersion upstreamVersion, int proxyMaxConnections) throws Exception
+    {
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .proxied(upstreamVersion, proxyMaxConnections);
+        runTest(testName, params, () ->
+        {
+            ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
+            ContextHandler targetContextHandler = new ContextHandler("/");
+            contextHandlerCollection.addHandler(targetContextHandler);
+            ContextHandler uselessContextHandler = new ContextHandler("/useless");
+            contextHandlerCollection.addHandler(uselessContextHandler);
+            AsyncHandler asyncHandler = new AsyncHandler("Hi there!".getBytes(US_ASCII));
+            targetContextHandler.setHandler(asyncHandler);
+            return contextHandlerCollection;
+        });
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#areVariantsEnabled")
+    @ParameterizedTest(name = "{0} {2} {3} {4}")
+    @CsvSource({
+        "http, 60_000, DUPLEX,       64,  1",
+        "http, 60_000, DUPLEX,      256,  1",
+        "http, 60_000, ROUND_ROBIN,  64,  1",
+        "http, 60_000, DUPLEX,       64, 10",
+        "h2c,  60_000, MULTIPLEX,     1,  1",
+        "h2c,  60_000, MULTIPLEX,     4,  1",
+        "h2c,  60_000, ROUND_ROBIN,   4,  1",
+        "h2c,  60_000, MULTIPLEX,     4, 10"
+    })
+    public void testHttpClient(PerfTestParams.Protocol protocol, int loaderRate, HttpClientSettings.PoolStrategy poolStrategy, int maxConnectionsPerDestination, int batchSize) throws Exception
+    {
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .withHttpClient(new HttpClientSettings(poolStrategy, maxConnectionsPerDestination, batchSize));
+        runTest(testName, params, () -> new AsyncHandler("Hi there!".getBytes(US_ASCII)));
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#areVariantsEnabled")
+    @ParameterizedTest(name = "{0} {2} {3} {4} {5}")
+    @CsvSource({
+        "http, 20_000, 2_500,     64, false,   1",
+        "http, 20_000, 2_500,  4_096, false,   1",
+        "http, 20_000, 2_500,  4_096, true,    1",
+        "http,  2_000, 2_500, 16_384, false,   1",
+        "http,  2_000, 2_500, 16_384, true,    1",
+        "http,  2_000, 2_500,     64, false,  10",
+        "http,    200, 2_500,     64, false, 100"
+    })
+    public void testWebSocketBroadcast(PerfTestParams.Protocol protocol, int loaderRate, int sessions, int messageSize, boolean deflate, int fanOut) throws Exception
+    {
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .withWebSocket(new WebSocketSettings(sessions, messageSize, deflate, fanOut));
+        runTest(testName, params, () ->
+            new WebSocketBroadcastHandler(new AsyncHandler("Hi there!".getBytes(US_ASCII))));
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#areVariantsEnabled")
+    @ParameterizedTest(name = "{0} {2} {3} {4}")
+    @CsvSource({
+        "http, 20_000, 2_500,      0,   128",
+        "http, 20_000, 2_500,      0, 4_096",
+        "http,  2_000,   100, 10_000,   128",
+        "http,  2_000,   100, 25_000,   128",
+        "h2c,  20_000, 2_500,      0,   128",
+        "h2c,   2_000,   100, 25_000,   128"
+    })
+    public void testEventStreams(PerfTestParams.Protocol protocol, int loaderRate, int streams, int idleStreams, int eventSize) throws Exception
+    {
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .withEventStreams(new EventStreamSettings(streams, idleStreams, eventSize));
+        runTest(testName, params, () ->
+            new EventStreamHandler(new AsyncHandler("Hi there!".getBytes(US_ASCII))));
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#areVariantsEnabled")
+    @ParameterizedTest(name = "{0} {2} {3}")
+    @CsvSource({
+        "http, 100, 1_048_576, false",
+        "http, 100, 1_048_576, true",
+        "http,  20, 8_388_608, false",
+        "http,  20, 8_388_608, true",
+        "h2c,  100, 1_048_576, false",
+        "h2c,  100, 1_048_576, true",
+        "h2c,   20, 8_388_608, false"
+    })
+    public void testUploadUsingDemand(PerfTestParams.Protocol protocol, int loaderRate, int bodySize, boolean chunked) throws Exception
+    {
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .withUpload(new UploadSettings(bodySize, chunked));
+        runTest(testName, params, () ->
+            new UploadHandlerUsingDemand("Hi there!".getBytes(US_ASCII)));
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#areVariantsEnabled")
+    @ParameterizedTest(name = "{0} {2} {3} {4}")
+    @CsvSource({
+        "http, 100, 1_048_576, false,  8_192",
+        "http, 100, 1_048_576, false, 65_536",
+        "http, 100, 1_048_576, true,   8_192",
+        "http,  20, 8_388_608, false, 65_536",
+        "h2c,  100, 1_048_576, false,  8_192",
+        "h2c,  100, 1_048_576, false, 65_536",
+        "h2c,   20, 8_388_608, false, 65_536"
+    })
+    public void testUploadUsingInputStream(PerfTestParams.Protocol protocol, int loaderRate, int bodySize, boolean chunked, int bufferSize) throws Exception
+    {
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .withUpload(new UploadSettings(bodySize, chunked));
+        runTest(testName, params, () ->
+            new UploadHandlerUsingInputStream("Hi there!".getBytes(US_ASCII), bufferSize));
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#areVariantsEnabled")
+    @ParameterizedTest(name = "{0} {2} {3} {4} {5} {6} {7} {8}")
+    @CsvSource({
+        "http, 10_000, 10_000, 1_024,    65_536, false, false, false, false",
+        "http, 10_000, 10_000, 1_024,    65_536, false, true,  false, false",
+        "http, 10_000, 10_000, 1_024,    65_536, false, true,  true,  false",
+        "http, 10_000, 10_000, 1_024,    65_536, false, false, false, true",
+        "http, 10_000, 10_000, 1_024,    65_536, true,  true,  true,  false",
+        "http,  1_000, 10_000, 1_024, 1_048_576, false, false, false, false",
+        "http,  1_000, 10_000, 1_024, 1_048_576, false, true,  true,  false",
+        "http,  1_000, 10_000, 1_024, 1_048_576, false, false, false, true",
+        "h2c,  10_000, 10_000, 1_024,    65_536, false, true,  true,  false",
+        "h2c,  10_000, 10_000, 1_024,    65_536, true,  true,  true,  false"
+    })
+    public void testStaticFiles(PerfTestParams.Protocol protocol, int loaderRate, int files, int minSize, int maxSize, boolean precompressed, boolean cached, boolean directBuffers, boolean fileMapping) throws Exception
+    {
+        StaticFilesSettings staticFilesSettings = new StaticFilesSettings(files, minSize, maxSize, precompressed);
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .withStaticFiles(staticFilesSettings);
+        String testName = this.testName + (cached ? (directBuffers ? "_cached-direct" : "_cached-heap") : "_uncached") + (fileMapping ? "_mapped" : "");
+        runTest(testName, params, () ->
+        {
+            ContextHandler contextHandler = new ContextHandler("/");
+            StaticResourceHandler resourceHandler = new StaticResourceHandler(cached, directBuffers);
+            resourceHandler.setBaseResourceAsString(StaticFileTree.root(staticFilesSettings).toString());
+            resourceHandler.setUseFileMapping(fileMapping);
+            if (precompressed)
+                resourceHandler.setPrecompressedFormats(CompressedContentFormat.GZIP);
+            contextHandler.setHandler(resourceHandler);
+            return contextHandler;
+        });
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#areVariantsEnabled")
+    @ParameterizedTest(name = "{0} {2} {3}")
+    @CsvSource({
+        "http, 60_000,     2,  0",
+        "http, 60_000,   100,  0",
+        "http, 60_000, 1_000,  0",
+        "http, 60_000, 1_000, 10",
+        "http, 60_000, 1_000, 50",
+        "h2c,  60_000,     2,  0",
+        "h2c,  60_000, 1_000, 10"
+    })
+    public void testHandlerTree(PerfTestParams.Protocol protocol, int loaderRate, int contexts, int wrappers) throws Exception
+    {
+        HandlerTreeSettings handlerTreeSettings = new HandlerTreeSettings(contexts, wrappers, 0, 0);
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .withHandlerTree(handlerTreeSettings);
+        runTest(testName, params, () ->
+            HandlerTree.build(handlerTreeSettings, () -> new AsyncHandler("Hi there!".getBytes(US_ASCII))));
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.JvmMatrix#isConfigured")
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({
+        "http, 60_000",
+        "h2c,  60_000"
+    })
+    public void testNoGzipAsyncJvmMatrix(PerfTestParams.Protocol protocol, int loaderRate) throws Exception
+    {
+        assumeFalse(JvmMatrix.configurations().isEmpty(), "no JVM of the matrix supports its garbage collector");
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate);
+        boolean succeeded = JvmMatrix.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, () ->
+        {
+            ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
+            ContextHandler targetContextHandler = new ContextHandler("/");
+            contextHandlerCollection.addHandler(targetContextHandler);
+            ContextHandler uselessContextHandler = new ContextHandler("/useless");
+            contextHandlerCollection.addHandler(uselessContextHandler);
+            AsyncHandler asyncHandler = new AsyncHandler("Hi there!".getBytes(US_ASCII));
+            targetContextHandler.setHandler(asyncHandler);
+            return contextHandlerCollection;
+        });
         assertThat("Performance assertions failure for " + params, succeeded, is(true));
     }
+
+    private void runTest(String testName, PerfTestParams params, SerializableSupplier<Handler> testedHandlerSupplier) throws Exception
+    {
+        RunSummary runSummary = FlatPerfTest.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, testedHandlerSupplier);
+        assertThat("Performance assertions failure for " + params, runSummary.isSucceeded(), is(true));
+    }
 }
@@ -0,0 +1,65 @@
+package org.eclipse.jetty.perf.startup;
+
+import java.time.Duration;
+
+import org.eclipse.jetty.perf.handler.AsyncHandler;
+import org.eclipse.jetty.perf.test.PerfTestParams;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class StartupPerfTest
+{
+    private static final Duration TRAINING_DURATION = Duration.ofSeconds(30);
+    private static final Duration RUN_DURATION = Duration.ofSeconds(60);
+
+    private String testName;
+
+    @BeforeEach
+    protected void beforeEach(TestInfo testInfo)
+    {
+        // Generate test name
+        String className = testInfo.getTestClass().orElseThrow().getName();
+        String simpleClassName = className.substring(className.lastIndexOf('.') + 1);
+        String methodName = testInfo.getTestMethod().orElseThrow().getName();
+        testName = simpleClassName + "_" + methodName;
+    }
+
+    @ParameterizedTest(name = "{0}-{1}")
+    @CsvSource({
+        "http, DEFAULT,                60_000, 20_000",
+        "http, TIERED_STOP_AT_LEVEL_1, 60_000, 10_000",
+        "http, APP_CDS,                60_000, 15_000",
+        "http, LEYDEN_AOT_CACHE,       60_000, 15_000",
+        "http, CRAC,                   60_000,  5_000",
+        "h2c,  DEFAULT,                60_000, 20_000",
+        "h2c,  TIERED_STOP_AT_LEVEL_1, 60_000, 10_000",
+        "h2c,  APP_CDS,                60_000, 15_000",
+        "h2c,  LEYDEN_AOT_CACHE,       60_000, 15_000",
+        "h2c,  CRAC,                   60_000,  5_000"
+    })
+    public void testNoGzipAsync(PerfTestParams.Protocol protocol, StartupVariant variant, int loaderRate, long expectedSteadyMs) throws Exception
+    {
+        // the latencies are not asserted, what the server does while starting up is
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate, Long.MAX_VALUE, Long.MAX_VALUE, 0.0);
+        boolean succeeded = ClusteredStartupTest.runTest(testName, params, variant, TRAINING_DURATION, RUN_DURATION, expectedSteadyMs, () ->
+        {
+            ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
+            ContextHandler targetContextHandler = new ContextHandler("/");
+            contextHandlerCollection.addHandler(targetContextHandler);
+            ContextHandler uselessContextHandler = new ContextHandler("/useless");
+            contextHandlerCollection.addHandler(uselessContextHandler);
+            AsyncHandler asyncHandler = new AsyncHandler("Hi there!".getBytes(US_ASCII));
+            targetContextHandler.setHandler(asyncHandler);
+            return contextHandlerCollection;
+        });
+        assertThat("Performance assertions failure for " + params + " " + variant, succeeded, is(true));
+    }
+}
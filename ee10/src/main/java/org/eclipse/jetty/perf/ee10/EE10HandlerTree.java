@@ -0,0 +1,47 @@
+package org.eclipse.jetty.perf.ee10;
+
+import java.util.EnumSet;
+import java.util.function.Supplier;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServlet;
+import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee10.servlet.ServletHolder;
+import org.eclipse.jetty.perf.handler.HandlerTreeSettings;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+
+/**
+ * Builds the servlet flavor of the handler tree described by {@link HandlerTreeSettings}: a {@link ContextHandlerCollection}
+ * of servlet contexts, each nesting pass-through {@link Handler.Wrapper}s before its servlet handling, applying
+ * pass-through filters to all requests and mapping its own servlet from the supplier to the default mapping and
+ * to every prefix mapping.
+ */
+public class EE10HandlerTree
+{
+    public static ContextHandlerCollection build(HandlerTreeSettings settings, Supplier<HttpServlet> servletSupplier)
+    {
+        ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
+        for (int i = 0; i < settings.contexts(); i++)
+        {
+            ServletContextHandler servletContextHandler = new ServletContextHandler();
+            servletContextHandler.setContextPath(settings.contextPath(i));
+            for (int j = 0; j < settings.wrappers(); j++)
+            {
+                servletContextHandler.insertHandler(new Handler.Wrapper());
+            }
+            for (int j = 0; j < settings.filters(); j++)
+            {
+                servletContextHandler.addFilter(new PassThroughFilter(), "/*", EnumSet.of(DispatcherType.REQUEST));
+            }
+            ServletHolder servletHolder = new ServletHolder(servletSupplier.get());
+            servletContextHandler.addServlet(servletHolder, "/");
+            for (int j = 0; j < settings.mappings(); j++)
+            {
+                servletContextHandler.addServlet(servletHolder, settings.mappingPath(j));
+            }
+            contextHandlerCollection.addHandler(servletContextHandler);
+        }
+        return contextHandlerCollection;
+    }
+}
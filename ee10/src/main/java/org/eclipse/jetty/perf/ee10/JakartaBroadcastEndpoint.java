@@ -0,0 +1,69 @@
+package org.eclipse.jetty.perf.ee10;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.MessageHandler;
+import jakarta.websocket.Session;
+import jakarta.websocket.SendHandler;
+import org.eclipse.jetty.perf.websocket.WebSocketSettings;
+
+/**
+ * The Jakarta WebSocket flavor of the core {@code WebSocketBroadcastHandler}: sends each binary message
+ * back to its sender and to as many other sessions as the fan-out the client asked for.
+ */
+public class JakartaBroadcastEndpoint extends Endpoint
+{
+    // endpoints are instantiated per session, so the sessions to fan out to are shared
+    private static final List<Session> SESSIONS = new ArrayList<>();
+    private static final AtomicInteger NEXT_SESSION = new AtomicInteger();
+    private static volatile Session[] sessionsSnapshot = new Session[0];
+
+    @Override
+    public void onOpen(Session session, EndpointConfig config)
+    {
+        List<String> fanOutValues = session.getRequestParameterMap().get(WebSocketSettings.FAN_OUT_PARAMETER);
+        int fanOut = fanOutValues == null ? 1 : Integer.parseInt(fanOutValues.get(0));
+        synchronized (SESSIONS)
+        {
+            SESSIONS.add(session);
+            sessionsSnapshot = SESSIONS.toArray(new Session[0]);
+        }
+        session.addMessageHandler(ByteBuffer.class, (MessageHandler.Whole<ByteBuffer>)payload -> broadcast(session, fanOut, payload));
+    }
+
+    @Override
+    public void onClose(Session session, jakarta.websocket.CloseReason closeReason)
+    {
+        synchronized (SESSIONS)
+        {
+            SESSIONS.remove(session);
+            sessionsSnapshot = SESSIONS.toArray(new Session[0]);
+        }
+    }
+
+    private static void broadcast(Session session, int fanOut, ByteBuffer payload)
+    {
+        // the container may reuse the payload buffer once this method returns
+        ByteBuffer copy = ByteBuffer.allocate(payload.remaining());
+        copy.put(payload).flip();
+
+        Session[] targets = sessionsSnapshot;
+        int others = Math.max(0, Math.min(fanOut - 1, targets.length - 1));
+        SendHandler ignore = result -> {};
+        session.getAsyncRemote().sendBinary(copy.slice(), ignore);
+        int sent = 0;
+        while (sent < others)
+        {
+            Session target = targets[Math.floorMod(NEXT_SESSION.getAndIncrement(), targets.length)];
+            if (target == session)
+                continue;
+            target.getAsyncRemote().sendBinary(copy.slice(), ignore);
+            sent++;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.eclipse.jetty.perf.ee10;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Like {@link SyncEE10Servlet}, but gets or creates the session of each request and mutates it:
+ * a payload attribute of the given size is set when the session is created, and a counter attribute
+ * is incremented on every request, so that the session is dirty and written back to its store.
+ */
+public class SessionEE10Servlet extends HttpServlet
+{
+    private static final String PAYLOAD_ATTRIBUTE = "payload";
+    private static final String COUNTER_ATTRIBUTE = "counter";
+
+    private final ThreadLocal<byte[]> bufferTl = ThreadLocal.withInitial(() -> new byte[16]);
+    private final byte[] answer;
+    private final int attributeSize;
+
+    public SessionEE10Servlet(byte[] answer, int attributeSize)
+    {
+        this.answer = answer;
+        this.attributeSize = attributeSize;
+    }
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        ServletInputStream inputStream = request.getInputStream();
+        while (true)
+        {
+            int read = inputStream.read(bufferTl.get());
+            if (read == -1)
+                break;
+        }
+
+        HttpSession session = request.getSession(true);
+        if (session.isNew())
+        {
+            byte[] payload = new byte[attributeSize];
+            ThreadLocalRandom.current().nextBytes(payload);
+            session.setAttribute(PAYLOAD_ATTRIBUTE, payload);
+        }
+        Integer counter = (Integer)session.getAttribute(COUNTER_ATTRIBUTE);
+        session.setAttribute(COUNTER_ATTRIBUTE, counter == null ? 1 : counter + 1);
+
+        response.setStatus(200);
+        response.getOutputStream().write(answer);
+    }
+}
@@ -0,0 +1,94 @@
+package org.eclipse.jetty.perf.ee10;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.eclipse.jetty.perf.util.Recorder;
+import org.eclipse.jetty.session.AbstractSessionManager;
+import org.eclipse.jetty.session.DefaultSessionCache;
+import org.eclipse.jetty.session.SessionCache;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records how many sessions a session manager created while recording, how many its cache holds,
+ * and how much the heap used after a GC grew since the server started, divided by the sessions the cache gained
+ * to estimate the heap used per cached session. Add it as a bean of the tested handler so that the server
+ * registers and starts it.
+ */
+public class SessionStatsRecorder extends AbstractLifeCycle implements Recorder
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SessionStatsRecorder.class);
+    public static final String DEFAULT_STATS_FILENAME = "sessions.properties";
+
+    private final AbstractSessionManager sessionManager;
+    private long startHeapUsed;
+    private long startSessionsCached;
+    private long recordingSessionsCreated;
+
+    public SessionStatsRecorder(AbstractSessionManager sessionManager)
+    {
+        this.sessionManager = sessionManager;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        // the heap baseline needs a GC, which must not happen while the latencies are recorded
+        startHeapUsed = heapUsedAfterGc();
+        startSessionsCached = sessionsCached();
+        super.doStart();
+    }
+
+    @Override
+    public void startRecording()
+    {
+        recordingSessionsCreated = sessionManager.getSessionsCreated();
+    }
+
+    @Override
+    public void stopRecording()
+    {
+        long heapUsed = heapUsedAfterGc();
+        long sessionsCached = sessionsCached();
+        long cachedGrowth = sessionsCached - startSessionsCached;
+
+        Properties properties = new Properties();
+        properties.setProperty("session-cache", sessionManager.getSessionCache().getClass().getSimpleName());
+        properties.setProperty("session-data-store", sessionManager.getSessionCache().getSessionDataStore().getClass().getSimpleName());
+        properties.setProperty("sessions-created", Long.toString(sessionManager.getSessionsCreated() - recordingSessionsCreated));
+        properties.setProperty("sessions-cached-at-start", Long.toString(startSessionsCached));
+        properties.setProperty("sessions-cached-after", Long.toString(sessionsCached));
+        properties.setProperty("heap-used-bytes-at-start", Long.toString(startHeapUsed));
+        properties.setProperty("heap-used-bytes-after", Long.toString(heapUsed));
+        properties.setProperty("heap-bytes-per-cached-session", Long.toString(cachedGrowth <= 0L ? 0L : (heapUsed - startHeapUsed) / cachedGrowth));
+        try (OutputStream os = Files.newOutputStream(Path.of(DEFAULT_STATS_FILENAME)))
+        {
+            properties.store(os, "Sessions while recording");
+        }
+        catch (IOException e)
+        {
+            LOG.error("Error writing session stats", e);
+        }
+    }
+
+    private long sessionsCached()
+    {
+        // only the default cache holds sessions, the null cache forgets them at the end of each request
+        SessionCache sessionCache = sessionManager.getSessionCache();
+        return sessionCache instanceof DefaultSessionCache defaultSessionCache ? defaultSessionCache.getSessionsCurrent() : 0L;
+    }
+
+    private static long heapUsedAfterGc()
+    {
+        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+        memoryMXBean.gc();
+        return memoryMXBean.getHeapMemoryUsage().getUsed();
+    }
+}
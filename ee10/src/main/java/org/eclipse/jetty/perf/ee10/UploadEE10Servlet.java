@@ -0,0 +1,61 @@
+package org.eclipse.jetty.perf.ee10;
+
+import java.io.IOException;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Like {@link AsyncEE10Servlet}, but reads the request content with a buffer of a realistic size
+ * allocated per request, as an application handling uploads would.
+ */
+public class UploadEE10Servlet extends HttpServlet
+{
+    private final byte[] answer;
+    private final int bufferSize;
+
+    public UploadEE10Servlet(byte[] answer, int bufferSize)
+    {
+        this.answer = answer;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        AsyncContext asyncContext = request.startAsync(request, response);
+        ServletInputStream inputStream = request.getInputStream();
+        byte[] buffer = new byte[bufferSize];
+        inputStream.setReadListener(new ReadListener()
+        {
+            @Override
+            public void onDataAvailable() throws IOException
+            {
+                while (inputStream.isReady())
+                {
+                    if (inputStream.read(buffer) < 0)
+                        return;
+                }
+            }
+
+            @Override
+            public void onAllDataRead() throws IOException
+            {
+                response.setStatus(200);
+                response.getOutputStream().write(answer);
+                asyncContext.complete();
+            }
+
+            @Override
+            public void onError(Throwable t)
+            {
+                response.setStatus(500);
+                asyncContext.complete();
+            }
+        });
+    }
+}
@@ -1,81 +1,74 @@
 package org.eclipse.jetty.perf.ee10;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.net.URI;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
-import org.eclipse.jetty.perf.jdk.LocalJdk;
+import org.cometd.bayeux.Message;
+import org.cometd.bayeux.client.ClientSessionChannel;
+import org.cometd.client.BayeuxClient;
+import org.cometd.client.http.jetty.JettyHttpClientTransport;
+import org.cometd.client.transport.ClientTransport;
+import org.cometd.client.websocket.jetty.JettyWebSocketTransport;
+import org.cometd.server.http.jakarta.CometDServlet;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee10.servlet.ServletHolder;
+import org.eclipse.jetty.ee10.websocket.jakarta.server.config.JakartaWebSocketServletContainerInitializer;
+import org.eclipse.jetty.perf.histogram.loader.ResponseStatusListener;
 import org.eclipse.jetty.perf.monitoring.ConfigurableMonitor;
+import org.eclipse.jetty.perf.test.PerfTestParams;
+import org.eclipse.jetty.perf.util.LatencyRecorder;
 import org.eclipse.jetty.perf.util.OutputCapturer;
+import org.eclipse.jetty.perf.util.Recorder;
 import org.eclipse.jetty.perf.util.ReportUtil;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
-import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.mortbay.jetty.orchestrator.Cluster;
 import org.mortbay.jetty.orchestrator.ClusterTools;
 import org.mortbay.jetty.orchestrator.NodeArray;
 import org.mortbay.jetty.orchestrator.NodeArrayFuture;
 import org.mortbay.jetty.orchestrator.NodeJob;
-import org.mortbay.jetty.orchestrator.configuration.ClusterConfiguration;
-import org.mortbay.jetty.orchestrator.configuration.Jvm;
-import org.mortbay.jetty.orchestrator.configuration.Node;
 import org.mortbay.jetty.orchestrator.configuration.NodeArrayConfiguration;
-import org.mortbay.jetty.orchestrator.configuration.SimpleClusterConfiguration;
-import org.mortbay.jetty.orchestrator.configuration.SimpleNodeArrayConfiguration;
-import org.mortbay.jetty.orchestrator.tools.Barrier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@Disabled("Need a new CometD release")
+import static org.eclipse.jetty.perf.assertions.Assertions.assertHttpClientStatuses;
+import static org.eclipse.jetty.perf.assertions.Assertions.assertP99Latency;
+import static org.eclipse.jetty.perf.assertions.Assertions.assertThroughput;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Runs a CometD server on the server nodes and CometD clients on the loaders and probe, all in-process.
+ * Each client node publishes to its own broadcast channel, which its own subscribers listen to, so the
+ * publish-to-delivery latency of every message is measured by the JVM that timestamped it and recorded
+ * in its perf.hlog; the usual monitoring, reporting and assertions then apply.
+ * The CometD artifacts are only on the classpath of the {@code cometd} Maven profile, outside of which this
+ * test is not compiled.
+ */
 public class CometdBenchmarkTest implements Serializable
 {
     private static final Logger LOG = LoggerFactory.getLogger(CometdBenchmarkTest.class);
-
-    private static final String JDK_TO_USE = System.getProperty("test.jdk.name", "load-jdk17");
-
-    private static final EnumSet<ConfigurableMonitor.Item> MONITORED_ITEMS = EnumSet.of(
-        ConfigurableMonitor.Item.CMDLINE_CPU,
-        ConfigurableMonitor.Item.CMDLINE_MEMORY,
-        ConfigurableMonitor.Item.CMDLINE_NETWORK,
-        ConfigurableMonitor.Item.CMDLINE_DISK,
-        ConfigurableMonitor.Item.ASYNC_PROF_CPU, // Async Profiler seems to be the cause of the 59th second latency spike.
-        ConfigurableMonitor.Item.JHICCUP
-    );
-
-    private static String[] defaultJvmOpts(String... extra)
-    {
-        List<String> result = new ArrayList<>();
-        result.add("-XX:+UnlockExperimentalVMOptions");
-        result.add("-XX:+UseZGC");
-        result.add("-XX:+AlwaysPreTouch");
-        if (MONITORED_ITEMS.contains(ConfigurableMonitor.Item.ASYNC_PROF_CPU) ||
-            MONITORED_ITEMS.contains(ConfigurableMonitor.Item.ASYNC_PROF_ALLOC) ||
-            MONITORED_ITEMS.contains(ConfigurableMonitor.Item.ASYNC_PROF_LOCK) ||
-            MONITORED_ITEMS.contains(ConfigurableMonitor.Item.ASYNC_PROF_CACHE_MISSES))
-            result.addAll(List.of("-XX:+UnlockDiagnosticVMOptions", "-XX:+DebugNonSafepoints"));
-        result.addAll(Arrays.asList(extra));
-        return result.toArray(new String[0]);
-    }
-
-    private static final ClusterConfiguration CLUSTER_CONFIGURATION = new SimpleClusterConfiguration()
-        .jvm(new Jvm(new LocalJdk(JDK_TO_USE)))
-        .nodeArray(new SimpleNodeArrayConfiguration("server")
-            .node(new Node("load-master"))
-            .jvm(new Jvm(new LocalJdk(JDK_TO_USE), defaultJvmOpts("-Xms32g", "-Xmx32g")))
-        )
-        .nodeArray(new SimpleNodeArrayConfiguration("clients")
-            .node(new Node("load-client-1"))
-            .node(new Node("load-client-2"))
-            .node(new Node("load-client-3"))
-            .node(new Node("load-client-4"))
-            .jvm(new Jvm(new LocalJdk(JDK_TO_USE), defaultJvmOpts("-Xms8g", "-Xmx8g")))
-        );
+    private static final Duration WARMUP_DURATION = Duration.ofSeconds(60);
+    private static final Duration RUN_DURATION = Duration.ofSeconds(180);
+    private static final String COMETD_PATH = "/cometd";
+    private static final String NANO_TIME_FIELD = "nanoTime";
+    private static final int PROBE_SUBSCRIBERS = 1;
 
     private String testName;
 
@@ -89,86 +82,205 @@ public class CometdBenchmarkTest implements Serializable
         testName = simpleClassName + "_" + methodName;
     }
 
-    @Test
-    public void testStandard() throws Exception
+    @ParameterizedTest(name = "{0} {2}")
+    @CsvSource({
+        "LONG_POLLING, 1_000, 10, 5_000_000, 15.0",
+        "WEBSOCKET,    1_000, 10, 2_000_000, 15.0"
+    })
+    public void testPublishToDelivery(String transport, int publishRate, int subscribers, long expectedP99Latency, double expectedP99ErrorMargin) throws Exception
     {
-        Path reportRootPath = ReportUtil.createReportRootPath(testName);
+        PerfTestParams params = new PerfTestParams(PerfTestParams.Protocol.http, publishRate, expectedP99Latency, expectedP99Latency, expectedP99ErrorMargin);
+        Path reportRootPath = ReportUtil.createReportRootPath(testName, transport, Integer.toString(subscribers));
+        List<String> nodeArrayIds = params.getClusterConfiguration().nodeArrays().stream().map(NodeArrayConfiguration::id).toList();
         try (OutputCapturer ignore = new OutputCapturer(reportRootPath);
-            Cluster cluster = new Cluster(testName, CLUSTER_CONFIGURATION))
+             Cluster cluster = new Cluster(testName, params.getClusterConfiguration()))
         {
             NodeArray serverArray = cluster.nodeArray("server");
-            NodeArray clientsArray = cluster.nodeArray("clients");
+            NodeArray loadersArray = cluster.nodeArray("loaders");
+            NodeArray probeArray = cluster.nodeArray("probe");
+            int participantCount = params.getClusterConfiguration().nodeArrays().stream().mapToInt(nac -> nac.nodes().size()).sum() + 1; // + 1 b/c of the test itself
+            List<URI> serverUris = params.getServerUris();
+            int serverPort = params.getServerPort();
+            int probeRate = params.getProbeRate();
 
             NodeJob logSystemProps = tools -> LOG.info("JVM version '{}' running on '{}/{}'", System.getProperty("java.vm.version"), System.getProperty("os.name"), System.getProperty("os.arch"));
             serverArray.executeOnAll(logSystemProps).get();
-            clientsArray.executeOnAll(logSystemProps).get();
+            loadersArray.executeOnAll(logSystemProps).get();
+            probeArray.executeOnAll(logSystemProps).get();
 
-            serverArray.executeOnAll(this::startMonitoring).get();
-            clientsArray.executeOnAll(this::startMonitoring).get();
+            LOG.info("Starting the CometD server...");
+            serverArray.executeOnAll(tools -> startServer(serverPort, tools)).get(30, TimeUnit.SECONDS);
+            LOG.info("Starting the CometD clients...");
+            loadersArray.executeOnAll(tools -> startClient(transport, serverUris, publishRate, subscribers, tools)).get(60, TimeUnit.SECONDS);
+            probeArray.executeOnAll(tools -> startClient(transport, serverUris, probeRate, PROBE_SUBSCRIBERS, tools)).get(60, TimeUnit.SECONDS);
 
-            NodeArrayFuture serverArrayFuture = serverArray.executeOnAll(tools ->
-            {
-                List<String> args = Arrays.asList("--auto", "--transports=jetty");
-                // TODO
-//                CometDLoadServer.main(args.toArray(new String[0]));
-            });
+            LOG.info("Warming up {}s ...", WARMUP_DURATION.toSeconds());
+            Thread.sleep(WARMUP_DURATION.toMillis());
 
-            NodeArrayFuture clientArrayFuture = clientsArray.executeOnAll(tools ->
+            LOG.info("Running {}s ...", RUN_DURATION.toSeconds());
+            NodeJob recordingJob = tools ->
             {
-                Barrier barrier = tools.barrier("clientId", getClientsCount());
-                int clientId = barrier.await();
-                List<String> args = Arrays.asList("--auto", "--host=" + getServerHostname(), "--transport=LONG_POLLING", "--channel=/a/" + clientId);
-                // TODO
-//                CometDLoadClient.main(args.toArray(new String[0]));
-            });
-
-            serverArrayFuture.get(120, TimeUnit.SECONDS);
-            clientArrayFuture.get(120, TimeUnit.SECONDS);
-
-            serverArray.executeOnAll(this::stopMonitoring).get();
-            clientsArray.executeOnAll(this::stopMonitoring).get();
-
-            ReportUtil.download(serverArray, reportRootPath.resolve("server"));
-            ReportUtil.transformJHiccupHisto(serverArray, reportRootPath.resolve("server"));
-            ReportUtil.download(clientsArray, reportRootPath.resolve("clients"));
-            ReportUtil.transformJHiccupHisto(clientsArray, reportRootPath.resolve("clients"));
+                try (ConfigurableMonitor ignored = new ConfigurableMonitor(params.getMonitoredItems(), tools.nodeEnvironment()))
+                {
+                    @SuppressWarnings("unchecked")
+                    List<Recorder> recorders = (List<Recorder>)tools.nodeEnvironment().get(Recorder.class.getName());
+                    recorders.forEach(Recorder::startRecording);
+                    tools.barrier("run-start-barrier", participantCount).await();
+                    tools.barrier("run-end-barrier", participantCount).await();
+                    recorders.forEach(Recorder::stopRecording);
+                }
+            };
+            NodeArrayFuture serverFuture = serverArray.executeOnAll(recordingJob);
+            NodeArrayFuture loadersFuture = loadersArray.executeOnAll(recordingJob);
+            NodeArrayFuture probeFuture = probeArray.executeOnAll(recordingJob);
+
+            cluster.tools().barrier("run-start-barrier", participantCount).await(30, TimeUnit.SECONDS);
+            Thread.sleep(RUN_DURATION.toMillis());
+            cluster.tools().barrier("run-end-barrier", participantCount).await(30, TimeUnit.SECONDS);
+            serverFuture.get(30, TimeUnit.SECONDS);
+            loadersFuture.get(30, TimeUnit.SECONDS);
+            probeFuture.get(30, TimeUnit.SECONDS);
+
+            LOG.info("Stopping the CometD clients and server...");
+            loadersArray.executeOnAll(CometdBenchmarkTest::stop).get(30, TimeUnit.SECONDS);
+            probeArray.executeOnAll(CometdBenchmarkTest::stop).get(30, TimeUnit.SECONDS);
+            serverArray.executeOnAll(CometdBenchmarkTest::stop).get(30, TimeUnit.SECONDS);
+
+            LOG.info("Generating report...");
+            ReportUtil.generateReport(reportRootPath, nodeArrayIds, cluster);
         }
+
+        NodeArrayConfiguration loadersCfg = params.getClusterConfiguration().nodeArrays().stream().filter(nac -> nac.id().equals("loaders")).findAny().orElseThrow();
+        NodeArrayConfiguration probeCfg = params.getClusterConfiguration().nodeArrays().stream().filter(nac -> nac.id().equals("probe")).findAny().orElseThrow();
+        // every published message is delivered to, and recorded by, each subscriber of the publishing node
+        long totalLoadersDeliveryCount = (long)publishRate * subscribers * loadersCfg.nodes().size() * RUN_DURATION.toSeconds();
+        long totalProbeDeliveryCount = (long)params.getProbeRate() * PROBE_SUBSCRIBERS * RUN_DURATION.toSeconds();
+        boolean succeeded = true;
+        System.out.println(" Asserting loaders");
+        succeeded &= assertHttpClientStatuses(reportRootPath, loadersCfg, RUN_DURATION.toSeconds() * 2);
+        succeeded &= assertThroughput(reportRootPath, loadersCfg, totalLoadersDeliveryCount, 1);
+        succeeded &= assertP99Latency(reportRootPath, loadersCfg, params.getExpectedP99ServerLatency(), params.getExpectedP99ErrorMargin(), 2);
+        System.out.println(" Asserting probe");
+        succeeded &= assertHttpClientStatuses(reportRootPath, probeCfg, RUN_DURATION.toSeconds() * 2);
+        succeeded &= assertThroughput(reportRootPath, probeCfg, totalProbeDeliveryCount, 1);
+        succeeded &= assertP99Latency(reportRootPath, probeCfg, params.getExpectedP99ProbeLatency(), params.getExpectedP99ErrorMargin(), 2);
+        assertThat("Performance assertions failure for " + transport, succeeded, is(true));
     }
 
-    private void startMonitoring(ClusterTools tools) throws Exception
+    private static void startServer(int port, ClusterTools tools) throws Exception
     {
-        ConfigurableMonitor monitor = new ConfigurableMonitor(MONITORED_ITEMS);
-        tools.nodeEnvironment().put(ConfigurableMonitor.class.getName(), monitor);
+        Server server = new Server();
+        ServerConnector serverConnector = new ServerConnector(server);
+        serverConnector.setPort(port);
+        server.addConnector(serverConnector);
+
+        ServletContextHandler contextHandler = new ServletContextHandler();
+        contextHandler.setContextPath("/");
+        // the WebSocket container must exist before the CometD servlet initializes its transports
+        JakartaWebSocketServletContainerInitializer.configure(contextHandler, null);
+        ServletHolder cometdHolder = contextHandler.addServlet(CometDServlet.class, COMETD_PATH + "/*");
+        cometdHolder.setInitParameter("ws.cometdURLMapping", COMETD_PATH + "/*");
+        cometdHolder.setInitOrder(1);
+        server.setHandler(contextHandler);
+        server.start();
+
+        // the latency is recorded by the clients, the server only gets monitored
+        tools.nodeEnvironment().put(Recorder.class.getName(), List.of());
+        tools.nodeEnvironment().put(AutoCloseable.class.getName(), (AutoCloseable)server::stop);
     }
 
-    private void stopMonitoring(ClusterTools tools)
+    private static void startClient(String transport, List<URI> serverUris, int publishRate, int subscribers, ClusterTools tools) throws Exception
     {
-        ConfigurableMonitor monitor = (ConfigurableMonitor)tools.nodeEnvironment().get(ConfigurableMonitor.class.getName());
-        if (monitor != null)
-            monitor.close();
+        int clientId = (int)tools.atomicCounter("cometd-client-id", 0L).getAndIncrement();
+        // spread the clients over the server nodes the same way the loaders are
+        URI serverUri = serverUris.get(clientId % serverUris.size());
+        String url = "http://" + serverUri.getHost() + ":" + serverUri.getPort() + COMETD_PATH;
+        String channelName = "/perf/" + clientId;
+        LatencyRecorder latencyRecorder = new LatencyRecorder("perf.hlog");
+        ResponseStatusListener responseStatusListener = new ResponseStatusListener("http-client-statuses.log");
+
+        HttpClient httpClient = new HttpClient();
+        WebSocketClient webSocketClient = new WebSocketClient(httpClient);
+        webSocketClient.start();
+        ScheduledExecutorService transportScheduler = Executors.newSingleThreadScheduledExecutor();
+        List<BayeuxClient> bayeuxClients = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++)
+        {
+            BayeuxClient subscriber = handshake(newClientTransport(transport, httpClient, webSocketClient, transportScheduler), url);
+            bayeuxClients.add(subscriber);
+            CompletableFuture<Void> subscribed = new CompletableFuture<>();
+            subscriber.getChannel(channelName).subscribe(
+                (channel, message) -> latencyRecorder.recordValue(System.nanoTime() - ((Number)message.getDataAsMap().get(NANO_TIME_FIELD)).longValue()),
+                reply -> complete(subscribed, reply));
+            subscribed.get(15, TimeUnit.SECONDS);
+        }
+        BayeuxClient publisher = handshake(newClientTransport(transport, httpClient, webSocketClient, transportScheduler), url);
+        bayeuxClients.add(publisher);
+        ClientSessionChannel publishChannel = publisher.getChannel(channelName);
+        LOG.info("client {} publishing to {} over {} at {} msg/s for {} subscriber(s)", clientId, url, transport, publishRate, subscribers);
+
+        // publish in small bursts, as a single thread cannot tick once per message at high rates
+        int messagesPerTick = Math.max(1, publishRate / 1000);
+        long periodNanos = messagesPerTick * TimeUnit.SECONDS.toNanos(1) / publishRate;
+        ScheduledExecutorService publishScheduler = Executors.newSingleThreadScheduledExecutor();
+        publishScheduler.scheduleAtFixedRate(() ->
+        {
+            for (int i = 0; i < messagesPerTick; i++)
+            {
+                publishChannel.publish(Map.of(NANO_TIME_FIELD, System.nanoTime()), reply ->
+                {
+                    if (reply.isSuccessful())
+                        responseStatusListener.recordStatus(200, null);
+                    else
+                        responseStatusListener.recordStatus(0, new IOException("Publish failed: " + reply.get(Message.ERROR_FIELD)));
+                });
+            }
+        }, 0L, periodNanos, TimeUnit.NANOSECONDS);
+
+        tools.nodeEnvironment().put(Recorder.class.getName(), List.of(latencyRecorder, responseStatusListener));
+        tools.nodeEnvironment().put(AutoCloseable.class.getName(), (AutoCloseable)() ->
+        {
+            publishScheduler.shutdownNow();
+            for (BayeuxClient bayeuxClient : bayeuxClients)
+            {
+                bayeuxClient.disconnect(1000);
+            }
+            webSocketClient.stop();
+            transportScheduler.shutdownNow();
+        });
     }
 
-    private static int getClientsCount()
+    private static ClientTransport newClientTransport(String transport, HttpClient httpClient, WebSocketClient webSocketClient, ScheduledExecutorService scheduler)
     {
-        return CLUSTER_CONFIGURATION.nodeArrays().stream().filter(nac -> nac.id().equals("clients")).mapToInt(nac -> nac.nodes().size()).sum();
+        return switch (transport)
+        {
+            case "LONG_POLLING" -> new JettyHttpClientTransport(null, httpClient);
+            case "WEBSOCKET" -> new JettyWebSocketTransport(null, scheduler, webSocketClient);
+            default -> throw new IllegalArgumentException("Unknown CometD transport: " + transport);
+        };
     }
 
-    public String getServerHostname()
+    private static BayeuxClient handshake(ClientTransport clientTransport, String url)
     {
-        String serverHostname = null;
-        for (NodeArrayConfiguration nodeArrayConfiguration : CLUSTER_CONFIGURATION.nodeArrays())
-        {
-            if (!nodeArrayConfiguration.id().equals("server"))
-                continue;
+        BayeuxClient bayeuxClient = new BayeuxClient(url, clientTransport);
+        bayeuxClient.handshake();
+        if (!bayeuxClient.waitFor(15_000, BayeuxClient.State.CONNECTED))
+            throw new IllegalStateException("Could not handshake with " + url);
+        return bayeuxClient;
+    }
 
-            Collection<Node> nodes = nodeArrayConfiguration.nodes();
-            if (nodes.size() != 1)
-                throw new IllegalStateException("server node array must contain only one node");
-            serverHostname = nodes.iterator().next().getHostname();
-        }
-        if (serverHostname == null)
-            throw new IllegalStateException("cluster configuration must have a node array named 'server'");
+    private static void complete(CompletableFuture<Void> future, Message reply)
+    {
+        if (reply.isSuccessful())
+            future.complete(null);
+        else
+            future.completeExceptionally(new IOException("Subscription failed: " + reply.get(Message.ERROR_FIELD)));
+    }
 
-        return serverHostname;
+    private static void stop(ClusterTools tools) throws Exception
+    {
+        AutoCloseable closeable = (AutoCloseable)tools.nodeEnvironment().remove(AutoCloseable.class.getName());
+        if (closeable != null)
+            closeable.close();
     }
 }
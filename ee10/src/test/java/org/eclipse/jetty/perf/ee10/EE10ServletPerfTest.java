@@ -1,14 +1,38 @@
 package org.eclipse.jetty.perf.ee10;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.eclipse.jetty.ee10.servlet.DefaultServlet;
 import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee10.servlet.ServletHolder;
+import org.eclipse.jetty.ee10.servlet.SessionHandler;
+import org.eclipse.jetty.ee10.websocket.jakarta.server.config.JakartaWebSocketServletContainerInitializer;
+import org.eclipse.jetty.perf.client.SessionSettings;
+import org.eclipse.jetty.perf.client.UploadSettings;
+import org.eclipse.jetty.perf.files.StaticFileTree;
+import org.eclipse.jetty.perf.files.StaticFilesSettings;
+import org.eclipse.jetty.perf.handler.HandlerTreeSettings;
+import org.eclipse.jetty.perf.results.RunSummary;
 import org.eclipse.jetty.perf.test.FlatPerfTest;
 import org.eclipse.jetty.perf.test.PerfTestParams;
+import org.eclipse.jetty.perf.util.SerializableSupplier;
+import org.eclipse.jetty.perf.websocket.WebSocketSettings;
+import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.session.AbstractSessionCache;
+import org.eclipse.jetty.session.DefaultSessionCache;
+import org.eclipse.jetty.session.FileSessionDataStore;
+import org.eclipse.jetty.session.NullSessionCache;
+import org.eclipse.jetty.session.NullSessionDataStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.condition.EnabledIf;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
@@ -40,7 +64,7 @@ public class EE10ServletPerfTest
     public void testNoGzipAsync(PerfTestParams.Protocol protocol, int loaderRate, long expectedP99ServerLatency, long expectedP99ProbeLatency, double expectedP99ErrorMargin) throws Exception
     {
         PerfTestParams params = new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin);
-        boolean succeeded = FlatPerfTest.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, () ->
+        runTest(testName, params, () ->
         {
             ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
             ServletContextHandler targetContextHandler = new ServletContextHandler();
@@ -53,7 +77,6 @@ public class EE10ServletPerfTest
             contextHandlerCollection.addHandler(uselessContextHandler);
             return contextHandlerCollection;
         });
-        assertThat("Performance assertions failure for " + params, succeeded, is(true));
     }
 
     @ParameterizedTest(name = "{0}")
@@ -64,7 +87,7 @@ public class EE10ServletPerfTest
     public void testNoGzipSync(PerfTestParams.Protocol protocol, int loaderRate, long expectedP99ServerLatency, long expectedP99ProbeLatency, double expectedP99ErrorMargin) throws Exception
     {
         PerfTestParams params = new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin);
-        boolean succeeded = FlatPerfTest.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, () ->
+        runTest(testName, params, () ->
         {
             ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
             ServletContextHandler targetContextHandler = new ServletContextHandler();
@@ -77,6 +100,180 @@ public class EE10ServletPerfTest
             contextHandlerCollection.addHandler(uselessContextHandler);
             return contextHandlerCollection;
         });
-        assertThat("Performance assertions failure for " + params, succeeded, is(true));
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#areVariantsEnabled")
+    @ParameterizedTest(name = "{0} {2} {3} {4} {5}")
+    @CsvSource({
+        "http, 20_000, 2_500,    64, false,  1",
+        "http, 20_000, 2_500, 4_096, false,  1",
+        "http, 20_000, 2_500, 4_096, true,   1",
+        "http,  2_000, 2_500,    64, false, 10"
+    })
+    public void testJakartaWebSocketBroadcast(PerfTestParams.Protocol protocol, int loaderRate, int sessions, int messageSize, boolean deflate, int fanOut) throws Exception
+    {
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .withWebSocket(new WebSocketSettings(sessions, messageSize, deflate, fanOut));
+        runTest(testName, params, () ->
+        {
+            ServletContextHandler targetContextHandler = new ServletContextHandler();
+            targetContextHandler.setContextPath("/");
+            targetContextHandler.addServlet(new AsyncEE10Servlet("Hi there!".getBytes(StandardCharsets.ISO_8859_1)), "/*");
+            JakartaWebSocketServletContainerInitializer.configure(targetContextHandler, (servletContext, container) ->
+                container.addEndpoint(ServerEndpointConfig.Builder.create(JakartaBroadcastEndpoint.class, WebSocketSettings.PATH).build()));
+            return targetContextHandler;
+        });
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#areVariantsEnabled")
+    @ParameterizedTest(name = "{0} {2} {3} {4}")
+    @CsvSource({
+        "http, 100, 1_048_576, false,  8_192",
+        "http, 100, 1_048_576, false, 65_536",
+        "http, 100, 1_048_576, true,   8_192",
+        "http,  20, 8_388_608, false, 65_536",
+        "h2c,  100, 1_048_576, false,  8_192",
+        "h2c,  100, 1_048_576, false, 65_536",
+        "h2c,   20, 8_388_608, false, 65_536"
+    })
+    public void testUploadAsync(PerfTestParams.Protocol protocol, int loaderRate, int bodySize, boolean chunked, int bufferSize) throws Exception
+    {
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .withUpload(new UploadSettings(bodySize, chunked));
+        runTest(testName, params, () ->
+        {
+            ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
+            ServletContextHandler targetContextHandler = new ServletContextHandler();
+            targetContextHandler.setContextPath("/");
+            targetContextHandler.addServlet(new UploadEE10Servlet("Hi there!".getBytes(StandardCharsets.ISO_8859_1), bufferSize), "/*");
+            contextHandlerCollection.addHandler(targetContextHandler);
+            ServletContextHandler uselessContextHandler = new ServletContextHandler();
+            uselessContextHandler.setContextPath("/useless");
+            uselessContextHandler.addServlet(new Always404Servlet(), "/*");
+            contextHandlerCollection.addHandler(uselessContextHandler);
+            return contextHandlerCollection;
+        });
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#areVariantsEnabled")
+    @ParameterizedTest(name = "{0} {2} {3} {4} {5} {6} {7}")
+    @CsvSource({
+        "http, 10_000, 10_000, 1_024,    65_536, false, false, false",
+        "http, 10_000, 10_000, 1_024,    65_536, false, true,  false",
+        "http, 10_000, 10_000, 1_024,    65_536, false, false, true",
+        "http, 10_000, 10_000, 1_024,    65_536, true,  true,  false",
+        "http,  1_000, 10_000, 1_024, 1_048_576, false, false, false",
+        "http,  1_000, 10_000, 1_024, 1_048_576, false, true,  false",
+        "http,  1_000, 10_000, 1_024, 1_048_576, false, false, true",
+        "h2c,  10_000, 10_000, 1_024,    65_536, false, true,  false",
+        "h2c,  10_000, 10_000, 1_024,    65_536, true,  true,  false"
+    })
+    public void testStaticFilesDefaultServlet(PerfTestParams.Protocol protocol, int loaderRate, int files, int minSize, int maxSize, boolean precompressed, boolean cached, boolean fileMapping) throws Exception
+    {
+        StaticFilesSettings staticFilesSettings = new StaticFilesSettings(files, minSize, maxSize, precompressed);
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .withStaticFiles(staticFilesSettings);
+        String testName = this.testName + (cached ? "_cached" : "_uncached") + (fileMapping ? "_mapped" : "");
+        runTest(testName, params, () ->
+        {
+            ServletContextHandler targetContextHandler = new ServletContextHandler();
+            targetContextHandler.setContextPath("/");
+            targetContextHandler.setBaseResourceAsString(StaticFileTree.root(staticFilesSettings).toString());
+            ServletHolder defaultServletHolder = new ServletHolder(DefaultServlet.class);
+            defaultServletHolder.setInitParameter("dirAllowed", "false");
+            defaultServletHolder.setInitParameter("useFileMappedBuffer", Boolean.toString(fileMapping));
+            if (precompressed)
+                defaultServletHolder.setInitParameter("precompressed", "gzip=.gz");
+            // setting any of the cache sizes makes the servlet use a caching content factory, whose sizes are ints
+            if (cached)
+            {
+                defaultServletHolder.setInitParameter("maxCacheSize", Integer.toString(Integer.MAX_VALUE));
+                defaultServletHolder.setInitParameter("maxCachedFiles", Integer.toString(Integer.MAX_VALUE));
+            }
+            targetContextHandler.addServlet(defaultServletHolder, "/");
+            return targetContextHandler;
+        });
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#areVariantsEnabled")
+    @ParameterizedTest(name = "{0} {2} {3} {4} {5}")
+    @CsvSource({
+        "http, 60_000,  10_000,   128, DEFAULT, NULL",
+        "http, 60_000, 500_000,   128, DEFAULT, NULL",
+        "http, 60_000, 500_000, 4_096, DEFAULT, NULL",
+        "http, 20_000,  10_000,   128, NULL,    FILE",
+        "http, 20_000,  10_000,   128, DEFAULT, FILE",
+        "h2c,  60_000, 500_000,   128, DEFAULT, NULL",
+        "h2c,  20_000,  10_000,   128, NULL,    FILE"
+    })
+    public void testSessions(PerfTestParams.Protocol protocol, int loaderRate, int users, int attributeSize, String sessionCache, String sessionDataStore) throws Exception
+    {
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .withSessions(new SessionSettings(users));
+        String testName = this.testName + "_" + attributeSize + "b_" + sessionCache.toLowerCase() + "-cache_" + sessionDataStore.toLowerCase() + "-store";
+        runTest(testName, params, () ->
+        {
+            ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
+            ServletContextHandler targetContextHandler = new ServletContextHandler(ServletContextHandler.SESSIONS);
+            targetContextHandler.setContextPath("/");
+            targetContextHandler.addServlet(new SessionEE10Servlet("Hi there!".getBytes(StandardCharsets.ISO_8859_1), attributeSize), "/*");
+            SessionHandler sessionHandler = targetContextHandler.getSessionHandler();
+            // the sessions must outlive the warmup so that they pile up for the whole run
+            sessionHandler.setMaxInactiveInterval((int)(WARMUP_DURATION.toSeconds() + RUN_DURATION.toSeconds()) * 2);
+            AbstractSessionCache cache = "NULL".equals(sessionCache) ? new NullSessionCache(sessionHandler) : new DefaultSessionCache(sessionHandler);
+            if ("FILE".equals(sessionDataStore))
+            {
+                FileSessionDataStore fileSessionDataStore = new FileSessionDataStore();
+                try
+                {
+                    fileSessionDataStore.setStoreDir(Files.createTempDirectory(Path.of(System.getProperty("java.io.tmpdir")), "jetty-perf-sessions").toFile());
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+                cache.setSessionDataStore(fileSessionDataStore);
+            }
+            else
+            {
+                cache.setSessionDataStore(new NullSessionDataStore());
+            }
+            sessionHandler.setSessionCache(cache);
+            targetContextHandler.addBean(new SessionStatsRecorder(sessionHandler));
+            contextHandlerCollection.addHandler(targetContextHandler);
+            ServletContextHandler uselessContextHandler = new ServletContextHandler();
+            uselessContextHandler.setContextPath("/useless");
+            uselessContextHandler.addServlet(new Always404Servlet(), "/*");
+            contextHandlerCollection.addHandler(uselessContextHandler);
+            return contextHandlerCollection;
+        });
+    }
+
+    @EnabledIf("org.eclipse.jetty.perf.test.PerfTestParams#areVariantsEnabled")
+    @ParameterizedTest(name = "{0} {2} {3} {4} {5}")
+    @CsvSource({
+        "http, 60_000,     2,  0,  0,   0",
+        "http, 60_000,   100,  0,  0,   0",
+        "http, 60_000, 1_000,  0,  0,   0",
+        "http, 60_000,     2,  0, 10,   0",
+        "http, 60_000,     2,  0, 50,   0",
+        "http, 60_000,     2,  0,  0, 500",
+        "http, 60_000, 1_000, 10, 20, 200",
+        "h2c,  60_000,     2,  0,  0,   0",
+        "h2c,  60_000, 1_000, 10, 20, 200"
+    })
+    public void testHandlerTree(PerfTestParams.Protocol protocol, int loaderRate, int contexts, int wrappers, int filters, int mappings) throws Exception
+    {
+        HandlerTreeSettings handlerTreeSettings = new HandlerTreeSettings(contexts, wrappers, filters, mappings);
+        PerfTestParams params = new PerfTestParams(protocol, loaderRate)
+            .withHandlerTree(handlerTreeSettings);
+        runTest(testName, params, () ->
+            EE10HandlerTree.build(handlerTreeSettings, () -> new AsyncEE10Servlet("Hi there!".getBytes(StandardCharsets.ISO_8859_1))));
+    }
+
+    private void runTest(String testName, PerfTestParams params, SerializableSupplier<Handler> testedHandlerSupplier) throws Exception
+    {
+        RunSummary runSummary = FlatPerfTest.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, testedHandlerSupplier);
+        assertThat("Performance assertions failure for " + params, runSummary.isSucceeded(), is(true));
     }
 }
@@ -5,6 +5,7 @@ import java.time.Duration;
 
 import org.eclipse.jetty.ee9.servlet.ServletContextHandler;
 import org.eclipse.jetty.ee9.servlet.ServletHolder;
+import org.eclipse.jetty.perf.results.RunSummary;
 import org.eclipse.jetty.perf.test.FlatPerfTest;
 import org.eclipse.jetty.perf.test.PerfTestParams;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
@@ -41,7 +42,7 @@ public class EE9ServletPerfTest
     public void testNoGzipAsync(PerfTestParams.Protocol protocol, int loaderRate, long expectedP99ServerLatency, long expectedP99ProbeLatency, double expectedP99ErrorMargin) throws Exception
     {
         PerfTestParams params = new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin);
-        boolean succeeded = FlatPerfTest.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, () ->
+        RunSummary runSummary = FlatPerfTest.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, () ->
         {
             ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
             ServletContextHandler targetContextHandler = new ServletContextHandler();
@@ -54,7 +55,7 @@ public class EE9ServletPerfTest
             contextHandlerCollection.addHandler(uselessContextHandler.getCoreContextHandler());
             return contextHandlerCollection;
         });
-        assertThat("Performance assertions failure for " + params, succeeded, is(true));
+        assertThat("Performance assertions failure for " + params, runSummary.isSucceeded(), is(true));
     }
 
     @ParameterizedTest(name = "{0}")
@@ -65,7 +66,7 @@ public class EE9ServletPerfTest
     public void testNoGzipSync(PerfTestParams.Protocol protocol, int loaderRate, long expectedP99ServerLatency, long expectedP99ProbeLatency, double expectedP99ErrorMargin) throws Exception
     {
         PerfTestParams params = new PerfTestParams(protocol, loaderRate, expectedP99ServerLatency, expectedP99ProbeLatency, expectedP99ErrorMargin);
-        boolean succeeded = FlatPerfTest.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, () ->
+        RunSummary runSummary = FlatPerfTest.runTest(testName, params, WARMUP_DURATION, RUN_DURATION, () ->
         {
             ContextHandlerCollection contextHandlerCollection = new ContextHandlerCollection();
             ServletContextHandler targetContextHandler = new ServletContextHandler();
@@ -78,6 +79,6 @@ public class EE9ServletPerfTest
             contextHandlerCollection.addHandler(uselessContextHandler.getCoreContextHandler());
             return contextHandlerCollection;
         });
-        assertThat("Performance assertions failure for " + params, succeeded, is(true));
+        assertThat("Performance assertions failure for " + params, runSummary.isSucceeded(), is(true));
     }
 }